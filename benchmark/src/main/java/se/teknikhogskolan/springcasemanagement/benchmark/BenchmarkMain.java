@@ -0,0 +1,30 @@
+package se.teknikhogskolan.springcasemanagement.benchmark;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * The JMH command line, writing results as JSON to results/jmh-yyyyMMdd-HHmmss.json unless the arguments choose a
+ * result format. One file per run, to track scores between versions.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf") && !arguments.contains("-rff")) {
+            String started = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            new File("results").mkdirs();
+            arguments.addAll(0, Arrays.asList("-rf", "json", "-rff", "results/jmh-" + started + ".json"));
+        }
+        Main.main(arguments.toArray(new String[arguments.size()]));
+    }
+}
@@ -0,0 +1,108 @@
+package se.teknikhogskolan.springcasemanagement.benchmark;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+import javax.sql.DataSource;
+
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+
+/**
+ * Teams, users and work items inserted with JDBC batches, sized by the number of work items. Ids are 1 and up in
+ * every table, and a user's user number is its id. Teams stay below the 10 users and users below the 5 work items the
+ * services allow, so benchmarks can move one more in.
+ */
+final class DataSet {
+
+    static final int usersPerTeam = 8;
+    static final int workItemsPerUser = 4;
+    private static final int batchSize = 1000;
+
+    private final int teams;
+    private final int users;
+    private final int workItems;
+
+    private DataSet(int workItems) {
+        int perTeam = usersPerTeam * workItemsPerUser;
+        this.teams = Math.max(2, (workItems + perTeam - 1) / perTeam);
+        this.users = teams * usersPerTeam;
+        this.workItems = users * workItemsPerUser;
+    }
+
+    /** At least {@code workItems} work items, rounded up to fill every team, and never fewer than two teams. */
+    static DataSet insert(DataSource dataSource, int workItems) throws SQLException {
+        DataSet dataSet = new DataSet(workItems);
+        dataSet.insert(dataSource);
+        return dataSet;
+    }
+
+    int getTeams() {
+        return teams;
+    }
+
+    int getUsers() {
+        return users;
+    }
+
+    int getWorkItems() {
+        return workItems;
+    }
+
+    /** Users of a team are numbered from 0. */
+    long userId(long teamId, int user) {
+        return (teamId - 1) * usersPerTeam + user + 1;
+    }
+
+    /** Work items of a user are numbered from 0. */
+    long workItemId(long userId, int workItem) {
+        return (userId - 1) * workItemsPerUser + workItem + 1;
+    }
+
+    private void insert(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement team = connection.prepareStatement(
+                        "insert into Team (id, name, active) values (?, ?, true)");
+                PreparedStatement user = connection.prepareStatement(
+                        "insert into User (id, userNumber, username, firstName, lastName, active, team_id) "
+                                + "values (?, ?, ?, ?, ?, true, ?)");
+                PreparedStatement workItem = connection.prepareStatement(
+                        "insert into WorkItem (id, created, description, status, user_id) values (?, ?, ?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            for (long t = 1; t <= teams; t++) {
+                team.setLong(1, t);
+                team.setString(2, "Team " + t);
+                team.addBatch();
+            }
+            team.executeBatch();
+
+            for (long u = 1; u <= users; u++) {
+                user.setLong(1, u);
+                user.setLong(2, u);
+                user.setString(3, "user" + u);
+                user.setString(4, "First" + u);
+                user.setString(5, "Last" + u);
+                user.setLong(6, (u - 1) / usersPerTeam + 1);
+                user.addBatch();
+                if (u % batchSize == 0) user.executeBatch();
+            }
+            user.executeBatch();
+
+            WorkItem.Status[] statuses = WorkItem.Status.values();
+            LocalDate firstDay = LocalDate.now().minusDays(365);
+            for (long w = 1; w <= workItems; w++) {
+                workItem.setLong(1, w);
+                workItem.setDate(2, Date.valueOf(firstDay.plusDays(w % 365)));
+                workItem.setString(3, "Work item number " + w);
+                workItem.setString(4, statuses[(int) (w % statuses.length)].name());
+                workItem.setLong(5, (w - 1) / workItemsPerUser + 1);
+                workItem.addBatch();
+                if (w % batchSize == 0) workItem.executeBatch();
+            }
+            workItem.executeBatch();
+            connection.commit();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package se.teknikhogskolan.springcasemanagement.benchmark;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import se.teknikhogskolan.springcasemanagement.config.h2.H2InfrastructureConfig;
+import se.teknikhogskolan.springcasemanagement.config.hsql.HsqlInfrastructureConfig;
+
+/** The in memory databases the project has a configuration for. Use as a @Param to run a benchmark on each. */
+public enum Database {
+
+    H2(H2InfrastructureConfig.class),
+    HSQL(HsqlInfrastructureConfig.class);
+
+    private final Class<?> config;
+
+    Database(Class<?> config) {
+        this.config = config;
+    }
+
+    /** A migrated database, empty in a new JVM. JMH forks one per trial unless run with -f 0. */
+    public AnnotationConfigApplicationContext open() {
+        return new AnnotationConfigApplicationContext(config);
+    }
+}
@@ -0,0 +1,167 @@
+package se.teknikhogskolan.springcasemanagement.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import se.teknikhogskolan.springcasemanagement.config.JpaConfig;
+import se.teknikhogskolan.springcasemanagement.config.h2.H2InfrastructureConfig;
+import se.teknikhogskolan.springcasemanagement.model.User;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.repository.UserSummary;
+import se.teknikhogskolan.springcasemanagement.repository.WorkItemSummary;
+import se.teknikhogskolan.springcasemanagement.service.UserService;
+import se.teknikhogskolan.springcasemanagement.service.WorkItemService;
+
+/**
+ * List methods returning entities against their summary variants, on an in memory H2 database. Run with -prof gc for
+ * the heap allocated per call (gc.alloc.rate.norm). Statements and entities loaded per call are printed after each
+ * iteration; the summaries never load an entity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ListProjectionBenchmark {
+
+    private static final int teams = 10;
+    private static final int usersPerTeam = 20;
+    private static final int workItemsPerUser = 15;
+    private static final long teamId = 1;
+
+    private AnnotationConfigApplicationContext context;
+    private WorkItemService workItemService;
+    private UserService userService;
+    private Statistics statistics;
+    private long calls;
+
+    @Setup
+    public void setUp() throws SQLException {
+        System.setProperty(JpaConfig.statisticsEnabledProperty, "true");
+        context = new AnnotationConfigApplicationContext(H2InfrastructureConfig.class);
+        workItemService = context.getBean(WorkItemService.class);
+        userService = context.getBean(UserService.class);
+        statistics = context.getBean(Statistics.class);
+        insert(context.getBean(DataSource.class));
+    }
+
+    private static void insert(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement team = connection.prepareStatement(
+                        "insert into Team (id, name, active) values (?, ?, true)");
+                PreparedStatement user = connection.prepareStatement(
+                        "insert into User (id, userNumber, username, firstName, lastName, active, team_id) "
+                                + "values (?, ?, ?, ?, ?, true, ?)");
+                PreparedStatement workItem = connection.prepareStatement(
+                        "insert into WorkItem (id, description, status, user_id) values (?, ?, ?, ?)")) {
+            long userId = 0;
+            long workItemId = 0;
+            WorkItem.Status[] statuses = WorkItem.Status.values();
+            for (long t = 1; t <= teams; t++) {
+                team.setLong(1, t);
+                team.setString(2, "Team " + t);
+                team.addBatch();
+                for (int u = 0; u < usersPerTeam; u++) {
+                    userId++;
+                    user.setLong(1, userId);
+                    user.setLong(2, userId);
+                    user.setString(3, "user" + userId);
+                    user.setString(4, "First" + userId);
+                    user.setString(5, "Last" + userId);
+                    user.setLong(6, t);
+                    user.addBatch();
+                    for (int w = 0; w < workItemsPerUser; w++) {
+                        workItemId++;
+                        workItem.setLong(1, workItemId);
+                        workItem.setString(2, "Work item number " + workItemId);
+                        workItem.setString(3, statuses[(int) (workItemId % statuses.length)].name());
+                        workItem.setLong(4, userId);
+                        workItem.addBatch();
+                    }
+                }
+            }
+            team.executeBatch();
+            user.executeBatch();
+            workItem.executeBatch();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        statistics.clear();
+        calls = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printCounters() {
+        if (0 == calls) return;
+        System.out.printf("%n%.1f statements, %.1f entities loaded per call%n",
+                (double) statistics.getPrepareStatementCount() / calls,
+                (double) statistics.getEntityLoadCount() / calls);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Collection<WorkItem> workItemsByStatus() {
+        calls++;
+        return workItemService.getByStatus(WorkItem.Status.STARTED);
+    }
+
+    @Benchmark
+    public List<WorkItemSummary> workItemSummariesByStatus() {
+        calls++;
+        return workItemService.getSummariesByStatus(WorkItem.Status.STARTED);
+    }
+
+    @Benchmark
+    public Collection<WorkItem> workItemsByTeam() {
+        calls++;
+        return workItemService.getByTeamId(teamId);
+    }
+
+    @Benchmark
+    public List<WorkItemSummary> workItemSummariesByTeam() {
+        calls++;
+        return workItemService.getSummariesByTeamId(teamId);
+    }
+
+    @Benchmark
+    public List<User> searchUsers() {
+        calls++;
+        return userService.search("First", "Last", "user");
+    }
+
+    @Benchmark
+    public List<UserSummary> searchUserSummaries() {
+        calls++;
+        return userService.searchSummaries("First", "Last", "user");
+    }
+}
@@ -0,0 +1,46 @@
+package se.teknikhogskolan.springcasemanagement.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.teknikhogskolan.springcasemanagement.service.SecurityHelper;
+
+/**
+ * Logins per second one core can check at each hashing cost. Run with a single thread, so the score is per core.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PasswordHashingBenchmark {
+
+    @Param({ "10000", "20000", "40000", "80000", "160000" })
+    private int iterations;
+
+    private String salt;
+
+    @Setup
+    public void setUp() {
+        salt = SecurityHelper.generateSalt();
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return SecurityHelper.hashPassword("backinblack", salt, iterations);
+    }
+}
@@ -0,0 +1,141 @@
+package se.teknikhogskolan.springcasemanagement.benchmark;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.domain.Page;
+
+import se.teknikhogskolan.springcasemanagement.model.Team;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.service.SecurityUserService;
+import se.teknikhogskolan.springcasemanagement.service.TeamService;
+import se.teknikhogskolan.springcasemanagement.service.WorkItemService;
+import se.teknikhogskolan.springcasemanagement.service.cache.TokenCache;
+
+/**
+ * Service methods on the request path, on each in memory database and data set size. Writes move a work item or a
+ * user back and forth between two owners, so every call changes a row and the data set keeps its size. Run with
+ * {@link BenchmarkMain} for a JSON result file to compare between versions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ServiceBenchmark {
+
+    private static final String username = "benchmark";
+    private static final String password = "backinblack";
+    private static final int pageSize = 20;
+    private static final long teamId = 1;
+    private static final long otherTeamId = 2;
+
+    @Param({ "H2", "HSQL" })
+    private Database database;
+
+    @Param({ "1000", "100000" })
+    private int workItems;
+
+    private AnnotationConfigApplicationContext context;
+    private SecurityUserService securityUserService;
+    private WorkItemService workItemService;
+    private TeamService teamService;
+    private TokenCache tokenCache;
+
+    private String token;
+    private int lastPage;
+    private long movedWorkItemId;
+    private long[] workItemOwners;
+    private int workItemMoves;
+    private long movedUserId;
+    private int userMoves;
+
+    @Setup
+    public void setUp() throws SQLException {
+        context = database.open();
+        securityUserService = context.getBean(SecurityUserService.class);
+        workItemService = context.getBean(WorkItemService.class);
+        teamService = context.getBean(TeamService.class);
+        tokenCache = context.getBean(TokenCache.class);
+
+        DataSet dataSet = DataSet.insert(context.getBean(DataSource.class), workItems);
+        securityUserService.create(username, password);
+        token = securityUserService.createTokenFor(username, password);
+        lastPage = dataSet.getWorkItems() / pageSize - 1;
+
+        long owner = dataSet.userId(teamId, 0);
+        movedWorkItemId = dataSet.workItemId(owner, 0);
+        workItemOwners = new long[] { dataSet.userId(teamId, 1), owner };
+        movedUserId = dataSet.userId(teamId, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String verifyCachedToken() {
+        securityUserService.verify(token);
+        return token;
+    }
+
+    @Benchmark
+    public String verifyToken() {
+        tokenCache.invalidate(token);
+        securityUserService.verify(token);
+        return token;
+    }
+
+    /** Mostly password hashing, at the cost the hashing policy calibrated for this machine. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String createTokenFor() {
+        return securityUserService.createTokenFor(username, password);
+    }
+
+    @Benchmark
+    public WorkItem setUser() {
+        return workItemService.setUser(workItemOwners[workItemMoves++ % 2], movedWorkItemId);
+    }
+
+    @Benchmark
+    public Collection<WorkItem> getByTeamId() {
+        return workItemService.getByTeamId(teamId);
+    }
+
+    @Benchmark
+    public Page<WorkItem> getFirstPage() {
+        return workItemService.getAllByPage(0, pageSize);
+    }
+
+    /** Offset paging reads and skips every row before the page. */
+    @Benchmark
+    public Page<WorkItem> getLastPage() {
+        return workItemService.getAllByPage(lastPage, pageSize);
+    }
+
+    @Benchmark
+    public Team addUserToTeam() {
+        return teamService.addUserToTeam(userMoves++ % 2 == 0 ? otherTeamId : teamId, movedUserId);
+    }
+}
@@ -0,0 +1,72 @@
+package se.teknikhogskolan.springcasemanagement.benchmark;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.teknikhogskolan.springcasemanagement.service.SecurityHelper;
+
+/**
+ * Token and salt generation in SecurityHelper against the earlier implementation, which built a new SecureRandom per
+ * call and picked token characters one at a time. Run with -t to see how each behaves under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TokenGenerationBenchmark {
+
+    private static final int tokenLength = 255;
+
+    @Benchmark
+    public String token() {
+        return SecurityHelper.generateToken(tokenLength);
+    }
+
+    @Benchmark
+    public String legacyToken() {
+        return Legacy.generateToken(tokenLength);
+    }
+
+    @Benchmark
+    public String salt() {
+        return SecurityHelper.generateSalt();
+    }
+
+    @Benchmark
+    public String legacySalt() {
+        return Legacy.generateSalt();
+    }
+
+    /** Copied from SecurityHelper before it reused its random source. */
+    private static final class Legacy {
+
+        private static String generateToken(int length) {
+            StringBuilder builder = new StringBuilder();
+            SecureRandom random = new SecureRandom();
+            final String characters = "0123456789abcdfghijklmopqrstuvwxyzABCDEFGHIJKLMOPQRSTUVWXYZ";
+            for (int i = 0; i < length; i++) {
+                builder.append(characters.charAt(random.nextInt(characters.length())));
+            }
+            return builder.toString();
+        }
+
+        private static String generateSalt() {
+            SecureRandom secureRandom = new SecureRandom();
+            byte[] salt = new byte[SecurityHelper.hashSize / 8];
+            secureRandom.nextBytes(salt);
+            return new String(salt);
+        }
+    }
+}
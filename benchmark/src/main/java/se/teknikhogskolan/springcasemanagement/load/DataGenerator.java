@@ -0,0 +1,262 @@
+package se.teknikhogskolan.springcasemanagement.load;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.SplittableRandom;
+
+import javax.sql.DataSource;
+
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.service.SecurityHelper;
+
+/**
+ * Fills an empty, migrated database with teams, users, issues, work items and logins, inserted with JDBC batches.
+ * The same seed and sizes give the same rows on every run, dates included: they count back from {@link #lastDay}, not
+ * from today. Ids are 1 and up in every table, a user's user number is its id, and the shared id sequence is moved
+ * past them so the services can insert more.
+ *
+ * The rows stay within what the services allow: at most 10 users per team and 4 of the 5 work items per user, so
+ * users and work items beyond that are left without a team or user. Tables the services keep up to date as they
+ * write, like TeamWorkload and DailyWorkItemCount, are left empty.
+ */
+public final class DataGenerator {
+
+    /** Every generated login, security user 1 and up, has this username followed by its id, and this password. */
+    public static final String loginPrefix = "login";
+    public static final String loginPassword = "password";
+
+    /** Newest date a generated row is created or completed on. History goes back two years from it. */
+    public static final LocalDate lastDay = LocalDate.of(2017, 1, 1);
+
+    private static final int batchSize = 1000;
+    private static final int usersPerTeam = 10;
+    private static final int workItemsPerUser = 5;
+    private static final int daysOfHistory = 730;
+    private static final String[] firstNames = { "Leonardo", "Raphael", "Donatello", "Michelangelo", "April",
+            "Casey", "Karai", "Hamato", "Irma", "Vernon" };
+    private static final String[] lastNames = { "Hamato", "O'Neil", "Jones", "Oroku", "Baxter", "Stockman",
+            "Fenwick", "Bishop", "Krang", "Saki" };
+
+    private final long seed;
+    private int teams = 10_000;
+    private int users = 100_000;
+    private int workItems = 1_000_000;
+    private double issueShare = 0.1;
+    private double assignedShare = 0.8;
+    private int logins = 100;
+    private int hashingIterations = SecurityHelper.hashingIterations;
+
+    public DataGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public DataGenerator setTeams(int teams) {
+        this.teams = teams;
+        return this;
+    }
+
+    public DataGenerator setUsers(int users) {
+        this.users = users;
+        return this;
+    }
+
+    public DataGenerator setWorkItems(int workItems) {
+        this.workItems = workItems;
+        return this;
+    }
+
+    /** Share of work items with an issue of their own. */
+    public DataGenerator setIssueShare(double issueShare) {
+        this.issueShare = issueShare;
+        return this;
+    }
+
+    /** Share of work items that get a user, as long as there are users with room for one more. */
+    public DataGenerator setAssignedShare(double assignedShare) {
+        this.assignedShare = assignedShare;
+        return this;
+    }
+
+    public DataGenerator setLogins(int logins) {
+        this.logins = logins;
+        return this;
+    }
+
+    /** Use the running hashing policy's iterations, or the first login of every security user rehashes. */
+    public DataGenerator setHashingIterations(int hashingIterations) {
+        this.hashingIterations = hashingIterations;
+        return this;
+    }
+
+    public int getTeams() {
+        return teams;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getWorkItems() {
+        return workItems;
+    }
+
+    public int getLogins() {
+        return logins;
+    }
+
+    public void generate(DataSource dataSource) throws SQLException {
+        SplittableRandom random = new SplittableRandom(seed);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            insertTeams(connection, random.split());
+            insertUsers(connection, random.split());
+            insertWorkItems(connection, random.split());
+            insertLogins(connection);
+            restartSequence(connection, Math.max(Math.max(teams, users), Math.max(workItems, logins)) + 1);
+            connection.commit();
+        }
+    }
+
+    private void insertTeams(Connection connection, SplittableRandom random) throws SQLException {
+        try (PreparedStatement team = connection.prepareStatement(
+                "insert into Team (id, created, name, active) values (?, ?, ?, ?)")) {
+            for (long t = 1; t <= teams; t++) {
+                team.setLong(1, t);
+                team.setDate(2, Date.valueOf(lastDay.minusDays(random.nextInt(daysOfHistory))));
+                team.setString(3, "Team " + t);
+                team.setBoolean(4, random.nextInt(100) < 95);
+                team.addBatch();
+                if (t % batchSize == 0) team.executeBatch();
+            }
+            executeRest(team, teams);
+        }
+    }
+
+    /* Users fill teams round robin until every team has its 10, the rest are in no team. */
+    private void insertUsers(Connection connection, SplittableRandom random) throws SQLException {
+        long inTeams = Math.min((long) teams * usersPerTeam, users);
+        try (PreparedStatement user = connection.prepareStatement(
+                "insert into User (id, created, userNumber, username, firstName, lastName, active, team_id) "
+                        + "values (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (long u = 1; u <= users; u++) {
+                user.setLong(1, u);
+                user.setDate(2, Date.valueOf(lastDay.minusDays(random.nextInt(daysOfHistory))));
+                user.setLong(3, u);
+                user.setString(4, "username" + u);
+                user.setString(5, firstNames[random.nextInt(firstNames.length)]);
+                user.setString(6, lastNames[random.nextInt(lastNames.length)]);
+                user.setBoolean(7, random.nextInt(100) < 97);
+                if (u <= inTeams) user.setLong(8, (u - 1) % teams + 1);
+                else user.setNull(8, Types.BIGINT);
+                user.addBatch();
+                if (u % batchSize == 0) user.executeBatch();
+            }
+            executeRest(user, users);
+        }
+    }
+
+    private void insertWorkItems(Connection connection, SplittableRandom random) throws SQLException {
+        int[] workItemsOfUser = new int[users + 1];
+        WorkItem.Status[] statuses = WorkItem.Status.values();
+        long issueId = 0;
+        int issuesInBatch = 0;
+        try (PreparedStatement issue = connection.prepareStatement(
+                "insert into Issue (id, created, active, createdBy, description) values (?, ?, true, ?, ?)");
+                PreparedStatement workItem = connection.prepareStatement(
+                        "insert into WorkItem (id, created, completionDate, description, status, issue_id, user_id) "
+                                + "values (?, ?, ?, ?, ?, ?, ?)")) {
+            for (long w = 1; w <= workItems; w++) {
+                LocalDate created = lastDay.minusDays(random.nextInt(daysOfHistory));
+                WorkItem.Status status = statuses[random.nextInt(statuses.length)];
+                workItem.setLong(1, w);
+                workItem.setDate(2, Date.valueOf(created));
+                if (WorkItem.Status.DONE == status) {
+                    long daysOpen = random.nextLong(ChronoUnit.DAYS.between(created, lastDay) + 1);
+                    workItem.setDate(3, Date.valueOf(created.plusDays(daysOpen)));
+                } else {
+                    workItem.setNull(3, Types.DATE);
+                }
+                workItem.setString(4, "Work item " + w);
+                workItem.setString(5, status.name());
+
+                if (random.nextDouble() < issueShare) {
+                    issueId++;
+                    issue.setLong(1, issueId);
+                    issue.setDate(2, Date.valueOf(created));
+                    issue.setString(3, "generator");
+                    issue.setString(4, "Issue " + issueId + " of work item " + w);
+                    issue.addBatch();
+                    issuesInBatch++;
+                    workItem.setLong(6, issueId);
+                } else {
+                    workItem.setNull(6, Types.BIGINT);
+                }
+
+                long userId = random.nextDouble() < assignedShare ? pickUser(random, workItemsOfUser) : 0;
+                if (0 == userId) workItem.setNull(7, Types.BIGINT);
+                else workItem.setLong(7, userId);
+                workItem.addBatch();
+
+                // Issues go first for the work items' foreign keys
+                if (w % batchSize == 0) {
+                    if (issuesInBatch > 0) issue.executeBatch();
+                    issuesInBatch = 0;
+                    workItem.executeBatch();
+                }
+            }
+            if (issuesInBatch > 0) issue.executeBatch();
+            executeRest(workItem, workItems);
+        }
+    }
+
+    /*
+     * A few random tries for a user with room, so assignment thins out instead of slowing down once most are full.
+     * Every user is left room for one more, or reassigning work items would only ever hit the limit.
+     */
+    private long pickUser(SplittableRandom random, int[] workItemsOfUser) {
+        for (int attempt = 0; attempt < 4; attempt++) {
+            int user = 1 + random.nextInt(users);
+            if (workItemsOfUser[user] < workItemsPerUser - 1) {
+                workItemsOfUser[user]++;
+                return user;
+            }
+        }
+        return 0;
+    }
+
+    /* One salt and hash for all, so generating costs a single hash however many logins there are. */
+    private void insertLogins(Connection connection) throws SQLException {
+        String salt = SecurityHelper.generateSalt();
+        String hashedPassword = SecurityHelper.hashPassword(loginPassword, salt, hashingIterations);
+        try (PreparedStatement login = connection.prepareStatement("insert into SecurityUser "
+                + "(id, username, hashedPassword, salt, saltingIterations) values (?, ?, ?, ?, ?)")) {
+            for (long l = 1; l <= logins; l++) {
+                login.setLong(1, l);
+                login.setString(2, loginPrefix + l);
+                login.setString(3, hashedPassword);
+                login.setString(4, salt);
+                login.setInt(5, hashingIterations);
+                login.addBatch();
+                if (l % batchSize == 0) login.executeBatch();
+            }
+            executeRest(login, logins);
+        }
+    }
+
+    /* HSQL refuses to execute an empty batch. */
+    private static void executeRest(PreparedStatement statement, long rows) throws SQLException {
+        if (rows % batchSize != 0) statement.executeBatch();
+    }
+
+    private static void restartSequence(Connection connection, long next) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter sequence hibernate_sequence restart with " + next);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package se.teknikhogskolan.springcasemanagement.load;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.sql.DataSource;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import se.teknikhogskolan.springcasemanagement.benchmark.Database;
+import se.teknikhogskolan.springcasemanagement.service.HashingPolicy;
+import se.teknikhogskolan.springcasemanagement.service.TeamWorkloadService;
+import se.teknikhogskolan.springcasemanagement.service.exception.ConflictException;
+import se.teknikhogskolan.springcasemanagement.service.exception.MaximumQuantityException;
+import se.teknikhogskolan.springcasemanagement.service.exception.NotAllowedException;
+import se.teknikhogskolan.springcasemanagement.service.exception.NotFoundException;
+import se.teknikhogskolan.springcasemanagement.service.metrics.PoolMetrics;
+import se.teknikhogskolan.springcasemanagement.service.search.SearchIndexSynchronizer;
+
+/**
+ * Generates a data set with {@link DataGenerator}, then calls the services from a number of threads for a while and
+ * reports throughput and latency per {@link Operation}. Every thread makes its next call as soon as the last one
+ * returns, so a slow call also delays the ones after it and the percentiles are those of completed calls, not of an
+ * arrival rate.
+ *
+ * Options, all --name=value:
+ * <ul>
+ * <li>database: H2 or HSQL, default H2</li>
+ * <li>seed: of the data and the calls, default 1</li>
+ * <li>teams, users, workItems, logins: data set size, default 10000, 100000, 1000000 and 100</li>
+ * <li>threads: default 8</li>
+ * <li>warmup, duration: seconds of calls before and while measuring, default 30 and 120</li>
+ * <li>interval: seconds between progress lines, default 10</li>
+ * <li>mix: operations and their weights, like GET_WORK_ITEM:5,SET_STATUS:1. Default every operation at its
+ * default weight</li>
+ * <li>histograms: a directory to write one HdrHistogram percentile file per operation to, in milliseconds</li>
+ * </ul>
+ */
+public final class LoadDriver {
+
+    private static final int significantDigits = 3;
+    private static final int tokens = 20;
+    private static final int reportedErrorsPerOperation = 3;
+
+    private final Map<String, String> options;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> totals = new EnumMap<>(Operation.class);
+    private final AtomicLongArray rejected = new AtomicLongArray(Operation.values().length);
+    private final AtomicLongArray errors = new AtomicLongArray(Operation.values().length);
+    private final long[] totalRejected = new long[Operation.values().length];
+    private final long[] totalErrors = new long[Operation.values().length];
+    private volatile boolean running = true;
+
+    private LoadDriver(Map<String, String> options) {
+        this.options = options;
+        Map<Operation, Integer> mix = parseMix(options.get("mix"));
+        this.operations = mix.keySet().toArray(new Operation[mix.size()]);
+        this.cumulativeWeights = new int[operations.length];
+        int sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += mix.get(operations[i]);
+            cumulativeWeights[i] = sum;
+        }
+        for (Operation operation : operations) {
+            recorders.put(operation, new Recorder(significantDigits));
+            totals.put(operation, new Histogram(significantDigits));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException(String.format("Expected --name=value, got '%s'.", arg));
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadDriver(options).run();
+    }
+
+    private void run() throws Exception {
+        Database database = Database.valueOf(options.getOrDefault("database", "H2"));
+        long seed = longOption("seed", 1);
+        try (AnnotationConfigApplicationContext context = database.open()) {
+            DataGenerator data = new DataGenerator(seed)
+                    .setTeams(intOption("teams", 10_000))
+                    .setUsers(intOption("users", 100_000))
+                    .setWorkItems(intOption("workItems", 1_000_000))
+                    .setLogins(intOption("logins", 100))
+                    .setHashingIterations(context.getBean(HashingPolicy.class).getIterations());
+            load(context, data);
+
+            Workload workload = new Workload(context, data, tokens);
+            int threads = intOption("threads", 8);
+            long warmup = TimeUnit.SECONDS.toNanos(longOption("warmup", 30));
+            long duration = TimeUnit.SECONDS.toNanos(longOption("duration", 120));
+            long interval = TimeUnit.SECONDS.toNanos(longOption("interval", 10));
+
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int t = 0; t < threads; t++) {
+                SplittableRandom threadRandom = random.split();
+                pool.execute(() -> callUntilStopped(workload, threadRandom));
+            }
+            pool.shutdown();
+
+            long start = System.nanoTime();
+            System.out.printf("Warming up for %d s with %d threads%n", TimeUnit.NANOSECONDS.toSeconds(warmup), threads);
+            TimeUnit.NANOSECONDS.sleep(warmup);
+            collect(false);
+            PoolMetrics poolMetrics = context.getBean(PoolMetrics.class);
+            poolMetrics.reset();
+
+            long measureStart = System.nanoTime();
+            long nextReport = measureStart + interval;
+            long end = measureStart + duration;
+            while (System.nanoTime() < end) {
+                TimeUnit.NANOSECONDS.sleep(Math.max(0, Math.min(nextReport, end) - System.nanoTime()));
+                if (System.nanoTime() >= nextReport) {
+                    reportInterval(collect(true), System.nanoTime() - start, interval);
+                    nextReport += interval;
+                }
+            }
+            running = false;
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+            collect(true);
+            reportTotals(System.nanoTime() - measureStart);
+            poolMetrics.getPools().values().forEach(snapshot -> System.out.printf("%nPool %s%n", snapshot));
+            writeHistograms(options.get("histograms"));
+        }
+    }
+
+    /* The generated rows are inserted behind the services' backs, so caches and summaries are brought up to date. */
+    private static void load(AnnotationConfigApplicationContext context, DataGenerator data) throws Exception {
+        long start = System.nanoTime();
+        data.generate(context.getBean(DataSource.class));
+        TeamWorkloadService workloadService = context.getBean(TeamWorkloadService.class);
+        for (long teamId = 1; teamId <= data.getTeams(); teamId++) {
+            workloadService.refresh(teamId);
+        }
+        context.getBean(SearchIndexSynchronizer.class).rebuild();
+        System.out.printf("Generated %d teams, %d users, %d work items and %d logins in %d s%n", data.getTeams(),
+                data.getUsers(), data.getWorkItems(), data.getLogins(),
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+    }
+
+    private void callUntilStopped(Workload workload, SplittableRandom random) {
+        while (running) {
+            Operation operation = pick(random);
+            long start = System.nanoTime();
+            try {
+                operation.run(workload, random);
+            } catch (NotFoundException | NotAllowedException | MaximumQuantityException | ConflictException e) {
+                rejected.incrementAndGet(operation.ordinal());
+            } catch (RuntimeException e) {
+                if (errors.incrementAndGet(operation.ordinal()) <= reportedErrorsPerOperation) {
+                    System.err.printf("%s failed: %s%n", operation, e);
+                }
+            }
+            recorders.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+    }
+
+    private Operation pick(SplittableRandom random) {
+        int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < operations.length; i++) {
+            if (ticket < cumulativeWeights[i]) return operations[i];
+        }
+        throw new IllegalStateException("Weights out of range");
+    }
+
+    /* Everything recorded since the last call, added to the totals if measured. Counts are reset either way. */
+    private Histogram collect(boolean measured) {
+        Histogram all = new Histogram(significantDigits);
+        for (Operation operation : operations) {
+            Histogram interval = recorders.get(operation).getIntervalHistogram();
+            long operationRejected = rejected.getAndSet(operation.ordinal(), 0);
+            long operationErrors = errors.getAndSet(operation.ordinal(), 0);
+            if (!measured) continue;
+            totals.get(operation).add(interval);
+            totalRejected[operation.ordinal()] += operationRejected;
+            totalErrors[operation.ordinal()] += operationErrors;
+            all.add(interval);
+        }
+        return all;
+    }
+
+    private static void reportInterval(Histogram all, long elapsed, long interval) {
+        System.out.printf("%5d s  %9.1f ops/s  p50 %8.3f ms  p99 %8.3f ms  max %8.3f ms%n",
+                TimeUnit.NANOSECONDS.toSeconds(elapsed), perSecond(all.getTotalCount(), interval),
+                millis(all.getValueAtPercentile(50)), millis(all.getValueAtPercentile(99)), millis(all.getMaxValue()));
+    }
+
+    private void reportTotals(long elapsed) {
+        System.out.printf("%n%-17s %10s %8s %8s %10s %9s %9s %9s %9s %9s %9s%n", "operation", "count", "rejected",
+                "errors", "ops/s", "mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : operations) {
+            Histogram total = totals.get(operation);
+            System.out.printf("%-17s %10d %8d %8d %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f%n", operation,
+                    total.getTotalCount(), totalRejected[operation.ordinal()], totalErrors[operation.ordinal()],
+                    perSecond(total.getTotalCount(), elapsed), total.getMean() / 1000,
+                    millis(total.getValueAtPercentile(50)), millis(total.getValueAtPercentile(90)),
+                    millis(total.getValueAtPercentile(99)), millis(total.getValueAtPercentile(99.9)),
+                    millis(total.getMaxValue()));
+        }
+    }
+
+    private void writeHistograms(String directory) throws FileNotFoundException {
+        if (null == directory) return;
+        new File(directory).mkdirs();
+        for (Operation operation : operations) {
+            try (PrintStream out = new PrintStream(new File(directory, operation + ".hgrm"))) {
+                totals.get(operation).outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        System.out.printf("Histograms written to %s%n", directory);
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        if (null == mix) {
+            for (Operation operation : Operation.values()) weights.put(operation, operation.getDefaultWeight());
+            return weights;
+        }
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split(":");
+            Operation operation = Operation.valueOf(parts[0].trim());
+            int weight = (parts.length > 1) ? Integer.parseInt(parts[1].trim()) : operation.getDefaultWeight();
+            if (weight > 0) weights.put(operation, weight);
+        }
+        if (weights.isEmpty()) throw new IllegalArgumentException(String.format("No operations in mix '%s'.", mix));
+        return weights;
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    private long longOption(String name, long defaultValue) {
+        return options.containsKey(name) ? Long.parseLong(options.get(name)) : defaultValue;
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return count * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,95 @@
+package se.teknikhogskolan.springcasemanagement.load;
+
+import java.util.SplittableRandom;
+
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.ContinuationToken;
+
+/**
+ * The service calls the load driver makes, each with its share of the mix by default. Arguments are drawn at random
+ * from the generated rows, so calls sometimes hit a limit or an inactive user. Those are counted as rejected, not as
+ * errors.
+ */
+public enum Operation {
+
+    GET_WORK_ITEM(20) {
+        @Override
+        void run(Workload workload, SplittableRandom random) {
+            workload.workItemService.getById(workload.workItemId(random));
+        }
+    },
+    GET_BY_TEAM(10) {
+        @Override
+        void run(Workload workload, SplittableRandom random) {
+            workload.workItemService.getByTeamId(workload.teamId(random));
+        }
+    },
+    GET_PAGE(4) {
+        @Override
+        void run(Workload workload, SplittableRandom random) {
+            workload.workItemService.getAllByPage(random.nextInt(Workload.pages), Workload.pageSize);
+        }
+    },
+    GET_FIRST_CHUNK(4) {
+        @Override
+        void run(Workload workload, SplittableRandom random) {
+            workload.workItemService.getFirstChunk(Workload.pageSize, ContinuationToken.Order.CREATED);
+        }
+    },
+    SET_STATUS(12) {
+        @Override
+        void run(Workload workload, SplittableRandom random) {
+            WorkItem.Status[] statuses = WorkItem.Status.values();
+            workload.workItemService.setStatus(workload.workItemId(random), statuses[random.nextInt(statuses.length)]);
+        }
+    },
+    SET_USER(8) {
+        @Override
+        void run(Workload workload, SplittableRandom random) {
+            workload.workItemService.setUser(workload.userNumber(random), workload.workItemId(random));
+        }
+    },
+    CREATE_WORK_ITEM(4) {
+        @Override
+        void run(Workload workload, SplittableRandom random) {
+            workload.workItemService.create("Load " + Long.toHexString(random.nextLong()));
+        }
+    },
+    GET_USER(12) {
+        @Override
+        void run(Workload workload, SplittableRandom random) {
+            workload.userService.getByUserNumber(workload.userNumber(random));
+        }
+    },
+    SEARCH_USERS(6) {
+        @Override
+        void run(Workload workload, SplittableRandom random) {
+            workload.userService.search(workload.firstName(random), "", "");
+        }
+    },
+    VERIFY_TOKEN(19) {
+        @Override
+        void run(Workload workload, SplittableRandom random) {
+            workload.securityUserService.verify(workload.token(random));
+        }
+    },
+    /** Mostly password hashing, so a small share goes a long way. */
+    CREATE_TOKEN(1) {
+        @Override
+        void run(Workload workload, SplittableRandom random) {
+            workload.securityUserService.createTokenFor(workload.login(random), DataGenerator.loginPassword);
+        }
+    };
+
+    private final int defaultWeight;
+
+    Operation(int defaultWeight) {
+        this.defaultWeight = defaultWeight;
+    }
+
+    public int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    abstract void run(Workload workload, SplittableRandom random);
+}
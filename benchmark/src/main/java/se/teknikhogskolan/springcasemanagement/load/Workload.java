@@ -0,0 +1,60 @@
+package se.teknikhogskolan.springcasemanagement.load;
+
+import java.util.SplittableRandom;
+
+import org.springframework.context.ApplicationContext;
+
+import se.teknikhogskolan.springcasemanagement.service.SecurityUserService;
+import se.teknikhogskolan.springcasemanagement.service.UserService;
+import se.teknikhogskolan.springcasemanagement.service.WorkItemService;
+
+/** The services under load and the generated rows the operations draw their arguments from. */
+final class Workload {
+
+    static final int pageSize = 20;
+    static final int pages = 100;
+    private static final String[] firstNames = { "Leo", "Rap", "Don", "Mic", "Apr", "Cas" };
+
+    final WorkItemService workItemService;
+    final UserService userService;
+    final SecurityUserService securityUserService;
+
+    private final DataGenerator data;
+    private final String[] tokens;
+
+    Workload(ApplicationContext context, DataGenerator data, int tokens) {
+        this.workItemService = context.getBean(WorkItemService.class);
+        this.userService = context.getBean(UserService.class);
+        this.securityUserService = context.getBean(SecurityUserService.class);
+        this.data = data;
+        this.tokens = new String[Math.min(tokens, data.getLogins())];
+        for (int i = 0; i < this.tokens.length; i++) {
+            this.tokens[i] = securityUserService.createTokenFor(DataGenerator.loginPrefix + (i + 1),
+                    DataGenerator.loginPassword);
+        }
+    }
+
+    long workItemId(SplittableRandom random) {
+        return 1 + random.nextInt(data.getWorkItems());
+    }
+
+    long teamId(SplittableRandom random) {
+        return 1 + random.nextInt(data.getTeams());
+    }
+
+    long userNumber(SplittableRandom random) {
+        return 1 + random.nextInt(data.getUsers());
+    }
+
+    String login(SplittableRandom random) {
+        return DataGenerator.loginPrefix + (1 + random.nextInt(data.getLogins()));
+    }
+
+    String token(SplittableRandom random) {
+        return tokens[random.nextInt(tokens.length)];
+    }
+
+    String firstName(SplittableRandom random) {
+        return firstNames[random.nextInt(firstNames.length)];
+    }
+}
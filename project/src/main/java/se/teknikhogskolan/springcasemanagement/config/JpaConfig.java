@@ -1,32 +1,194 @@
 package se.teknikhogskolan.springcasemanagement.config;
 
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 
+import com.zaxxer.hikari.HikariConfig;
+
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.data.domain.AuditorAware;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 
+import se.teknikhogskolan.springcasemanagement.auditing.IssueAuditorAware;
+import se.teknikhogskolan.springcasemanagement.service.metrics.PoolMetrics;
+import se.teknikhogskolan.springcasemanagement.service.metrics.StatementCounter;
+import se.teknikhogskolan.springcasemanagement.service.metrics.StatementCountingDataSource;
+import se.teknikhogskolan.springcasemanagement.service.search.SearchIndex;
+
 public abstract class JpaConfig {
 
+    /**
+     * Set to true to turn the second level and query cache on. Off by default on every database, as anything that
+     * writes to the tables without going through Hibernate, like the SQL scripts the tests insert data with or another
+     * application, would leave the cache serving stale rows.
+     */
+    public static final String cacheEnabledProperty = "springcasemanagement.cache.enabled";
+
+    /**
+     * Set to true to have Hibernate gather the {@link Statistics} bean's counts. Off by default, as every session then
+     * also logs its metrics.
+     */
+    public static final String statisticsEnabledProperty = "springcasemanagement.statistics.enabled";
+
+    /**
+     * Set to true to serve text searches from the in memory index instead of the database. Off by default, as the index
+     * only sees the writes of its own node and holds every indexed document on the heap.
+     */
+    public static final String searchEnabledProperty = "springcasemanagement.search.enabled";
+
+    /** Most work items and users the search index holds before searches go back to the database. */
+    public static final String searchMaxDocumentsProperty = "springcasemanagement.search.maxDocuments";
+
+    private static final int searchMaxDocumentsByDefault = 100000;
+
+    /** Statements per JDBC batch, and entities per flush in bulk operations. */
+    public static final int batchSize = 50;
+
+    /** Followed by the pool name, like h2, set to the location of properties replacing classpath:pool/h2.properties. */
+    public static final String poolConfigPropertyPrefix = "springcasemanagement.pool.";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private PoolMetrics poolMetrics;
+
     @Bean
     public abstract DataSource dataSource();
 
+    /** Wraps the data source, so the statements executed through it are counted and the slow ones logged. */
+    @Bean
+    public static BeanPostProcessor statementCountingPostProcessor(StatementCounter statementCounter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof StatementCountingDataSource) return bean;
+                return new StatementCountingDataSource((DataSource) bean, statementCounter);
+            }
+        };
+    }
+
     @Bean
     public abstract JpaVendorAdapter jpaVendorAdapter();
 
+    @Bean
+    public AuditorAware<String> auditorProvider() {
+        return new IssueAuditorAware();
+    }
+
     @Bean
     public JpaTransactionManager transactionManager(EntityManagerFactory factory) {
         return new JpaTransactionManager(factory);
     }
 
+    /**
+     * Brings the schema up to date before Hibernate validates it against the entities. A database created before
+     * migrations existed is taken as version 1, so only the later migrations run on it.
+     */
+    @Bean(initMethod = "migrate")
+    public Flyway flyway() {
+        Flyway flyway = new Flyway();
+        flyway.setDataSource(dataSource());
+        flyway.setLocations(migrationLocation());
+        flyway.setBaselineOnMigrate(true);
+        return flyway;
+    }
+
     @Bean
+    @DependsOn("flyway")
     public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
         LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
         factory.setDataSource(dataSource());
         factory.setJpaVendorAdapter(jpaVendorAdapter());
         factory.setPackagesToScan("se.teknikhogskolan.springcasemanagement.model");
+        factory.setJpaPropertyMap(jpaProperties());
         return factory;
     }
-}
\ No newline at end of file
+
+    /**
+     * Hit, miss and put counts per cache region, along with the rest of Hibernate's statistics. Counts nothing unless
+     * {@link #statisticsEnabledProperty} is set.
+     */
+    @Bean
+    public Statistics statistics(EntityManagerFactory factory) {
+        return factory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Bean
+    public SearchIndex searchIndex() {
+        return new SearchIndex(environment.getProperty(searchEnabledProperty, Boolean.class, false),
+                environment.getProperty(searchMaxDocumentsProperty, Integer.class, searchMaxDocumentsByDefault));
+    }
+
+    protected Map<String, Object> jpaProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.hbm2ddl.auto", "validate");
+        properties.put("hibernate.generate_statistics",
+                environment.getProperty(statisticsEnabledProperty, Boolean.class, false).toString());
+        properties.put("hibernate.jdbc.batch_size", String.valueOf(batchSize));
+        properties.put("hibernate.order_inserts", "true");
+        properties.put("hibernate.order_updates", "true");
+        properties.put("hibernate.id.optimizer.pooled.preferred", "pooled-lo");
+        if (isCacheEnabled()) {
+            properties.put("hibernate.cache.use_second_level_cache", "true");
+            properties.put("hibernate.cache.use_query_cache", "true");
+            properties.put("hibernate.cache.region.factory_class", "org.hibernate.cache.ehcache.EhCacheRegionFactory");
+            properties.put("net.sf.ehcache.configurationResourceName", "/ehcache.xml");
+            properties.put("hibernate.cache.auto_evict_collection_cache", "true");
+        } else {
+            properties.put("hibernate.cache.use_second_level_cache", "false");
+            properties.put("hibernate.cache.use_query_cache", "false");
+        }
+        return properties;
+    }
+
+    /**
+     * Sizing, timeouts and driver properties of the named connection pool, read from classpath:pool/name.properties or
+     * where the springcasemanagement.pool.name property points, with metrics reported to {@link PoolMetrics}. The pool
+     * is named name unless the properties set poolName.
+     */
+    protected HikariConfig poolConfig(String name) {
+        String location = environment.getProperty(poolConfigPropertyPrefix + name,
+                String.format("classpath:pool/%s.properties", name));
+        try {
+            Properties properties = PropertiesLoaderUtils.loadProperties(
+                    new DefaultResourceLoader().getResource(location));
+            HikariConfig config = new HikariConfig(properties);
+            if (null == config.getPoolName()) config.setPoolName(name);
+            poolMetrics.track(config);
+            return config;
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Cannot read pool configuration %s", location), e);
+        }
+    }
+
+    /** Migrations in SQL both H2 and HSQL understand. Override for a database that needs its own. */
+    protected String migrationLocation() {
+        return "classpath:db/migration/default";
+    }
+
+    private boolean isCacheEnabled() {
+        return environment.getProperty(cacheEnabledProperty, Boolean.class, false);
+    }
+}
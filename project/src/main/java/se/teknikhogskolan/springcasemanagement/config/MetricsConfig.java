@@ -0,0 +1,78 @@
+package se.teknikhogskolan.springcasemanagement.config;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcher;
+import org.springframework.aop.support.annotation.AnnotationClassFilter;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.jmx.export.MBeanExporter;
+import org.springframework.jmx.support.RegistrationPolicy;
+import org.springframework.stereotype.Service;
+
+import se.teknikhogskolan.springcasemanagement.service.PasswordHashingExecutor;
+import se.teknikhogskolan.springcasemanagement.service.metrics.PoolMetrics;
+import se.teknikhogskolan.springcasemanagement.service.metrics.ServiceMetrics;
+import se.teknikhogskolan.springcasemanagement.service.metrics.ServiceMetricsInterceptor;
+import se.teknikhogskolan.springcasemanagement.service.metrics.StatementCounter;
+import se.teknikhogskolan.springcasemanagement.service.retry.ConflictRetrier;
+
+/**
+ * Times the public methods of every @Service, counts their statements, and publishes the {@link ServiceMetrics},
+ * {@link StatementCounter}, {@link PoolMetrics}, {@link PasswordHashingExecutor} and {@link ConflictRetrier} over JMX.
+ * The advisor has the infrastructure role, so the proxy creator that {@code @EnableTransactionManagement} registers
+ * applies it along with the transaction advice, outermost.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String serviceMetricsObjectName = "se.teknikhogskolan.springcasemanagement:type=ServiceMetrics";
+    public static final String statementCounterObjectName =
+            "se.teknikhogskolan.springcasemanagement:type=StatementCounter";
+    public static final String poolMetricsObjectName = "se.teknikhogskolan.springcasemanagement:type=PoolMetrics";
+    public static final String passwordHashingObjectName =
+            "se.teknikhogskolan.springcasemanagement:type=PasswordHashingExecutor";
+    public static final String conflictRetrierObjectName =
+            "se.teknikhogskolan.springcasemanagement:type=ConflictRetrier";
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public Advisor serviceMetricsAdvisor(ServiceMetrics metrics, StatementCounter statementCounter) {
+        ComposablePointcut pointcut = new ComposablePointcut(new AnnotationClassFilter(Service.class, true))
+                .intersection(new StaticMethodMatcher() {
+                    @Override
+                    public boolean matches(Method method, Class<?> targetClass) {
+                        return Modifier.isPublic(method.getModifiers()) && Object.class != method.getDeclaringClass();
+                    }
+                });
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new ServiceMetricsInterceptor(metrics,
+                statementCounter));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    /** Replaces what another context in the same JVM registered under the same name, like in the tests. */
+    @Bean
+    public MBeanExporter metricsExporter(ServiceMetrics metrics, StatementCounter statementCounter,
+            PoolMetrics poolMetrics, PasswordHashingExecutor hashingExecutor, ConflictRetrier conflictRetrier) {
+        Map<String, Object> beans = new HashMap<>();
+        beans.put(serviceMetricsObjectName, metrics);
+        beans.put(statementCounterObjectName, statementCounter);
+        beans.put(poolMetricsObjectName, poolMetrics);
+        beans.put(passwordHashingObjectName, hashingExecutor);
+        beans.put(conflictRetrierObjectName, conflictRetrier);
+        MBeanExporter exporter = new MBeanExporter();
+        exporter.setBeans(beans);
+        exporter.setRegistrationPolicy(RegistrationPolicy.REPLACE_EXISTING);
+        return exporter;
+    }
+}
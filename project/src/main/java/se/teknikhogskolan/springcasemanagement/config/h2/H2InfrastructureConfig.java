@@ -7,27 +7,33 @@ import com.zaxxer.hikari.HikariDataSource;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.ComponentScan.Filter;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.vendor.Database;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import se.teknikhogskolan.springcasemanagement.config.JpaConfig;
 
 @Configuration
-@ComponentScan(basePackages = {"se.teknikhogskolan.springcasemanagement"})
+// Other infrastructure configurations are left out, or their beans would replace these in classpath order
+@ComponentScan(basePackages = {"se.teknikhogskolan.springcasemanagement"},
+        excludeFilters = @Filter(type = FilterType.ASSIGNABLE_TYPE, classes = JpaConfig.class))
 @EnableJpaRepositories("se.teknikhogskolan.springcasemanagement.repository")
 @EnableTransactionManagement
 @EnableJpaAuditing
+@EnableScheduling
 public class H2InfrastructureConfig extends JpaConfig {
 
     @Bean
     @Override
     public DataSource dataSource() {
-        HikariConfig config = new HikariConfig();
+        HikariConfig config = poolConfig("h2");
         config.setDriverClassName("org.h2.Driver");
         config.setJdbcUrl("jdbc:h2:mem:testdb");
         return new HikariDataSource(config);
@@ -38,7 +44,6 @@ public class H2InfrastructureConfig extends JpaConfig {
     public JpaVendorAdapter jpaVendorAdapter() {
         HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter();
         adapter.setDatabase(Database.H2);
-        adapter.setGenerateDdl(true);
         return adapter;
     }
 }
\ No newline at end of file
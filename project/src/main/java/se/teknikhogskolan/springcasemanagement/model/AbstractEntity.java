@@ -1,12 +1,17 @@
 package se.teknikhogskolan.springcasemanagement.model;
 
 import java.time.LocalDate;
+import java.util.Collection;
 
 import javax.persistence.Column;
 import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Persistence;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Version;
 
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
@@ -16,10 +21,19 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @EntityListeners(AuditingEntityListener.class)
 public abstract class AbstractEntity {
 
+    /*
+     * Ids are handed out fifty at a time from hibernate_sequence, so inserts do not wait on the database for every id
+     * and Hibernate can send them in JDBC batches. Every entity shares the same sequence and allocation size.
+     */
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "entity_sequence")
+    @SequenceGenerator(name = "entity_sequence", sequenceName = "hibernate_sequence", allocationSize = 50)
     private Long id;
 
+    /* Checked and incremented by every update, a stale copy fails to save instead of overwriting newer changes. */
+    @Version
+    private Long version;
+
     @CreatedDate
     @Column(updatable = false)
     private LocalDate created;
@@ -31,6 +45,10 @@ public abstract class AbstractEntity {
         return id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public LocalDate getCreated() {
         return created;
     }
@@ -46,4 +64,11 @@ public abstract class AbstractEntity {
     public String createdDateToString() {
         return this.created == null ? "null" : created.toString();
     }
+
+    /** Size of a lazy collection for toString, without loading it if it is not loaded already. */
+    protected String sizeToString(Collection<?> association) {
+        if (null == association) return "0";
+        if (!Persistence.getPersistenceUtil().isLoaded(association)) return "unloaded";
+        return String.valueOf(association.size());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+package se.teknikhogskolan.springcasemanagement.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+
+/**
+ * How many work items of a team entered a status on a day. The key is the status first, so all days and teams of one
+ * status are a single range of the primary key. Work items without a user count under team id 0.
+ */
+@Entity
+@IdClass(DailyWorkItemCount.Key.class)
+public class DailyWorkItemCount {
+
+    /** Team id of work items without a user, or whose user is in no team. */
+    public static final long noTeam = 0L;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private WorkItem.Status status;
+
+    @Id
+    private LocalDate countDate;
+
+    @Id
+    private Long teamId;
+
+    private long amount;
+
+    protected DailyWorkItemCount() {
+    }
+
+    public DailyWorkItemCount(WorkItem.Status status, LocalDate countDate, Long teamId, long amount) {
+        this.status = status;
+        this.countDate = countDate;
+        this.teamId = teamId;
+        this.amount = amount;
+    }
+
+    public WorkItem.Status getStatus() {
+        return status;
+    }
+
+    public LocalDate getCountDate() {
+        return countDate;
+    }
+
+    public Long getTeamId() {
+        return teamId;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DailyWorkItemCount [status=%s, countDate=%s, teamId=%d, amount=%d]", status, countDate,
+                teamId, amount);
+    }
+
+    public static final class Key implements Serializable {
+
+        private static final long serialVersionUID = 3402791152364093813L;
+
+        private WorkItem.Status status;
+        private LocalDate countDate;
+        private Long teamId;
+
+        public Key() {
+        }
+
+        public Key(WorkItem.Status status, LocalDate countDate, Long teamId) {
+            this.status = status;
+            this.countDate = countDate;
+            this.teamId = teamId;
+        }
+
+        public WorkItem.Status getStatus() {
+            return status;
+        }
+
+        public LocalDate getCountDate() {
+            return countDate;
+        }
+
+        public Long getTeamId() {
+            return teamId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(status, countDate, teamId);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof Key)) return false;
+            Key otherKey = (Key) other;
+            return status == otherKey.status && Objects.equals(countDate, otherKey.countDate)
+                    && Objects.equals(teamId, otherKey.teamId);
+        }
+
+        @Override
+        public String toString() {
+            return status + ":" + countDate + ":" + teamId;
+        }
+    }
+}
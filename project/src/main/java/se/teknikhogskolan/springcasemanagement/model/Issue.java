@@ -1,18 +1,33 @@
 package se.teknikhogskolan.springcasemanagement.model;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
+import javax.persistence.Index;
 import javax.persistence.OneToOne;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = {
+        @Index(name = "ix_issue_created_id", columnList = "created, id"),
+        @Index(name = "ix_issue_description", columnList = "description") })
 @EntityListeners(AuditingEntityListener.class)
 public class Issue extends AbstractEntity {
 
-    @OneToOne(fetch = FetchType.EAGER, mappedBy = "issue")
+    /*
+     * Hibernate cannot proxy the inverse side of a one-to-one, it selects the work item right after the issue unless
+     * the query fetch joins it.
+     */
+    @OneToOne(fetch = FetchType.LAZY, mappedBy = "issue")
     private WorkItem workItem;
     private String description;
     private boolean active;
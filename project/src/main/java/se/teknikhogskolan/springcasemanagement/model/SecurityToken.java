@@ -0,0 +1,98 @@
+package se.teknikhogskolan.springcasemanagement.model;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+@Entity
+@Table(indexes = {
+        @Index(name = "ux_securitytoken_token", columnList = "token", unique = true),
+        @Index(name = "ix_securitytoken_expiresat", columnList = "expiresAt"),
+        @Index(name = "ix_securitytoken_user_id", columnList = "user_id") })
+public class SecurityToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "entity_sequence")
+    @SequenceGenerator(name = "entity_sequence", sequenceName = "hibernate_sequence", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String token;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    private SecurityUser user;
+
+    protected SecurityToken() { /* used by JPA */ }
+
+    public SecurityToken(String token, SecurityUser user, LocalDateTime expiresAt) {
+        if (null == token) throw new IllegalArgumentException("Token must not be null");
+        if (null == user) throw new IllegalArgumentException("User must not be null");
+        if (null == expiresAt) throw new IllegalArgumentException("Expiration must not be null");
+        this.token = token;
+        this.user = user;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public SecurityToken setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+        return this;
+    }
+
+    /** Lazy, only the id can be read without loading the user. */
+    public SecurityUser getUser() {
+        return user;
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return !now.isBefore(expiresAt);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        SecurityToken other = (SecurityToken) o;
+
+        return token.equals(other.token);
+    }
+
+    @Override
+    public int hashCode() {
+        return 37 * token.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("SecurityToken{");
+        sb.append("id=").append(id);
+        sb.append(", userId=").append(user == null ? "null" : user.getId());
+        sb.append(", expiresAt=").append(expiresAt);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -1,29 +1,25 @@
 package se.teknikhogskolan.springcasemanagement.model;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
 import javax.persistence.Column;
-import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
-import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.NamedQuery;
+import javax.persistence.SequenceGenerator;
 
 @Entity
 public class SecurityUser {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "entity_sequence")
+    @SequenceGenerator(name = "entity_sequence", sequenceName = "hibernate_sequence", allocationSize = 50)
     private Long id;
     @Column(nullable = false, unique = true)
     private String username;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    private Map<String, String> tokensExpiration = new HashMap<>();
-
+    @Column(length = 1024)
     private String hashedPassword = "";
+    @Column(length = 1024)
     private String salt = "";
     private int saltingIterations = 0;
 
@@ -34,10 +30,9 @@ public class SecurityUser {
 
     protected SecurityUser() { /* used by JPA */ }
 
-    public SecurityUser(String username, Map<String, String> tokensExpiration, String hashedPassword, String salt, int saltingIterations) {
+    public SecurityUser(String username, String hashedPassword, String salt, int saltingIterations) {
         if (null == username) throw new IllegalArgumentException("Username must not be null");
         this.username = username;
-        this.tokensExpiration = tokensExpiration;
         this.hashedPassword = hashedPassword;
         this.salt = salt;
         this.saltingIterations = saltingIterations;
@@ -55,22 +50,10 @@ public class SecurityUser {
         this.saltingIterations = saltingIterations;
     }
 
-    public void addToken(String token, LocalDateTime expires) {
-        this.tokensExpiration.put(token, expires.toString());
-    }
-
-    public void removeToken(String token) {
-        this.tokensExpiration.remove(token);
-    }
-
     public void setUsername(String username) {
         this.username = username;
     }
 
-    public void setTokensExpiration(Map<String, String> tokensExpiration) {
-        this.tokensExpiration = tokensExpiration;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -91,7 +74,6 @@ public class SecurityUser {
         final StringBuffer sb = new StringBuffer("SecurityUser{");
         sb.append("id=").append(id);
         sb.append(", username='").append(username).append('\'');
-        sb.append(", tokensExpiration=").append(tokensExpiration);
         sb.append(", hashedPassword='").append(hashedPassword).append('\'');
         sb.append(", salt='").append(salt).append('\'');
         sb.append(", saltingIterations=").append(saltingIterations);
@@ -118,8 +100,4 @@ public class SecurityUser {
     public int getSaltingIterations() {
         return saltingIterations;
     }
-
-    public Map<String, String> getTokensExpiration() {
-        return tokensExpiration;
-    }
 }
@@ -3,19 +3,25 @@ package se.teknikhogskolan.springcasemanagement.model;
 import java.util.ArrayList;
 import java.util.Collection;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
-import javax.persistence.FetchType;
 import javax.persistence.OneToMany;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Team extends AbstractEntity {
 
     @Column(unique = true)
     private String name;
     private boolean active;
 
-    @OneToMany(mappedBy = "team", fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @OneToMany(mappedBy = "team")
     private Collection<User> users;
 
     protected Team() {
@@ -78,7 +84,7 @@ public class Team extends AbstractEntity {
         builder.append(", active=");
         builder.append(active);
         builder.append(", usersSize=");
-        builder.append(users == null ? "0" : users.size());
+        builder.append(sizeToString(users));
         builder.append(", created=");
         builder.append(createdDateToString());
         builder.append(", lastModified=");
@@ -0,0 +1,86 @@
+package se.teknikhogskolan.springcasemanagement.model;
+
+import java.time.LocalDate;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Work items of a team by status, and the oldest work item not yet done. Worked out from the work items of the
+ * team's users every time they change, so reading it is a single row by primary key.
+ */
+@Entity
+public class TeamWorkload {
+
+    @Id
+    private Long teamId;
+
+    private long unstarted;
+
+    private long started;
+
+    private long done;
+
+    private Long oldestOpenWorkItemId;
+
+    private LocalDate oldestOpenCreated;
+
+    protected TeamWorkload() {
+    }
+
+    public TeamWorkload(Long teamId) {
+        this.teamId = teamId;
+    }
+
+    public Long getTeamId() {
+        return teamId;
+    }
+
+    public long getUnstarted() {
+        return unstarted;
+    }
+
+    public long getStarted() {
+        return started;
+    }
+
+    public long getDone() {
+        return done;
+    }
+
+    /** @return null if every work item of the team is done */
+    public Long getOldestOpenWorkItemId() {
+        return oldestOpenWorkItemId;
+    }
+
+    public LocalDate getOldestOpenCreated() {
+        return oldestOpenCreated;
+    }
+
+    public TeamWorkload setCount(WorkItem.Status status, long count) {
+        switch (status) {
+        case UNSTARTED:
+            unstarted = count;
+            break;
+        case STARTED:
+            started = count;
+            break;
+        case DONE:
+            done = count;
+            break;
+        }
+        return this;
+    }
+
+    public TeamWorkload setOldestOpen(Long workItemId, LocalDate created) {
+        this.oldestOpenWorkItemId = workItemId;
+        this.oldestOpenCreated = created;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TeamWorkload [teamId=%d, unstarted=%d, started=%d, done=%d, oldestOpenWorkItemId=%d, "
+                + "oldestOpenCreated=%s]", teamId, unstarted, started, done, oldestOpenWorkItemId, oldestOpenCreated);
+    }
+}
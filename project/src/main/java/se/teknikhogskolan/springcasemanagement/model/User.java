@@ -2,14 +2,24 @@ package se.teknikhogskolan.springcasemanagement.model;
 
 import java.util.Collection;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
-import javax.persistence.FetchType;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = {
+        @Index(name = "ix_user_created_id", columnList = "created, id"),
+        @Index(name = "ix_user_team_id", columnList = "team_id") })
 public class User extends AbstractEntity {
 
     @Column(unique = true, nullable = false)
@@ -25,7 +35,8 @@ public class User extends AbstractEntity {
     @ManyToOne
     private Team team;
 
-    @OneToMany(mappedBy = "user", cascade = CascadeType.MERGE, fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @OneToMany(mappedBy = "user", cascade = CascadeType.MERGE)
     private Collection<WorkItem> workItems;
 
     private boolean active;
@@ -132,7 +143,7 @@ public class User extends AbstractEntity {
         builder.append(", teamId=");
         builder.append(team == null ? "null" : team.getId());
         builder.append(", workItemsSize=");
-        builder.append(workItems == null ? "0" : workItems.size());
+        builder.append(sizeToString(workItems));
         builder.append(", active=");
         builder.append(active);
         builder.append(", created=");
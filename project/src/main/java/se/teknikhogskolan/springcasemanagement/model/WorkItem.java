@@ -2,15 +2,28 @@ package se.teknikhogskolan.springcasemanagement.model;
 
 import java.time.LocalDate;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToOne;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = {
+        @Index(name = "ix_workitem_created_id", columnList = "created, id"),
+        @Index(name = "ix_workitem_status_completiondate", columnList = "status, completionDate"),
+        @Index(name = "ix_workitem_user_id", columnList = "user_id"),
+        @Index(name = "ix_workitem_issue_id", columnList = "issue_id") })
 public class WorkItem extends AbstractEntity {
 
     @Column(nullable = false, unique = true)
@@ -21,6 +34,9 @@ public class WorkItem extends AbstractEntity {
 
     private LocalDate completionDate;
 
+    /** Team the work item was counted done under, {@link DailyWorkItemCount#noTeam} if none. */
+    private Long completionTeamId;
+
     @OneToOne(cascade = CascadeType.ALL)
     private Issue issue;
 
@@ -65,6 +81,15 @@ public class WorkItem extends AbstractEntity {
         return this;
     }
 
+    public Long getCompletionTeamId() {
+        return completionTeamId;
+    }
+
+    public WorkItem setCompletionTeamId(Long completionTeamId) {
+        this.completionTeamId = completionTeamId;
+        return this;
+    }
+
     public Issue getIssue() {
         return issue;
     }
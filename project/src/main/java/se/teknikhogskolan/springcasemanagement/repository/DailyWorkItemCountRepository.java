@@ -0,0 +1,28 @@
+package se.teknikhogskolan.springcasemanagement.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import se.teknikhogskolan.springcasemanagement.model.DailyWorkItemCount;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+
+public interface DailyWorkItemCountRepository extends CrudRepository<DailyWorkItemCount, DailyWorkItemCount.Key> {
+
+    /** @return 1 if the count exists and was changed, 0 if it has to be inserted */
+    @Modifying
+    @Query("update DailyWorkItemCount c set c.amount = c.amount + :delta "
+            + "where c.status = :status and c.countDate = :countDate and c.teamId = :teamId")
+    int add(@Param("status") WorkItem.Status status, @Param("countDate") LocalDate countDate,
+            @Param("teamId") Long teamId, @Param("delta") long delta);
+
+    /* A range of the primary key, status first. Counts taken back to 0 are left out. */
+    @Query("select c from DailyWorkItemCount c where c.status = :status and c.countDate between :from and :to "
+            + "and c.amount > 0 order by c.countDate, c.teamId")
+    List<DailyWorkItemCount> findByStatusBetween(@Param("status") WorkItem.Status status,
+            @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
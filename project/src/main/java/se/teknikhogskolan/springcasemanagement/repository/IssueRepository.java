@@ -2,10 +2,16 @@ package se.teknikhogskolan.springcasemanagement.repository;
 
 import java.util.List;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.repository.CrudRepository;
 import se.teknikhogskolan.springcasemanagement.model.Issue;
 
 public interface IssueRepository extends CrudRepository<Issue, Long> {
 
+    @EntityGraph(attributePaths = "workItem")
+    @Override
+    Issue findOne(Long id);
+
+    @EntityGraph(attributePaths = "workItem")
     List<Issue> findByDescription(String description);
 }
@@ -0,0 +1,24 @@
+package se.teknikhogskolan.springcasemanagement.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
+import se.teknikhogskolan.springcasemanagement.model.SecurityToken;
+
+public interface SecurityTokenRepository extends CrudRepository<SecurityToken, Long> {
+
+    SecurityToken findByToken(String token);
+
+    @Modifying
+    @Transactional
+    @Query("delete from SecurityToken t where t.expiresAt < ?1")
+    int deleteByExpiresAtBefore(LocalDateTime dateTime);
+
+    @Modifying
+    @Transactional
+    @Query("delete from SecurityToken t where t.user.id = ?1")
+    int deleteByUserId(Long userId);
+}
@@ -6,10 +6,9 @@ import se.teknikhogskolan.springcasemanagement.model.SecurityUser;
 
 public interface SecurityUserRepository extends CrudRepository<SecurityUser, Long> {
 
-    @SuppressWarnings("JpaQlInspection")
-    @Query("select u from SecurityUser u where KEY(u.tokensExpiration) = ?1")
+    @Query("select t.user from SecurityToken t where t.token = ?1")
     SecurityUser findByToken(String token);
 
     SecurityUser findByUsername(String username);
 
-}
\ No newline at end of file
+}
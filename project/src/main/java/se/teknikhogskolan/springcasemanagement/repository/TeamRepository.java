@@ -1,10 +1,30 @@
 package se.teknikhogskolan.springcasemanagement.repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import se.teknikhogskolan.springcasemanagement.model.Team;
 
 public interface TeamRepository extends CrudRepository<Team, Long> {
 
+    @EntityGraph(attributePaths = "users")
+    @Override
+    Team findOne(Long id);
+
+    /** Locks the team's row until the transaction ends, like UserRepository.findByUserNumberForUpdate. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Team t where t.id = :teamId")
+    Team findByIdForUpdate(@Param("teamId") Long teamId);
+
+    @EntityGraph(attributePaths = "users")
+    @QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "query.teamByName") })
     Team findByName(String name);
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package se.teknikhogskolan.springcasemanagement.repository;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import se.teknikhogskolan.springcasemanagement.model.TeamWorkload;
+
+public interface TeamWorkloadRepository extends CrudRepository<TeamWorkload, Long> {
+
+    /** Locks the workload's row until the transaction ends, so it is worked out by one transaction at a time. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from TeamWorkload t where t.teamId = :teamId")
+    TeamWorkload findByTeamIdForUpdate(@Param("teamId") Long teamId);
+}
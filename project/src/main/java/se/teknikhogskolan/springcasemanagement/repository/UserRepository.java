@@ -2,29 +2,96 @@ package se.teknikhogskolan.springcasemanagement.repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 
 import se.teknikhogskolan.springcasemanagement.model.User;
+import se.teknikhogskolan.springcasemanagement.repository.paging.KeysetPagingRepository;
+
+public interface UserRepository extends CrudRepository<User, Long>, KeysetPagingRepository<User> {
+
+    @EntityGraph(attributePaths = "workItems")
+    @Override
+    User findOne(Long id);
 
-public interface UserRepository extends CrudRepository<User, Long> {
+    @EntityGraph(attributePaths = "team")
+    @Override
+    Iterable<User> findAll(Iterable<Long> ids);
 
+    /**
+     * Locks the user's row until the transaction ends, so checks on what the user already has and the change they
+     * guard cannot interleave with another transaction doing the same. Must run in a transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from User u where u.userNumber = :userNumber")
+    User findByUserNumberForUpdate(@Param("userNumber") Long userNumber);
+
+    @Query("select count(u) from User u where u.team.id = :teamId")
+    long countByTeamId(@Param("teamId") Long teamId);
+
+    @EntityGraph(attributePaths = "workItems")
+    @QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "query.userByNumber") })
     User findByUserNumber(Long userNumber);
 
+    @EntityGraph(attributePaths = "team")
     @Query("select u from User u where u.firstName like %:firstName% and u.lastName like "
             + "%:lastName% and u.username like %:username%")
     List<User> searchUsers(@Param("firstName") String firstName, @Param("lastName") String lastName,
             @Param("username") String username);
 
+    @Query("select new se.teknikhogskolan.springcasemanagement.repository.UserSummary(u.id, u.userNumber, u.username) "
+            + "from User u where u.firstName like %:firstName% and u.lastName like %:lastName% "
+            + "and u.username like %:username% order by u.id")
+    List<UserSummary> searchUserSummaries(@Param("firstName") String firstName, @Param("lastName") String lastName,
+            @Param("username") String username);
+
+    @EntityGraph(attributePaths = "team")
     Page<User> findAll(Pageable pageable);
 
+    @EntityGraph(attributePaths = "team")
     @Query("select u from User u where u.team.id = :teamId")
     List<User> findByTeamId(@Param("teamId") Long teamId);
 
+    @EntityGraph(attributePaths = "team")
     @Query("select u from User u where u.created between :startDate and :endDate")
     List<User> findByCreationDate(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
-}
\ No newline at end of file
+
+    @EntityGraph(attributePaths = "team")
+    @Override
+    @Query("select u from User u where u.id > :id order by u.id")
+    List<User> findAfterId(@Param("id") Long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = "team")
+    @Override
+    @Query("select u from User u where u.created is not null order by u.created, u.id")
+    List<User> findOrderedByCreated(Pageable pageable);
+
+    @EntityGraph(attributePaths = "team")
+    @Override
+    @Query("select u from User u where u.created > :created "
+            + "or (u.created = :created and u.id > :id) order by u.created, u.id")
+    List<User> findAfterCreated(@Param("created") LocalDate created, @Param("id") Long id, Pageable pageable);
+
+    /** Like findAll(Pageable), but without counting all rows. */
+    @EntityGraph(attributePaths = "team")
+    @Query("select u from User u")
+    Slice<User> findSlice(Pageable pageable);
+
+    /** Id and names of every user, read through a cursor. Must be consumed and closed in a transaction. */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("select u.id, u.firstName, u.lastName, u.username from User u")
+    Stream<Object[]> streamNames();
+}
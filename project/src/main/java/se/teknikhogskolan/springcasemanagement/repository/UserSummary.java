@@ -0,0 +1,32 @@
+package se.teknikhogskolan.springcasemanagement.repository;
+
+/** The columns a user listing shows, selected on their own instead of the entity with its team attached. */
+public final class UserSummary {
+
+    private final Long id;
+    private final Long userNumber;
+    private final String username;
+
+    public UserSummary(Long id, Long userNumber, String username) {
+        this.id = id;
+        this.userNumber = userNumber;
+        this.username = username;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserNumber() {
+        return userNumber;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("UserSummary [id=%d, userNumber=%d, username=%s]", id, userNumber, username);
+    }
+}
@@ -0,0 +1,71 @@
+package se.teknikhogskolan.springcasemanagement.repository;
+
+import java.time.LocalDate;
+
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+
+/**
+ * Flat, read only copy of one work item row with its user and issue as ids. Built straight from the result set, so
+ * nothing is added to the persistence context and no association is loaded.
+ */
+public final class WorkItemRecord {
+
+    private final Long id;
+    private final String description;
+    private final WorkItem.Status status;
+    private final LocalDate completionDate;
+    private final LocalDate created;
+    private final LocalDate lastModified;
+    private final Long userId;
+    private final Long issueId;
+
+    public WorkItemRecord(Long id, String description, WorkItem.Status status, LocalDate completionDate,
+            LocalDate created, LocalDate lastModified, Long userId, Long issueId) {
+        this.id = id;
+        this.description = description;
+        this.status = status;
+        this.completionDate = completionDate;
+        this.created = created;
+        this.lastModified = lastModified;
+        this.userId = userId;
+        this.issueId = issueId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public WorkItem.Status getStatus() {
+        return status;
+    }
+
+    public LocalDate getCompletionDate() {
+        return completionDate;
+    }
+
+    public LocalDate getCreated() {
+        return created;
+    }
+
+    public LocalDate getLastModified() {
+        return lastModified;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getIssueId() {
+        return issueId;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WorkItemRecord [id=%d, description=%s, status=%s, userId=%d, issueId=%d]", id,
+                description, status, userId, issueId);
+    }
+}
@@ -6,31 +6,98 @@ import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 
 import se.teknikhogskolan.springcasemanagement.model.WorkItem;
 import se.teknikhogskolan.springcasemanagement.model.User;
+import se.teknikhogskolan.springcasemanagement.repository.paging.KeysetPagingRepository;
 
-public interface WorkItemRepository extends CrudRepository<WorkItem, Long> {
+public interface WorkItemRepository extends CrudRepository<WorkItem, Long>, WorkItemRepositoryCustom,
+        KeysetPagingRepository<WorkItem> {
 
+    @EntityGraph(attributePaths = { "issue", "user" })
+    @Override
+    Iterable<WorkItem> findAll(Iterable<Long> ids);
+
+    @EntityGraph(attributePaths = { "issue", "user" })
     Page<WorkItem> findAll(Pageable pageable);
 
+    @EntityGraph(attributePaths = { "issue", "user" })
     Collection<WorkItem> findByStatus(WorkItem.Status status);
 
-    Collection<WorkItem> findByUserId(Long userId);
+    /* Compares the foreign key, a derived query would outer join User first and scan every work item. */
+    @EntityGraph(attributePaths = { "issue", "user" })
+    @Query("select w from WorkItem w where w.user.id = :userId")
+    Collection<WorkItem> findByUserId(@Param("userId") Long userId);
+
+    @Query("select count(w) from WorkItem w where w.user.id = :userId")
+    long countByUserId(@Param("userId") Long userId);
 
+    @EntityGraph(attributePaths = { "issue", "user" })
     Collection<WorkItem> findByDescriptionContains(String text);
 
+    @EntityGraph(attributePaths = { "issue", "user" })
+    @Query("select w from WorkItem w where w.issue.id is not null")
     Collection<WorkItem> findByIssueIsNotNull();
 
-    @Query("Select w from WorkItem w left join User u on w.user.id = u.id WHERE u.team.id = :teamId")
+    /* The team's users first, then their work items, instead of joining every work item to its user. */
+    @EntityGraph(attributePaths = { "issue", "user" })
+    @Query("select w from WorkItem w where w.user.id in (select u.id from User u where u.team.id = :teamId)")
     List<WorkItem> findByTeamId(@Param("teamId") Long teamId);
 
+    @EntityGraph(attributePaths = { "issue", "user" })
     @Query("SELECT w FROM WorkItem w WHERE w.completionDate BETWEEN :startDate AND :endDate AND w.status = 'DONE'")
     List<WorkItem> findByCompletionDate(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 
+    @EntityGraph(attributePaths = { "issue", "user" })
     @Query("SELECT w FROM WorkItem w WHERE w.created BETWEEN :startDate AND :endDate")
     List<WorkItem> findByCreationDate(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("select w.description from WorkItem w where w.description in :descriptions")
+    List<String> findExistingDescriptions(@Param("descriptions") Collection<String> descriptions);
+
+    @EntityGraph(attributePaths = { "issue", "user" })
+    @Override
+    @Query("select w from WorkItem w where w.id > :id order by w.id")
+    List<WorkItem> findAfterId(@Param("id") Long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = { "issue", "user" })
+    @Override
+    @Query("select w from WorkItem w where w.created is not null order by w.created, w.id")
+    List<WorkItem> findOrderedByCreated(Pageable pageable);
+
+    @EntityGraph(attributePaths = { "issue", "user" })
+    @Override
+    @Query("select w from WorkItem w where w.created > :created "
+            + "or (w.created = :created and w.id > :id) order by w.created, w.id")
+    List<WorkItem> findAfterCreated(@Param("created") LocalDate created, @Param("id") Long id, Pageable pageable);
+
+    /** Like findAll(Pageable), but without counting all rows. */
+    @EntityGraph(attributePaths = { "issue", "user" })
+    @Query("select w from WorkItem w")
+    Slice<WorkItem> findSlice(Pageable pageable);
+
+    @Query("select new se.teknikhogskolan.springcasemanagement.repository.WorkItemSummary("
+            + "w.id, w.description, w.status, u.username) from WorkItem w left join w.user u "
+            + "where w.status = :status order by w.id")
+    List<WorkItemSummary> findSummariesByStatus(@Param("status") WorkItem.Status status);
+
+    @Query("select new se.teknikhogskolan.springcasemanagement.repository.WorkItemSummary("
+            + "w.id, w.description, w.status, u.username) from WorkItem w join w.user u "
+            + "where u.team.id = :teamId order by w.id")
+    List<WorkItemSummary> findSummariesByTeamId(@Param("teamId") Long teamId);
+
+    /* Rows of status and count. */
+    @Query("select w.status, count(w) from WorkItem w "
+            + "where w.user.id in (select u.id from User u where u.team.id = :teamId) group by w.status")
+    List<Object[]> countByStatusInTeam(@Param("teamId") Long teamId);
+
+    /* Rows of id and created, oldest first. */
+    @Query("select w.id, w.created from WorkItem w where w.status <> 'DONE' "
+            + "and w.user.id in (select u.id from User u where u.team.id = :teamId) order by w.created, w.id")
+    List<Object[]> findOpenByTeamIdOldestFirst(@Param("teamId") Long teamId, Pageable pageable);
 }
@@ -0,0 +1,36 @@
+package se.teknikhogskolan.springcasemanagement.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+
+public interface WorkItemRepositoryCustom {
+
+    /**
+     * Saves work items a JDBC batch at a time, and detaches them after every batch so the persistence context stays
+     * small. Must run in a transaction.
+     */
+    List<WorkItem> saveInBatches(Collection<WorkItem> workItems);
+
+    /**
+     * Every work item in id order, read through a forward only cursor that fetches {@code fetchSize} rows per round
+     * trip. Rows are mapped to records instead of entities, so memory stays constant however many there are. Must be
+     * consumed and closed inside a transaction.
+     *
+     * MySQL Connector/J reads the whole result into memory unless the connection has {@code useCursorFetch=true}, which
+     * the MySQL configuration sets.
+     */
+    Stream<WorkItemRecord> streamAll(int fetchSize);
+
+    /**
+     * Work items matching the specification, with their user and issue, sorted and cut off after {@code limit} rows.
+     * Unlike the {@code Pageable} queries there is no count and no offset, so with a keyset from
+     * {@link WorkItemSpecifications} it reads the same few rows however deep into the listing it is.
+     */
+    List<WorkItem> findMatching(Specification<WorkItem> specification, Sort sort, int limit);
+}
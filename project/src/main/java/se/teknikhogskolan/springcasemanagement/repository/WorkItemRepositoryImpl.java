@@ -0,0 +1,113 @@
+package se.teknikhogskolan.springcasemanagement.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import se.teknikhogskolan.springcasemanagement.config.JpaConfig;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+
+class WorkItemRepositoryImpl implements WorkItemRepositoryCustom {
+
+    private static final String streamAllQuery = "select new " + WorkItemRecord.class.getName()
+            + "(w.id, w.description, w.status, w.completionDate, w.created, w.lastModified, u.id, i.id)"
+            + " from WorkItem w left join w.user u left join w.issue i order by w.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<WorkItem> saveInBatches(Collection<WorkItem> workItems) {
+        List<WorkItem> saved = new ArrayList<>(workItems.size());
+        for (WorkItem workItem : workItems) {
+            if (null == workItem.getId()) {
+                entityManager.persist(workItem);
+                saved.add(workItem);
+            } else {
+                saved.add(entityManager.merge(workItem));
+            }
+            if (saved.size() % JpaConfig.batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return saved;
+    }
+
+    @Override
+    public Stream<WorkItemRecord> streamAll(int fetchSize) {
+        if (fetchSize < 1) throw new IllegalArgumentException("Fetch size must be positive");
+        ScrollableResults results = entityManager.createQuery(streamAllQuery, WorkItemRecord.class)
+                .unwrap(Query.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .setCacheable(false)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        return StreamSupport.stream(new RecordSpliterator(results), false).onClose(results::close);
+    }
+
+    @Override
+    public List<WorkItem> findMatching(Specification<WorkItem> specification, Sort sort, int limit) {
+        if (limit < 1) throw new IllegalArgumentException("Limit must be positive");
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<WorkItem> query = builder.createQuery(WorkItem.class);
+        Root<WorkItem> root = query.from(WorkItem.class);
+        if (null != specification) {
+            Predicate predicate = specification.toPredicate(root, query, builder);
+            if (null != predicate) query.where(predicate);
+        }
+        if (null != sort) {
+            List<javax.persistence.criteria.Order> orders = new ArrayList<>();
+            for (Sort.Order order : sort) {
+                orders.add(order.isAscending() ? builder.asc(root.get(order.getProperty()))
+                        : builder.desc(root.get(order.getProperty())));
+            }
+            query.orderBy(orders);
+        }
+
+        EntityGraph<WorkItem> graph = entityManager.createEntityGraph(WorkItem.class);
+        graph.addAttributeNodes("issue", "user");
+        return entityManager.createQuery(query.select(root))
+                .setHint("javax.persistence.loadgraph", graph)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /* Query.stream() hands out the row array instead of the record in this Hibernate version, so scroll directly. */
+    private static final class RecordSpliterator extends Spliterators.AbstractSpliterator<WorkItemRecord> {
+        private final ScrollableResults results;
+
+        private RecordSpliterator(ScrollableResults results) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.results = results;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super WorkItemRecord> action) {
+            if (!results.next()) return false;
+            action.accept((WorkItemRecord) results.get(0));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package se.teknikhogskolan.springcasemanagement.repository;
+
+import java.time.LocalDate;
+
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import se.teknikhogskolan.springcasemanagement.model.User;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+
+/**
+ * Filters for {@link WorkItemRepositoryCustom#findMatching}, combined with
+ * {@link org.springframework.data.jpa.domain.Specifications}. Each one is written to use the same index as the
+ * repository query filtering on the same thing.
+ */
+public final class WorkItemSpecifications {
+
+    private static final char likeEscape = '\\';
+
+    private WorkItemSpecifications() {
+    }
+
+    public static Specification<WorkItem> hasStatus(WorkItem.Status status) {
+        return (root, query, builder) -> builder.equal(root.get("status"), status);
+    }
+
+    /* Compares the foreign key instead of joining User, like findByUserId. */
+    public static Specification<WorkItem> hasUser(Long userId) {
+        return (root, query, builder) -> builder.equal(root.get("user").get("id"), userId);
+    }
+
+    /* The team's users first, then their work items, like findByTeamId. */
+    public static Specification<WorkItem> inTeam(Long teamId) {
+        return (root, query, builder) -> {
+            Subquery<Long> users = query.subquery(Long.class);
+            Root<User> user = users.from(User.class);
+            users.select(user.get("id")).where(builder.equal(user.get("team").get("id"), teamId));
+            return root.get("user").get("id").in(users);
+        };
+    }
+
+    /** Both dates included. */
+    public static Specification<WorkItem> createdBetween(LocalDate from, LocalDate to) {
+        return (root, query, builder) -> builder.between(root.get("created"), from, to);
+    }
+
+    /** Both dates included, and only work items that are done, like findByCompletionDate. */
+    public static Specification<WorkItem> completedBetween(LocalDate from, LocalDate to) {
+        return (root, query, builder) -> builder.and(builder.equal(root.get("status"), WorkItem.Status.DONE),
+                builder.between(root.get("completionDate"), from, to));
+    }
+
+    /**
+     * A leading wildcard, so no index helps. Narrow the search with other filters where possible. The text is matched
+     * as is, a % or _ in it is not a wildcard.
+     */
+    public static Specification<WorkItem> descriptionContains(String text) {
+        return (root, query, builder) -> builder.like(root.get("description"), "%" + escapeLike(text) + "%",
+                likeEscape);
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace(String.valueOf(likeEscape), "" + likeEscape + likeEscape)
+                .replace("%", likeEscape + "%")
+                .replace("_", likeEscape + "_");
+    }
+
+    /** Keyset for listings ordered by id. */
+    public static Specification<WorkItem> idAfter(Long id) {
+        return (root, query, builder) -> builder.greaterThan(root.get("id"), id);
+    }
+
+    /** Leaves out work items without a created date, which a listing ordered by created date cannot place. */
+    public static Specification<WorkItem> hasCreated() {
+        return (root, query, builder) -> builder.isNotNull(root.get("created"));
+    }
+
+    /** Keyset for listings ordered by created date, then id. */
+    public static Specification<WorkItem> createdAfter(LocalDate created, Long id) {
+        return (root, query, builder) -> builder.or(builder.greaterThan(root.get("created"), created),
+                builder.and(builder.equal(root.get("created"), created), builder.greaterThan(root.get("id"), id)));
+    }
+}
@@ -0,0 +1,45 @@
+package se.teknikhogskolan.springcasemanagement.repository;
+
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+
+/**
+ * The columns a work item listing shows, selected on their own. Cheaper than the entity with its issue and user
+ * attached, and never managed, so it needs no transaction and never loads anything later.
+ */
+public final class WorkItemSummary {
+
+    private final Long id;
+    private final String description;
+    private final WorkItem.Status status;
+    private final String username;
+
+    public WorkItemSummary(Long id, String description, WorkItem.Status status, String username) {
+        this.id = id;
+        this.description = description;
+        this.status = status;
+        this.username = username;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public WorkItem.Status getStatus() {
+        return status;
+    }
+
+    /** @return username of the user the work item is assigned to, or null if it is not assigned */
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WorkItemSummary [id=%d, description=%s, status=%s, username=%s]", id, description,
+                status, username);
+    }
+}
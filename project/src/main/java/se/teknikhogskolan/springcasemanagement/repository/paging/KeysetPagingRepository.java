@@ -0,0 +1,19 @@
+package se.teknikhogskolan.springcasemanagement.repository.paging;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Queries seeking past the last row of a keyset paginated listing, by id or by created date then id. Each repository
+ * declares them with its own query and entity graph. Only the first page of the pageable is read.
+ */
+public interface KeysetPagingRepository<T> {
+
+    List<T> findAfterId(Long id, Pageable pageable);
+
+    List<T> findOrderedByCreated(Pageable pageable);
+
+    List<T> findAfterCreated(LocalDate created, Long id, Pageable pageable);
+}
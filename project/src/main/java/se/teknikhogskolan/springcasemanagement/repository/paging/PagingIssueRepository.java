@@ -1,8 +1,43 @@
 package se.teknikhogskolan.springcasemanagement.repository.paging;
 
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+
 import se.teknikhogskolan.springcasemanagement.model.Issue;
 
-public interface PagingIssueRepository extends PagingAndSortingRepository<Issue, Long> {
+public interface PagingIssueRepository extends PagingAndSortingRepository<Issue, Long>,
+        KeysetPagingRepository<Issue> {
+
+    @EntityGraph(attributePaths = "workItem")
+    @Override
+    Page<Issue> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = "workItem")
+    @Override
+    @Query("select i from Issue i where i.id > :id order by i.id")
+    List<Issue> findAfterId(@Param("id") Long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = "workItem")
+    @Override
+    @Query("select i from Issue i where i.created is not null order by i.created, i.id")
+    List<Issue> findOrderedByCreated(Pageable pageable);
+
+    @EntityGraph(attributePaths = "workItem")
+    @Override
+    @Query("select i from Issue i where i.created > :created "
+            + "or (i.created = :created and i.id > :id) order by i.created, i.id")
+    List<Issue> findAfterCreated(@Param("created") LocalDate created, @Param("id") Long id, Pageable pageable);
 
+    /** Like findAll(Pageable), but without counting all rows. */
+    @EntityGraph(attributePaths = "workItem")
+    @Query("select i from Issue i")
+    Slice<Issue> findSlice(Pageable pageable);
 }
@@ -0,0 +1,110 @@
+package se.teknikhogskolan.springcasemanagement.service;
+
+import java.util.Arrays;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks the iteration count that makes one hash on this machine take about the target time. Calibrated once when the
+ * application starts, so no login waits for it, and never below {@link SecurityHelper#hashingIterations} so no
+ * deployment ends up weaker than before.
+ *
+ * Measurements vary between restarts, so a stored hash is only upgraded when it is well below the calibrated count,
+ * not when it is a step or two below. A deployment that wants the same count on every node and every restart pins it
+ * with {@code springcasemanagement.hashing.iterations}, and no calibration runs.
+ *
+ * Tuned per deployment with the system properties {@code springcasemanagement.hashing.targetMillis},
+ * {@code springcasemanagement.hashing.minimumIterations} and {@code springcasemanagement.hashing.maximumIterations}.
+ */
+@Component
+public class CalibratedHashingPolicy implements HashingPolicy {
+
+    private static final int calibrationIterations = 10000;
+    private static final int warmupRounds = 5;
+    private static final int calibrationRounds = 5;
+    private static final int iterationStep = 1000;
+
+    /** A stored hash with at least this share of the calibrated iterations is kept. */
+    static final double rehashThreshold = 0.75;
+
+    private final long targetMillis;
+    private final int minimumIterations;
+    private final int maximumIterations;
+    private final int pinnedIterations;
+    private volatile int iterations;
+
+    public CalibratedHashingPolicy(long targetMillis, int minimumIterations, int maximumIterations) {
+        this(targetMillis, minimumIterations, maximumIterations, 0);
+    }
+
+    /** @param pinnedIterations used as is instead of calibrating, or 0 to calibrate */
+    @Autowired
+    public CalibratedHashingPolicy(@Value("${springcasemanagement.hashing.targetMillis:50}") long targetMillis,
+            @Value("${springcasemanagement.hashing.minimumIterations:10000}") int minimumIterations,
+            @Value("${springcasemanagement.hashing.maximumIterations:1000000}") int maximumIterations,
+            @Value("${springcasemanagement.hashing.iterations:0}") int pinnedIterations) {
+        if (targetMillis < 1) throw new IllegalArgumentException("Target time must be positive");
+        if (minimumIterations < SecurityHelper.hashingIterations) throw new IllegalArgumentException(String.format(
+                "Minimum iterations must be at least %d", SecurityHelper.hashingIterations));
+        if (maximumIterations < minimumIterations) throw new IllegalArgumentException(
+                "Maximum iterations must not be less than minimum iterations");
+        if (0 != pinnedIterations && pinnedIterations < SecurityHelper.hashingIterations) {
+            throw new IllegalArgumentException(String.format("Pinned iterations must be at least %d",
+                    SecurityHelper.hashingIterations));
+        }
+        this.targetMillis = targetMillis;
+        this.minimumIterations = minimumIterations;
+        this.maximumIterations = maximumIterations;
+        this.pinnedIterations = pinnedIterations;
+    }
+
+    /** Called by Spring at startup. A policy made outside a container calibrates when first asked for iterations. */
+    @PostConstruct
+    public synchronized void calibrate() {
+        iterations = 0 != pinnedIterations ? pinnedIterations
+                : iterationsFor(targetMillis, minimumIterations, maximumIterations);
+    }
+
+    /** The first rounds run before the JIT has compiled the hashing, so they are thrown away. */
+    private static int iterationsFor(long targetMillis, int minimumIterations, int maximumIterations) {
+        for (int i = 0; i < warmupRounds; i++) {
+            SecurityHelper.hashPassword("warmup", "warmup", calibrationIterations);
+        }
+        long[] nanos = new long[calibrationRounds];
+        for (int i = 0; i < calibrationRounds; i++) {
+            long start = System.nanoTime();
+            SecurityHelper.hashPassword("calibration", "calibration", calibrationIterations);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long medianNanos = Math.max(1, nanos[calibrationRounds / 2]);
+
+        double iterationsForTarget = (double) calibrationIterations * targetMillis * 1000000 / medianNanos;
+        long rounded = Math.round(iterationsForTarget / iterationStep) * iterationStep;
+        return (int) Math.max(minimumIterations, Math.min(maximumIterations, rounded));
+    }
+
+    @Override
+    public int getIterations() {
+        if (0 == iterations) {
+            synchronized (this) {
+                if (0 == iterations) calibrate();
+            }
+        }
+        return iterations;
+    }
+
+    /** Below the minimum always, otherwise only when well below the calibrated count, see {@link #rehashThreshold}. */
+    @Override
+    public boolean needsRehash(int storedIterations) {
+        return storedIterations < minimumIterations || storedIterations < getIterations() * rehashThreshold;
+    }
+
+    public long getTargetMillis() {
+        return targetMillis;
+    }
+}
@@ -0,0 +1,37 @@
+package se.teknikhogskolan.springcasemanagement.service;
+
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import se.teknikhogskolan.springcasemanagement.repository.SecurityTokenRepository;
+import se.teknikhogskolan.springcasemanagement.service.exception.DatabaseException;
+
+/**
+ * Purges expired tokens in the background so that token verification never has to write.
+ */
+@Component
+public class ExpiredTokenSweeper {
+
+    private static final long sweepIntervalMillis = 10 * 60 * 1000L;
+
+    private final SecurityTokenRepository repository;
+
+    @Autowired
+    public ExpiredTokenSweeper(SecurityTokenRepository repository) {
+        this.repository = repository;
+    }
+
+    /** @return number of removed tokens */
+    @Scheduled(initialDelay = sweepIntervalMillis, fixedDelay = sweepIntervalMillis)
+    public int sweep() {
+        try {
+            return repository.deleteByExpiresAtBefore(LocalDateTime.now());
+        } catch (DataAccessException e) {
+            throw new DatabaseException("Cannot remove expired tokens.", e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package se.teknikhogskolan.springcasemanagement.service;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import se.teknikhogskolan.springcasemanagement.repository.WorkItemRecord;
+
+/** How an export writes work items, one line per work item so a reader can process it as it arrives. */
+public enum ExportFormat {
+
+    /** RFC 4180, with a header line. Missing values are empty fields. */
+    CSV {
+        @Override
+        void writeHeader(Writer writer) throws IOException {
+            writer.write("id,description,status,completionDate,created,lastModified,userId,issueId\r\n");
+        }
+
+        @Override
+        void write(WorkItemRecord record, Writer writer) throws IOException {
+            writer.write(String.valueOf(record.getId()));
+            writer.write(',');
+            writeCsvField(record.getDescription(), writer);
+            for (Object value : new Object[] { record.getStatus(), record.getCompletionDate(), record.getCreated(),
+                    record.getLastModified(), record.getUserId(), record.getIssueId() }) {
+                writer.write(',');
+                if (null != value) writer.write(value.toString());
+            }
+            writer.write("\r\n");
+        }
+    },
+
+    /** One JSON object per line. Missing values are null. */
+    JSON_LINES {
+        @Override
+        void writeHeader(Writer writer) {
+        }
+
+        @Override
+        void write(WorkItemRecord record, Writer writer) throws IOException {
+            writer.write("{\"id\":");
+            writer.write(String.valueOf(record.getId()));
+            writer.write(",\"description\":");
+            writeJsonString(record.getDescription(), writer);
+            writer.write(",\"status\":");
+            writeJsonString(record.getStatus(), writer);
+            writer.write(",\"completionDate\":");
+            writeJsonString(record.getCompletionDate(), writer);
+            writer.write(",\"created\":");
+            writeJsonString(record.getCreated(), writer);
+            writer.write(",\"lastModified\":");
+            writeJsonString(record.getLastModified(), writer);
+            writer.write(",\"userId\":");
+            writer.write(String.valueOf(record.getUserId()));
+            writer.write(",\"issueId\":");
+            writer.write(String.valueOf(record.getIssueId()));
+            writer.write("}\n");
+        }
+    };
+
+    abstract void writeHeader(Writer writer) throws IOException;
+
+    abstract void write(WorkItemRecord record, Writer writer) throws IOException;
+
+    private static void writeCsvField(String value, Writer writer) throws IOException {
+        if (null == value) return;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') writer.write('"');
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private static void writeJsonString(Object value, Writer writer) throws IOException {
+        if (null == value) {
+            writer.write("null");
+            return;
+        }
+        String text = value.toString();
+        writer.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+            case '"':
+                writer.write("\\\"");
+                break;
+            case '\\':
+                writer.write("\\\\");
+                break;
+            case '\n':
+                writer.write("\\n");
+                break;
+            case '\r':
+                writer.write("\\r");
+                break;
+            case '\t':
+                writer.write("\\t");
+                break;
+            default:
+                if (c < 0x20) writer.write(String.format("\\u%04x", (int) c));
+                else writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,14 @@
+package se.teknikhogskolan.springcasemanagement.service;
+
+/**
+ * Decides how many hashing iterations new password hashes get. Hashes made with fewer iterations are upgraded the next
+ * time their password is proven correct.
+ */
+public interface HashingPolicy {
+
+    int getIterations();
+
+    default boolean needsRehash(int storedIterations) {
+        return storedIterations < getIterations();
+    }
+}
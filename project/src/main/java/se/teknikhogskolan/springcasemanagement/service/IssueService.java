@@ -2,30 +2,39 @@ package se.teknikhogskolan.springcasemanagement.service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.LongSupplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import se.teknikhogskolan.springcasemanagement.model.Issue;
 import se.teknikhogskolan.springcasemanagement.repository.IssueRepository;
 import se.teknikhogskolan.springcasemanagement.repository.paging.PagingIssueRepository;
+import se.teknikhogskolan.springcasemanagement.service.cache.ApproximateCountCache;
 import se.teknikhogskolan.springcasemanagement.service.exception.DatabaseException;
 import se.teknikhogskolan.springcasemanagement.service.exception.NotAllowedException;
 import se.teknikhogskolan.springcasemanagement.service.exception.NotFoundException;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.Chunk;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.Piece;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.ContinuationToken;
 
 @Service
 public class IssueService {
 
     private final IssueRepository issueRepository;
     private final PagingIssueRepository pagingIssueRepository;
+    private final ApproximateCountCache countCache;
 
     @Autowired
-    public IssueService(IssueRepository issueRepository, PagingIssueRepository pagingIssueRepository) {
+    public IssueService(IssueRepository issueRepository, PagingIssueRepository pagingIssueRepository,
+            ApproximateCountCache countCache) {
         this.issueRepository = issueRepository;
         this.pagingIssueRepository = pagingIssueRepository;
+        this.countCache = countCache;
     }
 
     public boolean exists(Long issueId) {
@@ -84,6 +93,37 @@ public class IssueService {
         return saveIssue(issue.setActive(true), String.format("Cannot activate Issue with id '%d'.", issueId));
     }
 
+    public Piece<Issue> getAllByPiece(int pageNumber, int pageSize) {
+        return getAllByPiece(pageNumber, pageSize, false);
+    }
+
+    /**
+     * @param approximateTotal serve the total from a count that is refreshed in the background instead of counting,
+     * it can be a minute behind
+     */
+    public Piece<Issue> getAllByPiece(int pageNumber, int pageSize, boolean approximateTotal) {
+        Slice<Issue> slice;
+        try {
+            slice = pagingIssueRepository.findSlice(new PageRequest(pageNumber, pageSize));
+        } catch (DataAccessException e) {
+            throw new DatabaseException(String.format("Cannot get Issues by piece. Request was 'page %d, size %d'.",
+                    pageNumber, pageSize), e);
+        }
+        if (null == slice) return null;
+        LongSupplier counter = approximateTotal
+                ? () -> countCache.get(Issue.class, pagingIssueRepository::count)
+                : pagingIssueRepository::count;
+        return new Piece<>(slice, () -> countIssues(counter));
+    }
+
+    private long countIssues(LongSupplier counter) {
+        try {
+            return counter.getAsLong();
+        } catch (DataAccessException e) {
+            throw new DatabaseException("Cannot count Issues.", e);
+        }
+    }
+
     public Page<Issue> getAllByPage(int pageNumber, int pageSize) {
         try {
             return pagingIssueRepository.findAll(new PageRequest(pageNumber, pageSize));
@@ -92,4 +132,13 @@ public class IssueService {
                     pageNumber, pageSize), e);
         }
     }
+
+    /** First chunk of a keyset paginated listing, continue with {@link #getNextChunk(String, int)}. */
+    public Chunk<Issue> getFirstChunk(int size, ContinuationToken.Order order) {
+        return Chunk.first(pagingIssueRepository, size, order, "Issues");
+    }
+
+    public Chunk<Issue> getNextChunk(String continuationToken, int size) {
+        return Chunk.next(pagingIssueRepository, continuationToken, size, "Issues");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,224 @@
+package se.teknikhogskolan.springcasemanagement.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.stereotype.Component;
+
+import se.teknikhogskolan.springcasemanagement.service.exception.OverloadedException;
+
+/**
+ * Runs password hashing on a fixed number of dedicated threads with a bounded queue. A burst of logins queues here
+ * instead of occupying every request thread, and when the queue is full the future of new hashing fails right away
+ * with an {@link OverloadedException}. Waiting for a hash is bounded the same way, and hashes still queued when the
+ * threads are stopped fail instead of never completing. Hashing and queue wait times are kept in histograms, shown
+ * over JMX.
+ */
+@Component
+public class PasswordHashingExecutor implements PasswordHashingExecutorMXBean {
+
+    public static final int defaultQueueCapacity = 256;
+    public static final long defaultWaitTimeoutMillis = 10_000;
+
+    private static final int significantDigits = 3;
+
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final long waitTimeoutMillis;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final Histogram hashNanos = new ConcurrentHistogram(significantDigits);
+    private final Histogram queueWaitNanos = new ConcurrentHistogram(significantDigits);
+
+    public PasswordHashingExecutor() {
+        this(Runtime.getRuntime().availableProcessors(), defaultQueueCapacity, defaultWaitTimeoutMillis);
+    }
+
+    public PasswordHashingExecutor(int threads, int queueCapacity) {
+        this(threads, queueCapacity, defaultWaitTimeoutMillis);
+    }
+
+    public PasswordHashingExecutor(int threads, int queueCapacity, long waitTimeoutMillis) {
+        if (threads < 1) throw new IllegalArgumentException("Threads must be positive");
+        if (queueCapacity < 1) throw new IllegalArgumentException("Queue capacity must be positive");
+        if (waitTimeoutMillis < 1) throw new IllegalArgumentException("Wait timeout must be positive");
+        this.queueCapacity = queueCapacity;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public CompletableFuture<String> hash(String password, String salt) {
+        return hash(password, salt, SecurityHelper.hashingIterations);
+    }
+
+    public CompletableFuture<String> hash(String password, String salt, int iterations) {
+        HashTask task = new HashTask(password, salt, iterations);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            task.future.completeExceptionally(new OverloadedException(String.format(
+                    "Too many concurrent logins, %d password hashes are already waiting.", executor.getQueue().size()),
+                    e));
+        }
+        return task.future;
+    }
+
+    /** Hashes on the dedicated threads and waits for the result, at most the wait timeout. */
+    public String hashAndWait(String password, String salt) {
+        return hashAndWait(password, salt, SecurityHelper.hashingIterations);
+    }
+
+    public String hashAndWait(String password, String salt, int iterations) {
+        CompletableFuture<String> future = hash(password, salt, iterations);
+        try {
+            return future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            future.cancel(false);
+            throw new OverloadedException(String.format("Password hash did not finish within %d ms.",
+                    waitTimeoutMillis), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new OverloadedException("Interrupted while waiting for password hash.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return hashNanos.getTotalCount();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getTimedOutCount() {
+        return timedOut.sum();
+    }
+
+    @Override
+    public long getAverageHashMicros() {
+        return TimeUnit.NANOSECONDS.toMicros((long) hashNanos.getMean());
+    }
+
+    @Override
+    public long getP99HashMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(hashNanos.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getMaxHashMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(hashNanos.getMaxValue());
+    }
+
+    @Override
+    public long getAverageQueueWaitMicros() {
+        return TimeUnit.NANOSECONDS.toMicros((long) queueWaitNanos.getMean());
+    }
+
+    @Override
+    public long getP99QueueWaitMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(queueWaitNanos.getValueAtPercentile(99));
+    }
+
+    @Override
+    public void reset() {
+        hashNanos.reset();
+        queueWaitNanos.reset();
+        rejected.reset();
+        timedOut.reset();
+    }
+
+    /** Lets the hashes already queued finish, then stops the hashing threads. */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /** Stops the hashing threads right away. The futures of hashes still waiting in the queue fail. */
+    public void shutdownNow() {
+        for (Runnable dropped : executor.shutdownNow()) {
+            ((HashTask) dropped).future.completeExceptionally(new OverloadedException(
+                    "Password hashing was shut down before this hash started."));
+        }
+    }
+
+    private final class HashTask implements Runnable {
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+        private final long queuedAt = System.nanoTime();
+        private final String password;
+        private final String salt;
+        private final int iterations;
+
+        private HashTask(String password, String salt, int iterations) {
+            this.password = password;
+            this.salt = salt;
+            this.iterations = iterations;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) return;
+            long startedAt = System.nanoTime();
+            queueWaitNanos.recordValue(startedAt - queuedAt);
+            String hashedPassword;
+            try {
+                hashedPassword = SecurityHelper.hashPassword(password, salt, iterations);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                return;
+            } finally {
+                hashNanos.recordValue(System.nanoTime() - startedAt);
+            }
+            future.complete(hashedPassword);
+        }
+    }
+
+    private static final class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package se.teknikhogskolan.springcasemanagement.service;
+
+/** What {@link PasswordHashingExecutor} shows over JMX. Times are since startup or the last reset. */
+public interface PasswordHashingExecutorMXBean {
+
+    /** @return hashes waiting for a thread */
+    int getQueueDepth();
+
+    int getQueueCapacity();
+
+    /** @return threads hashing right now */
+    int getActiveCount();
+
+    long getCompletedCount();
+
+    /** @return hashes refused because the queue was full */
+    long getRejectedCount();
+
+    /** @return waits for a hash that gave up after the wait timeout */
+    long getTimedOutCount();
+
+    long getAverageHashMicros();
+
+    long getP99HashMicros();
+
+    long getMaxHashMicros();
+
+    long getAverageQueueWaitMicros();
+
+    long getP99QueueWaitMicros();
+
+    void reset();
+}
@@ -3,6 +3,7 @@ package se.teknikhogskolan.springcasemanagement.service;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
+import java.util.Base64;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
@@ -13,31 +14,55 @@ public final class SecurityHelper {
     public static final int hashingIterations = 10000;
     public static final int hashSize = 2048;
 
+    private static final String hashingAlgorithm = "PBKDF2WithHmacSHA512";
+    private static final ThreadLocal<SecretKeyFactory> keyFactories = new ThreadLocal<>();
+
+    /** URL safe, 64 characters so that six random bits pick one character with no bias. */
+    private static final char[] tokenCharacters =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    /** Seeded once per thread, so generating a token or salt never waits on entropy or on another thread. */
+    private static final ThreadLocal<SecureRandom> randoms = ThreadLocal.withInitial(SecureRandom::new);
+
     public static final String generateToken(int length) {
-        StringBuilder builder = new StringBuilder();
-        SecureRandom random = new SecureRandom();
-        final String characters = "0123456789abcdfghijklmopqrstuvwxyzABCDEFGHIJKLMOPQRSTUVWXYZ";
+        byte[] bytes = new byte[length];
+        randoms.get().nextBytes(bytes);
+        char[] token = new char[length];
         for (int i = 0; i < length; i++) {
-            builder.append(characters.charAt(random.nextInt(characters.length())));
+            token[i] = tokenCharacters[bytes[i] & 0x3f];
         }
-        return builder.toString();
+        return new String(token);
     }
 
     public static final String generateSalt(){
-        SecureRandom secureRandom = new SecureRandom();
         byte[] salt = new byte[hashSize/8];
-        secureRandom.nextBytes(salt);
-        return new String(salt);
+        randoms.get().nextBytes(salt);
+        return Base64.getEncoder().encodeToString(salt);
     }
 
     public static final String hashPassword(final String password, final String salt) throws HashingException {
+        return hashPassword(password, salt, hashingIterations);
+    }
+
+    public static final String hashPassword(final String password, final String salt, final int iterations)
+            throws HashingException {
         try {
-            SecretKeyFactory skf = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA512");
-            PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt.getBytes(), hashingIterations, hashSize);
+            SecretKeyFactory skf = keyFactory();
+            PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt.getBytes(), iterations, hashSize);
             SecretKey key = skf.generateSecret(spec);
             return new String(key.getEncoded());
         } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
             throw new HashingException(String.format("Cannot hash '%s'", password), e);
         }
     }
+
+    /** SecretKeyFactory is not thread safe, but looking it up is too expensive to do for every hash. */
+    private static SecretKeyFactory keyFactory() throws NoSuchAlgorithmException {
+        SecretKeyFactory factory = keyFactories.get();
+        if (null == factory) {
+            factory = SecretKeyFactory.getInstance(hashingAlgorithm);
+            keyFactories.set(factory);
+        }
+        return factory;
+    }
 }
@@ -1,28 +1,46 @@
 package se.teknikhogskolan.springcasemanagement.service;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.teknikhogskolan.springcasemanagement.model.SecurityToken;
 import se.teknikhogskolan.springcasemanagement.model.SecurityUser;
+import se.teknikhogskolan.springcasemanagement.repository.SecurityTokenRepository;
 import se.teknikhogskolan.springcasemanagement.repository.SecurityUserRepository;
+import se.teknikhogskolan.springcasemanagement.service.cache.TokenCache;
 import se.teknikhogskolan.springcasemanagement.service.exception.NotAuthorizedException;
 import se.teknikhogskolan.springcasemanagement.service.exception.NotFoundException;
 
 import static se.teknikhogskolan.springcasemanagement.service.SecurityHelper.generateSalt;
 import static se.teknikhogskolan.springcasemanagement.service.SecurityHelper.generateToken;
-import static se.teknikhogskolan.springcasemanagement.service.SecurityHelper.hashPassword;
 import static se.teknikhogskolan.springcasemanagement.service.SecurityHelper.hashingIterations;
 
 @Service
 public class SecurityUserService {
 
     private  final SecurityUserRepository repository;
+    private final SecurityTokenRepository tokenRepository;
+    private final TokenCache tokenCache;
+    private final PasswordHashingExecutor hashingExecutor;
+    private final HashingPolicy hashingPolicy;
+    private final TransactionTemplate transaction;
 
     @Autowired
-    public SecurityUserService(SecurityUserRepository securityUserRepository) {
+    public SecurityUserService(SecurityUserRepository securityUserRepository, SecurityTokenRepository tokenRepository,
+            TokenCache tokenCache, PasswordHashingExecutor hashingExecutor, HashingPolicy hashingPolicy,
+            PlatformTransactionManager transactionManager) {
         this.repository = securityUserRepository;
+        this.tokenRepository = tokenRepository;
+        this.tokenCache = tokenCache;
+        this.hashingExecutor = hashingExecutor;
+        this.hashingPolicy = hashingPolicy;
+        this.transaction = new TransactionTemplate(transactionManager);
     }
 
     /** @return id */
@@ -33,9 +51,10 @@ public class SecurityUserService {
                 "Username '%s' already exist", username));
 
         String salt = generateSalt();
-        String hashedPassword = hashPassword(password, salt);
+        int iterations = hashingPolicy.getIterations();
+        String hashedPassword = hashingExecutor.hashAndWait(password, salt, iterations);
 
-        SecurityUser user = repository.save(new SecurityUser(username, new HashMap<>(), hashedPassword, salt, hashingIterations));
+        SecurityUser user = repository.save(new SecurityUser(username, hashedPassword, salt, iterations));
 
         return user.getId();
     }
@@ -52,84 +71,132 @@ public class SecurityUserService {
         SecurityUser user = getByUsername(username);
 
         if (passwordMatchesUser(password, user)) {
-            String token = generateToken(255);
-            user.addToken(token, LocalDateTime.now().plusDays(1));
-            repository.save(user);
-            return token;
+            if (hashingPolicy.needsRehash(storedIterations(user))) {
+                String salt = generateSalt();
+                int iterations = hashingPolicy.getIterations();
+                user = rehash(user, salt, iterations, hashingExecutor.hashAndWait(password, salt, iterations));
+            }
+            return issueTokenFor(user);
         } else throw new NotAuthorizedException("Wrong password");
     }
 
+    /**
+     * Same as {@link #createTokenFor(String, String)} but the password is checked on the hashing threads, so the
+     * calling thread is free while the login waits in queue. The rehashed user and the token are saved on the given
+     * executor, like the one serving requests, so the hashing threads never wait for the database.
+     */
+    public CompletableFuture<String> createTokenForAsync(String username, String password, Executor executor) {
+        SecurityUser user = getByUsername(username);
+
+        return hashingExecutor.hash(password, user.getSalt(), storedIterations(user)).thenCompose(hashedPassword -> {
+            if (!user.getHashedPassword().equals(hashedPassword)) throw new NotAuthorizedException("Wrong password");
+            if (!hashingPolicy.needsRehash(storedIterations(user))) return CompletableFuture.completedFuture(user);
+
+            String salt = generateSalt();
+            int iterations = hashingPolicy.getIterations();
+            return hashingExecutor.hash(password, salt, iterations)
+                    .thenApplyAsync(rehashedPassword -> rehash(user, salt, iterations, rehashedPassword), executor);
+        }).thenApplyAsync(this::issueTokenFor, executor);
+    }
+
+    /** Upgrades a hash made with an older, cheaper policy. Only done once the password is proven correct. */
+    private SecurityUser rehash(SecurityUser user, String salt, int iterations, String hashedPassword) {
+        user.setSalt(salt);
+        user.setSaltingIterations(iterations);
+        user.setHashedPassword(hashedPassword);
+        return repository.save(user);
+    }
+
+    /** Users created before iterations were stored have 0, they were all hashed with the old constant. */
+    private int storedIterations(SecurityUser user) {
+        return user.getSaltingIterations() > 0 ? user.getSaltingIterations() : hashingIterations;
+    }
+
+    private String issueTokenFor(SecurityUser user) {
+        String token = generateToken(255);
+        LocalDateTime expiration = LocalDateTime.now().plusDays(1);
+        tokenRepository.save(new SecurityToken(token, user, expiration));
+        tokenCache.put(token, user.getId(), expiration);
+        return token;
+    }
+
     private SecurityUser getByUsername(String username) {
 
         Optional<SecurityUser> user = Optional.ofNullable(repository.findByUsername(username));
         if (!user.isPresent()) throw new NotFoundException(String.format("No such User '%s'", username));
 
-        return removeExpiredTokens(user.get());
+        return user.get();
     }
 
     private boolean passwordMatchesUser(String password, SecurityUser user) {
-        if (equalPasswords(password, user.getSalt(), user.getHashedPassword())) {
+        if (equalPasswords(password, user.getSalt(), storedIterations(user), user.getHashedPassword())) {
             return true;
         } else return false;
     }
 
-    private SecurityUser removeExpiredTokens(SecurityUser user) {
-        LocalDateTime now = LocalDateTime.now();
-        user.getTokensExpiration().forEach((token, expirationDate) -> {
-            if (now.isAfter(LocalDateTime.parse(expirationDate))) user.getTokensExpiration().remove(token);
-        });
-        return repository.save(user);
-    }
-
-    private boolean equalPasswords(String password, String salt, String hashedPassword) {
-        return hashedPassword.equals(hashPassword(password, salt));
+    private boolean equalPasswords(String password, String salt, int iterations, String hashedPassword) {
+        return hashedPassword.equals(hashingExecutor.hashAndWait(password, salt, iterations));
     }
 
+    /** The password is checked before the transaction begins, so no connection is held while the hash waits. */
     public Long delete(String username, String password) {
         SecurityUser user = getByUsername(username);
-        if (passwordMatchesUser(password, user)) {
+        if (!passwordMatchesUser(password, user)) throw new NotAuthorizedException("Wrong password");
+
+        transaction.execute(status -> {
+            tokenRepository.deleteByUserId(user.getId());
             repository.delete(user.getId());
-            return user.getId();
-        } else throw new NotAuthorizedException("Wrong password");
+            return null;
+        });
+        tokenCache.invalidateUser(user.getId());
+        return user.getId();
     }
 
-    private SecurityUser getByToken(String token) {
-        SecurityUser user = repository.findByToken(token); // Mysql is NOT case sensitive
-        if (null == user)  throw new NotAuthorizedException("Not authorized");
-        if (tokenIsExpired(token, user)) throw new NotAuthorizedException("Login session expired");
-        user = removeExpiredTokens(user);
-        if (!user.getTokensExpiration().containsKey(token)) throw new NotAuthorizedException("Not authorized");
-        return user;
+    private SecurityToken getByToken(String token) {
+        SecurityToken securityToken = findToken(token);
+        if (securityToken.isExpired(LocalDateTime.now())) throw new NotAuthorizedException("Login session expired");
+        return securityToken;
     }
 
-    public void verify(String token) {
-        SecurityUser user = repository.findByToken(token); // Mysql is NOT case sensitive
-		if (null == user || !user.getTokensExpiration().containsKey(token)){
-			throw new NotAuthorizedException("Not authorized");
-		}
-		user = removeExpiredTokens(user);
-		if (user.getTokensExpiration() == null || !user.getTokensExpiration().containsKey(token)){
-			throw new NotAuthorizedException("Login session has expired");
-		}
+    private SecurityToken findToken(String token) {
+        SecurityToken securityToken = tokenRepository.findByToken(token);
+        // Mysql is NOT case sensitive
+        if (null == securityToken || !securityToken.getToken().equals(token)) {
+            throw new NotAuthorizedException("Not authorized");
+        }
+        return securityToken;
     }
 
-    private boolean tokenIsExpired(String token, SecurityUser user) {
-        return LocalDateTime.parse(user.getTokensExpiration().get(token)).isBefore(LocalDateTime.now());
+    @Transactional(readOnly = true)
+    public void verify(String token) {
+        if (null != tokenCache.get(token)) return;
+
+        SecurityToken securityToken = findToken(token);
+        if (securityToken.isExpired(LocalDateTime.now())) {
+            throw new NotAuthorizedException("Login session has expired");
+        }
+        tokenCache.put(token, securityToken.getUser().getId(), securityToken.getExpiresAt());
     }
 
+    @Transactional(readOnly = true)
     public LocalDateTime getExpiration(String token) {
-        SecurityUser user = getByToken(token);
-        return LocalDateTime.parse(user.getTokensExpiration().get(token));
+        LocalDateTime cachedExpiration = tokenCache.get(token);
+        if (null != cachedExpiration) return cachedExpiration;
+
+        SecurityToken securityToken = getByToken(token);
+        tokenCache.put(token, securityToken.getUser().getId(), securityToken.getExpiresAt());
+        return securityToken.getExpiresAt();
     }
 
     /** @return new expiration time, after updated in system */
+    @Transactional
     public LocalDateTime renewExpiration(String token) {
-        SecurityUser user = getByToken(token);
+        SecurityToken securityToken = getByToken(token);
 
         LocalDateTime renewal = LocalDateTime.now().plusDays(1L);
-        user.getTokensExpiration().replace(token, renewal.toString());
-        repository.save(user);
+        tokenRepository.save(securityToken.setExpiresAt(renewal));
+        tokenCache.put(token, securityToken.getUser().getId(), renewal);
 
         return renewal;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,176 @@
+package se.teknikhogskolan.springcasemanagement.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import se.teknikhogskolan.springcasemanagement.model.DailyWorkItemCount;
+import se.teknikhogskolan.springcasemanagement.model.User;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.repository.DailyWorkItemCountRepository;
+import se.teknikhogskolan.springcasemanagement.service.exception.DatabaseException;
+import se.teknikhogskolan.springcasemanagement.service.exception.NotAllowedException;
+
+import static se.teknikhogskolan.springcasemanagement.model.WorkItem.Status.DONE;
+import static se.teknikhogskolan.springcasemanagement.model.WorkItem.Status.UNSTARTED;
+
+/**
+ * Work item throughput per day, team and status, from counts kept up to date by {@link WorkItemService} instead of
+ * counting work items.
+ *
+ * A count is how many work items entered the status on the day. Work items are created without a user, so creations
+ * count as UNSTARTED for {@link DailyWorkItemCount#noTeam}. DONE counts are by completion date and are taken back when
+ * a work item is reopened, completed again or removed, so they match {@link WorkItemService#getCompletedWorkItems}.
+ * They are taken back from the team the work item was completed under, kept on the work item, even if the work item
+ * or its user has moved since. Other counts are history and are never taken back.
+ *
+ * Counts are written after the change they count commits, in a transaction of their own, so a change that rolls back
+ * or is retried is not counted. Changes made without {@link WorkItemService} or {@link UserService#inactivate} are
+ * not counted. A count that cannot be written is logged and left off by its change, see {@link #getFailedWrites()},
+ * as the change it counts has already committed.
+ */
+@Service
+public class StatisticsService {
+
+    private static final Logger log = Logger.getLogger(StatisticsService.class.getName());
+
+    private final LongAdder failedWrites = new LongAdder();
+    private final DailyWorkItemCountRepository countRepository;
+    private final TransactionTemplate newTransaction;
+
+    @Autowired
+    public StatisticsService(DailyWorkItemCountRepository countRepository,
+            PlatformTransactionManager transactionManager) {
+        this.countRepository = countRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** Work items done per team and day, the last {@code days} days including today, oldest first. */
+    public List<DailyWorkItemCount> getCompletedPerTeamPerDay(int days) {
+        if (days < 1) throw new NotAllowedException(String.format("Days must be at least 1, was %d.", days));
+        LocalDate today = LocalDate.now();
+        return getDailyCounts(DONE, today.minusDays(days - 1), today);
+    }
+
+    /** Both dates included, oldest first and then by team id. Days and teams without work items are left out. */
+    public List<DailyWorkItemCount> getDailyCounts(WorkItem.Status status, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) throw new NotAllowedException(String.format(
+                "Date range cannot start '%s' after it ends '%s'.", from, to));
+        try {
+            List<DailyWorkItemCount> counts = countRepository.findByStatusBetween(status, from, to);
+            return null == counts ? new ArrayList<>() : counts;
+        } catch (DataAccessException e) {
+            throw new DatabaseException(String.format("Cannot get daily counts of Status '%s' between '%s' and '%s'.",
+                    status, from, to), e);
+        }
+    }
+
+    /** @return changes to daily counts that could not be written since startup, each leaving a count off */
+    public long getFailedWrites() {
+        return failedWrites.sum();
+    }
+
+    void created(WorkItem workItem) {
+        LocalDate created = null == workItem.getCreated() ? LocalDate.now() : workItem.getCreated();
+        add(UNSTARTED, created, teamIdOf(workItem), 1);
+    }
+
+    /** @param before status, completion date and completion team the work item had when it was read */
+    void statusChanged(WorkItem workItem, WorkItem.Status before, LocalDate completedBefore,
+            Long completionTeamBefore) {
+        WorkItem.Status after = workItem.getStatus();
+        if (after == before && after != DONE) return;
+        Long teamId = teamIdOf(workItem);
+        if (DONE == before && null != completedBefore) {
+            add(DONE, completedBefore, null == completionTeamBefore ? teamId : completionTeamBefore, -1);
+        }
+        if (DONE == after) add(DONE, workItem.getCompletionDate(), completionTeamIdOf(workItem), 1);
+        else add(after, LocalDate.now(), teamId, 1);
+    }
+
+    void removed(WorkItem workItem) {
+        if (DONE == workItem.getStatus() && null != workItem.getCompletionDate()) {
+            add(DONE, workItem.getCompletionDate(), completionTeamIdOf(workItem), -1);
+        }
+    }
+
+    /** @return team of the work item's user, or {@link DailyWorkItemCount#noTeam} */
+    static Long teamIdOf(WorkItem workItem) {
+        User user = workItem.getUser();
+        return null == user || null == user.getTeam() ? DailyWorkItemCount.noTeam : user.getTeam().getId();
+    }
+
+    /* Work items completed without WorkItemService have no completion team, and count under their current team. */
+    private static Long completionTeamIdOf(WorkItem workItem) {
+        return null == workItem.getCompletionTeamId() ? teamIdOf(workItem) : workItem.getCompletionTeamId();
+    }
+
+    /* Collected per transaction and written when it commits, or right away outside a transaction. */
+    private void add(WorkItem.Status status, LocalDate day, Long teamId, long delta) {
+        DailyWorkItemCount.Key key = new DailyWorkItemCount.Key(status, day, teamId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(key, delta);
+            return;
+        }
+        PendingCounts pending = (PendingCounts) TransactionSynchronizationManager.getResource(this);
+        if (null == pending) {
+            pending = new PendingCounts();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.deltas.merge(key, delta, Long::sum);
+    }
+
+    /* A count that is missing is inserted, and if another transaction inserted it first, added to instead. */
+    private void write(DailyWorkItemCount.Key key, long delta) {
+        if (0 == delta) return;
+        try {
+            try {
+                newTransaction.execute(status -> {
+                    if (0 == countRepository.add(key.getStatus(), key.getCountDate(), key.getTeamId(), delta)) {
+                        countRepository.save(new DailyWorkItemCount(key.getStatus(), key.getCountDate(),
+                                key.getTeamId(), delta));
+                    }
+                    return null;
+                });
+            } catch (DataIntegrityViolationException e) {
+                newTransaction.execute(status -> countRepository.add(key.getStatus(), key.getCountDate(),
+                        key.getTeamId(), delta));
+            }
+        } catch (DataAccessException | TransactionException e) {
+            failedWrites.increment();
+            log.log(Level.WARNING, String.format("Cannot add %d to daily count %s.", delta, key), e);
+        }
+    }
+
+    private final class PendingCounts extends TransactionSynchronizationAdapter {
+        private final Map<DailyWorkItemCount.Key, Long> deltas = new LinkedHashMap<>();
+
+        @Override
+        public void afterCommit() {
+            deltas.forEach(StatisticsService.this::write);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(StatisticsService.this);
+        }
+    }
+}
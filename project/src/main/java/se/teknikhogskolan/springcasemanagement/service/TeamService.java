@@ -1,9 +1,11 @@
 package se.teknikhogskolan.springcasemanagement.service;
 
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import se.teknikhogskolan.springcasemanagement.model.Team;
 import se.teknikhogskolan.springcasemanagement.model.User;
 import se.teknikhogskolan.springcasemanagement.repository.TeamRepository;
@@ -18,11 +20,14 @@ public class TeamService {
 
     private final UserRepository userRepository;
     private final TeamRepository teamRepository;
+    private final TeamWorkloadService workloadService;
 
     @Autowired
-    public TeamService(TeamRepository teamRepository, UserRepository userRepository) {
+    public TeamService(TeamRepository teamRepository, UserRepository userRepository,
+            TeamWorkloadService workloadService) {
         this.teamRepository = teamRepository;
         this.userRepository = userRepository;
+        this.workloadService = workloadService;
     }
 
     public Team create(String teamName) {
@@ -98,21 +103,51 @@ public class TeamService {
         }
     }
 
+    /**
+     * The team is locked while its users are counted and the user is added, so concurrent additions to the same team
+     * cannot both pass the limit check. The locked team is returned, with its users loaded and the added user among
+     * them, as the lock query does not fetch them and they cannot be loaded once the transaction has ended.
+     */
+    @Transactional
     public Team addUserToTeam(Long teamId, Long userId) {
         User user = findUser(userId);
         if (!user.isActive()) throw new NotAllowedException(String.format(
                 "Adding inactive User to Team is not allowed. User with id '%d' is inactive.", userId));
-        Team team = findTeam(teamId);
+        Team team = lockTeam(teamId);
         if (!team.isActive()) throw new NotAllowedException(String.format(
                 "Adding User to inactive Team is not allowed. Team with id '%d' is inactive.", teamId));
 
         int maxAllowedUsersInTeam = 10;
-        if (team.getUsers().size() >= maxAllowedUsersInTeam) throw new MaximumQuantityException(String.format(
+        if (countUsers(teamId) >= maxAllowedUsersInTeam) throw new MaximumQuantityException(String.format(
                 "Team with id '%d' already have max amount of %d allowed Users.", teamId, maxAllowedUsersInTeam));
 
+        workloadService.changed(user);
         user.setTeam(team);
         saveUser(user, String.format("Cannot add User with id '%d' to Team with id '%d'.", userId, teamId));
-        return findTeam(teamId);
+        workloadService.changed(teamId);
+        Hibernate.initialize(team.getUsers());
+        if (!team.getUsers().contains(user)) team.getUsers().add(user);
+        return team;
+    }
+
+    private Team lockTeam(Long teamId) {
+        Team team;
+        try {
+            team = teamRepository.findByIdForUpdate(teamId);
+        } catch (DataAccessException e) {
+            throw new DatabaseException(String.format("Cannot find Team with id '%d'.", teamId), e);
+        }
+        if (null == team) throw new NotFoundException(String.format("Team with id '%d' do not exist.", teamId))
+                .setMissingEntity(Team.class);
+        return team;
+    }
+
+    private long countUsers(Long teamId) {
+        try {
+            return userRepository.countByTeamId(teamId);
+        } catch (DataAccessException e) {
+            throw new DatabaseException(String.format("Cannot count Users in Team with id '%d'.", teamId), e);
+        }
     }
 
     private User findUser(Long userId) {
@@ -138,6 +173,7 @@ public class TeamService {
         user.setTeam(null);
         String exceptionMessage = String.format("Cannot remove User with id '%d' from Team with id '%d'.", userId, teamId);
         saveUser(user, exceptionMessage);
+        workloadService.changed(teamId);
         return findTeam(teamId);
     }
 
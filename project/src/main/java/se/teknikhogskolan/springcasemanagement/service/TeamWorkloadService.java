@@ -0,0 +1,169 @@
+package se.teknikhogskolan.springcasemanagement.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import se.teknikhogskolan.springcasemanagement.model.Team;
+import se.teknikhogskolan.springcasemanagement.model.TeamWorkload;
+import se.teknikhogskolan.springcasemanagement.model.User;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.repository.TeamRepository;
+import se.teknikhogskolan.springcasemanagement.repository.TeamWorkloadRepository;
+import se.teknikhogskolan.springcasemanagement.repository.WorkItemRepository;
+import se.teknikhogskolan.springcasemanagement.service.exception.DatabaseException;
+import se.teknikhogskolan.springcasemanagement.service.exception.NotFoundException;
+
+/**
+ * Team workloads for dashboards, read by primary key without joining work items and users.
+ *
+ * {@link WorkItemService}, {@link UserService} and {@link TeamService} tell which teams their changes touch. Those
+ * teams' workloads are worked out again from their work items after the change commits, one transaction per team,
+ * with the workload row locked so the last one to finish has seen every committed change. Changes made without the
+ * services are only seen after {@link #refresh(Long)}. A workload that cannot be worked out after a change is logged
+ * and stays as it was until the team changes again or is refreshed, see {@link #getFailedRefreshes()}.
+ */
+@Service
+public class TeamWorkloadService {
+
+    private static final Logger log = Logger.getLogger(TeamWorkloadService.class.getName());
+
+    private final LongAdder failedRefreshes = new LongAdder();
+    private final TeamWorkloadRepository workloadRepository;
+    private final WorkItemRepository workItemRepository;
+    private final TeamRepository teamRepository;
+    private final TransactionTemplate newTransaction;
+
+    @Autowired
+    public TeamWorkloadService(TeamWorkloadRepository workloadRepository, WorkItemRepository workItemRepository,
+            TeamRepository teamRepository, PlatformTransactionManager transactionManager) {
+        this.workloadRepository = workloadRepository;
+        this.workItemRepository = workItemRepository;
+        this.teamRepository = teamRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** A team whose users have no work items has an empty workload. */
+    public TeamWorkload getByTeamId(Long teamId) {
+        TeamWorkload workload;
+        try {
+            workload = workloadRepository.findOne(teamId);
+            if (null == workload && !teamRepository.exists(teamId)) throw new NotFoundException(String.format(
+                    "Team with id '%d' do not exist.", teamId)).setMissingEntity(Team.class);
+        } catch (DataAccessException e) {
+            throw new DatabaseException(String.format("Cannot get TeamWorkload of Team with id '%d'.", teamId), e);
+        }
+        return null == workload ? new TeamWorkload(teamId) : workload;
+    }
+
+    /** Teams whose users never had work items are left out. */
+    public List<TeamWorkload> getAll() {
+        try {
+            List<TeamWorkload> workloads = new ArrayList<>();
+            workloadRepository.findAll().forEach(workloads::add);
+            return workloads;
+        } catch (DataAccessException e) {
+            throw new DatabaseException("Cannot get all TeamWorkloads.", e);
+        }
+    }
+
+    /** Works out the team's workload from its work items and saves it. */
+    public TeamWorkload refresh(Long teamId) {
+        try {
+            try {
+                return newTransaction.execute(status -> workOut(teamId));
+            } catch (DataIntegrityViolationException e) {
+                return newTransaction.execute(status -> workOut(teamId)); // Inserted by another transaction first
+            }
+        } catch (DataAccessException e) {
+            throw new DatabaseException(String.format("Cannot refresh TeamWorkload of Team with id '%d'.", teamId), e);
+        }
+    }
+
+    /** @return workloads that could not be worked out after a change since startup, each left out of date */
+    public long getFailedRefreshes() {
+        return failedRefreshes.sum();
+    }
+
+    private TeamWorkload workOut(Long teamId) {
+        TeamWorkload workload = workloadRepository.findByTeamIdForUpdate(teamId);
+        if (null == workload) workload = new TeamWorkload(teamId);
+        for (WorkItem.Status status : WorkItem.Status.values()) {
+            workload.setCount(status, 0);
+        }
+        for (Object[] row : workItemRepository.countByStatusInTeam(teamId)) {
+            workload.setCount((WorkItem.Status) row[0], (Long) row[1]);
+        }
+        List<Object[]> open = workItemRepository.findOpenByTeamIdOldestFirst(teamId, new PageRequest(0, 1));
+        Object[] oldest = open.isEmpty() ? new Object[2] : open.get(0);
+        workload.setOldestOpen((Long) oldest[0], (LocalDate) oldest[1]);
+        return workloadRepository.save(workload);
+    }
+
+    void changed(WorkItem workItem) {
+        if (null != workItem) changed(workItem.getUser());
+    }
+
+    void changed(User user) {
+        if (null != user && null != user.getTeam()) changed(user.getTeam().getId());
+    }
+
+    /* Collected per transaction and refreshed when it commits, or right away outside a transaction. */
+    void changed(Long teamId) {
+        if (null == teamId) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refreshChanged(teamId);
+            return;
+        }
+        ChangedTeams changed = (ChangedTeams) TransactionSynchronizationManager.getResource(this);
+        if (null == changed) {
+            changed = new ChangedTeams();
+            TransactionSynchronizationManager.bindResource(this, changed);
+            TransactionSynchronizationManager.registerSynchronization(changed);
+        }
+        changed.teamIds.add(teamId);
+    }
+
+    /* The change has committed already, so failing to refresh it is not the caller's failure. */
+    private void refreshChanged(Long teamId) {
+        try {
+            refresh(teamId);
+        } catch (DatabaseException | TransactionException e) {
+            failedRefreshes.increment();
+            log.log(Level.WARNING, String.format("Cannot refresh TeamWorkload of Team with id '%d' after a change.",
+                    teamId), e);
+        }
+    }
+
+    private final class ChangedTeams extends TransactionSynchronizationAdapter {
+        private final Set<Long> teamIds = new LinkedHashSet<>();
+
+        @Override
+        public void afterCommit() {
+            teamIds.forEach(TeamWorkloadService.this::refreshChanged);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TeamWorkloadService.this);
+        }
+    }
+}
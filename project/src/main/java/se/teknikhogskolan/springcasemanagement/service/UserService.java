@@ -4,27 +4,48 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import se.teknikhogskolan.springcasemanagement.config.JpaConfig;
 import se.teknikhogskolan.springcasemanagement.model.User;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
 import se.teknikhogskolan.springcasemanagement.model.WorkItem.Status;
 import se.teknikhogskolan.springcasemanagement.repository.UserRepository;
+import se.teknikhogskolan.springcasemanagement.repository.UserSummary;
+import se.teknikhogskolan.springcasemanagement.service.cache.ApproximateCountCache;
 import se.teknikhogskolan.springcasemanagement.service.exception.DatabaseException;
 import se.teknikhogskolan.springcasemanagement.service.exception.NotAllowedException;
 import se.teknikhogskolan.springcasemanagement.service.exception.NotFoundException;
+import se.teknikhogskolan.springcasemanagement.service.search.SearchIndex;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.Chunk;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.ContinuationToken;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.Piece;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
+    private final ApproximateCountCache countCache;
+    private final SearchIndex searchIndex;
+    private final TeamWorkloadService workloadService;
+    private final StatisticsService statisticsService;
     private final int minimumUsernameLength = 10;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, ApproximateCountCache countCache, SearchIndex searchIndex,
+            TeamWorkloadService workloadService, StatisticsService statisticsService) {
         this.userRepository = userRepository;
+        this.countCache = countCache;
+        this.searchIndex = searchIndex;
+        this.workloadService = workloadService;
+        this.statisticsService = statisticsService;
     }
 
     public User create(Long userNumber, String username, String firstName, String lastName) {
@@ -109,10 +130,23 @@ public class UserService {
 
     public User inactivate(Long userNumber) {
         User user = getByUserNumber(userNumber);
+        List<Runnable> statusChanges = new ArrayList<>();
         if (null != user.getWorkItems()) {
-            user.getWorkItems().forEach(workItem -> workItem.setStatus(Status.UNSTARTED));
+            for (WorkItem workItem : user.getWorkItems()) {
+                Status before = workItem.getStatus();
+                LocalDate completedBefore = workItem.getCompletionDate();
+                Long completionTeamBefore = workItem.getCompletionTeamId();
+                workItem.setStatus(Status.UNSTARTED);
+                statusChanges.add(() -> statisticsService.statusChanged(workItem, before, completedBefore,
+                        completionTeamBefore));
+            }
         }
-        return saveUser(user.setActive(false), String.format("Cannot inactivate User with usernumber '%d'.", userNumber));
+        User inactivated = saveUser(user.setActive(false),
+                String.format("Cannot inactivate User with usernumber '%d'.", userNumber));
+        // Counted once saved, as outside a transaction the counts are written right away
+        statusChanges.forEach(Runnable::run);
+        workloadService.changed(inactivated);
+        return inactivated;
     }
 
     public List<User> getAllByTeamId(Long teamId) {
@@ -124,8 +158,13 @@ public class UserService {
         }
     }
 
+    /**
+     * Served from the {@link SearchIndex} when it is enabled, best match first and ignoring case. Otherwise the
+     * database is searched, in no particular order.
+     */
     public List<User> search(String firstName, String lastName, String username) {
         try {
+            if (searchIndex.isEnabled()) return findRanked(searchIndex.searchUsers(firstName, lastName, username));
             List<User> users = userRepository.searchUsers(firstName, lastName, username);
             return (null == users) ? new ArrayList<>() : users;
         } catch (DataAccessException e) {
@@ -134,6 +173,59 @@ public class UserService {
         }
     }
 
+    private List<User> findRanked(List<Long> ids) {
+        List<User> users = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += JpaConfig.batchSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + JpaConfig.batchSize, ids.size()));
+            Map<Long, User> found = new HashMap<>();
+            userRepository.findAll(chunk).forEach(user -> found.put(user.getId(), user));
+            chunk.stream().map(found::get).filter(user -> null != user).forEach(users::add);
+        }
+        return users;
+    }
+
+    /** Like {@link #search(String, String, String)}, but only id, user number and username. */
+    public List<UserSummary> searchSummaries(String firstName, String lastName, String username) {
+        try {
+            List<UserSummary> users = userRepository.searchUserSummaries(firstName, lastName, username);
+            return (null == users) ? new ArrayList<>() : users;
+        } catch (DataAccessException e) {
+            throw new DatabaseException(String.format("Cannot get User summaries by criteria: first name = %s, last name = %s, username = %s.",
+                    firstName, lastName, username), e);
+        }
+    }
+
+    public Piece<User> getAllByPiece(int pageNumber, int pageSize) {
+        return getAllByPiece(pageNumber, pageSize, false);
+    }
+
+    /**
+     * @param approximateTotal serve the total from a count that is refreshed in the background instead of counting,
+     * it can be a minute behind
+     */
+    public Piece<User> getAllByPiece(int pageNumber, int pageSize, boolean approximateTotal) {
+        Slice<User> slice;
+        try {
+            slice = userRepository.findSlice(new PageRequest(pageNumber, pageSize));
+        } catch (DataAccessException e) {
+            throw new DatabaseException(String.format("Cannot get Users by piece. Request was 'page %d, size %d'.",
+                    pageNumber, pageSize), e);
+        }
+        if (null == slice) return null;
+        LongSupplier counter = approximateTotal
+                ? () -> countCache.get(User.class, userRepository::count)
+                : userRepository::count;
+        return new Piece<>(slice, () -> countUsers(counter));
+    }
+
+    private long countUsers(LongSupplier counter) {
+        try {
+            return counter.getAsLong();
+        } catch (DataAccessException e) {
+            throw new DatabaseException("Cannot count Users.", e);
+        }
+    }
+
     public Page<User> getAllByPage(int pageNumber, int pageSize) {
         try {
             return userRepository.findAll(new PageRequest(pageNumber, pageSize));
@@ -143,6 +235,15 @@ public class UserService {
         }
     }
 
+    /** First chunk of a keyset paginated listing, continue with {@link #getNextChunk(String, int)}. */
+    public Chunk<User> getFirstChunk(int size, ContinuationToken.Order order) {
+        return Chunk.first(userRepository, size, order, "Users");
+    }
+
+    public Chunk<User> getNextChunk(String continuationToken, int size) {
+        return Chunk.next(userRepository, continuationToken, size, "Users");
+    }
+
     public List<User> getByCreationDate(LocalDate startDate, LocalDate endDate) {
         try {
             List<User> users = userRepository.findByCreationDate(startDate, endDate);
@@ -3,44 +3,146 @@ package se.teknikhogskolan.springcasemanagement.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.domain.Specifications;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import se.teknikhogskolan.springcasemanagement.config.JpaConfig;
 import se.teknikhogskolan.springcasemanagement.model.Issue;
 import se.teknikhogskolan.springcasemanagement.model.User;
 import se.teknikhogskolan.springcasemanagement.model.WorkItem;
 import se.teknikhogskolan.springcasemanagement.repository.IssueRepository;
 import se.teknikhogskolan.springcasemanagement.repository.UserRepository;
+import se.teknikhogskolan.springcasemanagement.repository.WorkItemRecord;
 import se.teknikhogskolan.springcasemanagement.repository.WorkItemRepository;
+import se.teknikhogskolan.springcasemanagement.repository.WorkItemSummary;
+import se.teknikhogskolan.springcasemanagement.service.cache.ApproximateCountCache;
 import se.teknikhogskolan.springcasemanagement.service.exception.*;
+import se.teknikhogskolan.springcasemanagement.service.retry.ConflictRetrier;
+import se.teknikhogskolan.springcasemanagement.service.search.SearchIndex;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.BatchResult;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.Chunk;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.ContinuationToken;
 import se.teknikhogskolan.springcasemanagement.service.wrapper.Piece;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.WorkItemCriteria;
 
+import javax.persistence.PersistenceException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
 
 import static se.teknikhogskolan.springcasemanagement.model.WorkItem.Status.DONE;
 import static se.teknikhogskolan.springcasemanagement.model.WorkItem.Status.UNSTARTED;
+import static org.springframework.data.jpa.domain.Specifications.where;
+import static se.teknikhogskolan.springcasemanagement.repository.WorkItemSpecifications.*;
 
 @Service
 public class WorkItemService {
 
+    /** Rows read per round trip when exporting, enough to keep the database busy without holding much in memory. */
+    public static final int defaultExportFetchSize = 500;
+
     private final WorkItemRepository workItemRepository;
     private final UserRepository userRepository;
     private final IssueRepository issueRepository;
+    private final ApproximateCountCache countCache;
+    private final SearchIndex searchIndex;
+    private final ConflictRetrier conflictRetrier;
+    private final StatisticsService statisticsService;
+    private final TeamWorkloadService workloadService;
 
     @Autowired
     public WorkItemService(WorkItemRepository workItemRepository, UserRepository userRepository,
-            IssueRepository issueRepository) {
+            IssueRepository issueRepository, ApproximateCountCache countCache, SearchIndex searchIndex,
+            ConflictRetrier conflictRetrier, StatisticsService statisticsService, TeamWorkloadService workloadService) {
         this.workItemRepository = workItemRepository;
         this.userRepository = userRepository;
         this.issueRepository = issueRepository;
+        this.countCache = countCache;
+        this.searchIndex = searchIndex;
+        this.conflictRetrier = conflictRetrier;
+        this.statisticsService = statisticsService;
+        this.workloadService = workloadService;
     }
 
     public WorkItem create(String description) {
-        return saveWorkItem(new WorkItem(description));
+        WorkItem workItem = saveWorkItem(new WorkItem(description));
+        statisticsService.created(workItem);
+        return workItem;
+    }
+
+    /**
+     * Creates all work items in one transaction with batched inserts. Descriptions that already exist, are repeated
+     * or are null are rejected row by row, the rest are created.
+     */
+    @Transactional
+    public BatchResult<WorkItem> createAll(List<String> descriptions) {
+        BatchResult<WorkItem> result = new BatchResult<>();
+        Set<String> seen = new HashSet<>();
+        for (int from = 0; from < descriptions.size(); from += JpaConfig.batchSize) {
+            List<String> chunk = descriptions.subList(from, Math.min(from + JpaConfig.batchSize, descriptions.size()));
+            Set<String> existing = new HashSet<>(findExistingDescriptions(chunk));
+
+            List<WorkItem> toCreate = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                String description = chunk.get(i);
+                if (null == description) {
+                    result.reject(from + i, null, new NotAllowedException("WorkItem description cannot be null."));
+                } else if (existing.contains(description) || !seen.add(description)) {
+                    result.reject(from + i, description, new NotAllowedException(String.format(
+                            "WorkItem with description '%s' already exist.", description)));
+                } else {
+                    toCreate.add(new WorkItem(description));
+                }
+            }
+            List<WorkItem> created = saveWorkItems(toCreate);
+            created.forEach(statisticsService::created);
+            result.acceptAll(created);
+        }
+        return result;
+    }
+
+    private List<String> findExistingDescriptions(List<String> descriptions) {
+        try {
+            return workItemRepository.findExistingDescriptions(descriptions);
+        } catch (DataAccessException e) {
+            throw new DatabaseException("Cannot check WorkItem descriptions.", e);
+        }
+    }
+
+    private List<WorkItem> saveWorkItems(List<WorkItem> workItems) {
+        if (workItems.isEmpty()) return workItems;
+        try {
+            return workItemRepository.saveInBatches(workItems);
+        } catch (DataIntegrityViolationException e) {
+            throw new NotAllowedException(String.format(
+                    "Cannot save %d WorkItems, a description was taken while saving.", workItems.size()), e);
+        } catch (OptimisticLockingFailureException e) {
+            throw e; // For ConflictRetrier to start over
+        } catch (DataAccessException e) {
+            throw new DatabaseException(String.format("Cannot save %d WorkItems.", workItems.size()), e);
+        }
     }
 
     public boolean exists(Long workItemId) {
@@ -54,6 +156,8 @@ public class WorkItemService {
             throw new NotAllowedException(String.format(
                     "WorkItem with description '%s' already exist.",
                     workItem.getDescription(), e));
+        } catch (OptimisticLockingFailureException e) {
+            throw e; // For ConflictRetrier to start over
         } catch (DataAccessException e) {
             throw new DatabaseException(
                     String.format("Cannot save WorkItem with description '%s'.", workItem.getDescription(), e));
@@ -87,8 +191,34 @@ public class WorkItemService {
     }
 
     public Piece<WorkItem> getAllByPiece(int pageNumber, int pageSize) {
-        Page page = getAllByPage(pageNumber, pageSize);
-        return (null == page) ? null : new Piece<>(page);
+        return getAllByPiece(pageNumber, pageSize, false);
+    }
+
+    /**
+     * @param approximateTotal serve the total from a count that is refreshed in the background instead of counting,
+     * it can be a minute behind
+     */
+    public Piece<WorkItem> getAllByPiece(int pageNumber, int pageSize, boolean approximateTotal) {
+        Slice<WorkItem> slice;
+        try {
+            slice = workItemRepository.findSlice(new PageRequest(pageNumber, pageSize));
+        } catch (DataAccessException e) {
+            throw new DatabaseException(String.format("Cannot get WorkItems by piece. Request was 'page %d, size %d'.",
+                    pageNumber, pageSize), e);
+        }
+        if (null == slice) return null;
+        LongSupplier counter = approximateTotal
+                ? () -> countCache.get(WorkItem.class, workItemRepository::count)
+                : workItemRepository::count;
+        return new Piece<>(slice, () -> countWorkItems(counter));
+    }
+
+    private long countWorkItems(LongSupplier counter) {
+        try {
+            return counter.getAsLong();
+        } catch (DataAccessException e) {
+            throw new DatabaseException("Cannot count WorkItems.", e);
+        }
     }
 
     public Page<WorkItem> getAllByPage(int pageNumber, int pageSize) {
@@ -100,6 +230,114 @@ public class WorkItemService {
         }
     }
 
+    /** First chunk of a keyset paginated listing, continue with {@link #getNextChunk(String, int)}. */
+    public Chunk<WorkItem> getFirstChunk(int size, ContinuationToken.Order order) {
+        return Chunk.first(workItemRepository, size, order, "WorkItems");
+    }
+
+    public Chunk<WorkItem> getNextChunk(String continuationToken, int size) {
+        return Chunk.next(workItemRepository, continuationToken, size, "WorkItems");
+    }
+
+    /**
+     * First chunk of the work items matching every filter set in the criteria, as one query. Continue with
+     * {@link #searchNext(WorkItemCriteria, String, int)} and the same criteria.
+     */
+    public Chunk<WorkItem> search(WorkItemCriteria criteria, int size, ContinuationToken.Order order) {
+        return findMatchingChunk(criteria, order, null, size);
+    }
+
+    public Chunk<WorkItem> searchNext(WorkItemCriteria criteria, String continuationToken, int size) {
+        ContinuationToken after = ContinuationToken.decode(continuationToken);
+        return findMatchingChunk(criteria, after.getOrder(), after, size);
+    }
+
+    private Chunk<WorkItem> findMatchingChunk(WorkItemCriteria criteria, ContinuationToken.Order order,
+            ContinuationToken after, int size) {
+        int limit = Chunk.pageableFor(size).getPageSize();
+        Specifications<WorkItem> specification = where(toSpecification(criteria));
+        Sort sort;
+        if (ContinuationToken.Order.ID == order) {
+            if (null != after) specification = specification.and(idAfter(after.getId()));
+            sort = new Sort("id");
+        } else {
+            specification = specification.and(null == after ? hasCreated() : createdAfter(after.getCreated(),
+                    after.getId()));
+            sort = new Sort("created", "id");
+        }
+        List<WorkItem> rows;
+        try {
+            rows = workItemRepository.findMatching(specification, sort, limit);
+        } catch (DataAccessException e) {
+            throw new DatabaseException(String.format("Cannot search WorkItems. Request was '%s, size %d, after %s'.",
+                    criteria, size, after), e);
+        }
+        return Chunk.of(null == rows ? new ArrayList<>() : rows, size, order);
+    }
+
+    private Specification<WorkItem> toSpecification(WorkItemCriteria criteria) {
+        if (null == criteria) throw new NotAllowedException("Search criteria cannot be null.");
+        checkRange("Created", criteria.getCreatedFrom(), criteria.getCreatedTo());
+        checkRange("Completed", criteria.getCompletedFrom(), criteria.getCompletedTo());
+        List<Specification<WorkItem>> filters = new ArrayList<>();
+        if (null != criteria.getStatus()) filters.add(hasStatus(criteria.getStatus()));
+        if (null != criteria.getUserId()) filters.add(hasUser(criteria.getUserId()));
+        if (null != criteria.getTeamId()) filters.add(inTeam(criteria.getTeamId()));
+        if (null != criteria.getCreatedFrom()) {
+            filters.add(createdBetween(criteria.getCreatedFrom(), criteria.getCreatedTo()));
+        }
+        if (null != criteria.getCompletedFrom()) {
+            filters.add(completedBetween(criteria.getCompletedFrom(), criteria.getCompletedTo()));
+        }
+        if (null != criteria.getDescriptionContains()) {
+            filters.add(descriptionContains(criteria.getDescriptionContains()));
+        }
+        Specifications<WorkItem> specification = where(null);
+        for (Specification<WorkItem> filter : filters) {
+            specification = specification.and(filter);
+        }
+        return specification;
+    }
+
+    private void checkRange(String name, LocalDate from, LocalDate to) {
+        if ((null == from) != (null == to)) throw new NotAllowedException(String.format(
+                "%s date range needs both a start and an end date.", name));
+        if (null != from && from.isAfter(to)) throw new NotAllowedException(String.format(
+                "%s date range cannot start '%s' after it ends '%s'.", name, from, to));
+    }
+
+    /** Writes every work item to {@code out} with the default fetch size. */
+    @Transactional(readOnly = true)
+    public long export(OutputStream out, ExportFormat format) {
+        return export(out, format, defaultExportFetchSize);
+    }
+
+    /**
+     * Writes every work item to {@code out} in id order as it is read, so memory use does not grow with the number of
+     * work items. The stream is flushed but not closed.
+     *
+     * @return number of work items written
+     */
+    @Transactional(readOnly = true)
+    public long export(OutputStream out, ExportFormat format, int fetchSize) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long rows = 0;
+        try (Stream<WorkItemRecord> records = workItemRepository.streamAll(fetchSize)) {
+            format.writeHeader(writer);
+            Iterator<WorkItemRecord> iterator = records.iterator();
+            while (iterator.hasNext()) {
+                format.write(iterator.next(), writer);
+                rows++;
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new ExportException(String.format("Cannot write WorkItems as %s after %d rows.", format, rows), e);
+        } catch (DataAccessException | PersistenceException e) {
+            throw new DatabaseException(String.format("Cannot export WorkItems as %s after %d rows.", format, rows), e);
+        }
+        return rows;
+    }
+
     public Issue createIssue(String description) {
         try {
             return issueRepository.save(new Issue(description));
@@ -110,7 +348,12 @@ public class WorkItemService {
         }
     }
 
+    /** Retried from the start if the work item is updated concurrently, see {@link ConflictRetrier}. */
     public WorkItem addIssueToWorkItem(Long issueId, Long workItemId) {
+        return conflictRetrier.execute("addIssueToWorkItem", () -> addIssue(issueId, workItemId));
+    }
+
+    private WorkItem addIssue(Long issueId, Long workItemId) {
         WorkItem workItem = getWorkItemById(workItemId);
         if (null != workItem.getIssue()) throw new NotAllowedException(String.format(
                 "WorkItem with id '%d' already have Issue. Remove existing Issue to make place for new Issue.", workItemId));
@@ -187,14 +430,87 @@ public class WorkItemService {
         return executeCollection(workItemRepository -> workItemRepository.findByTeamId(teamId), exceptionMessage);
     }
 
+    /** Like {@link #getByTeamId(Long)}, but only id, description, status and username. */
+    public List<WorkItemSummary> getSummariesByTeamId(Long teamId) {
+        String exceptionMessage = String.format("Cannot get WorkItem summaries by Team id '%d'.", teamId);
+        return executeSummaries(workItemRepository -> workItemRepository.findSummariesByTeamId(teamId),
+                exceptionMessage);
+    }
+
+    private List<WorkItemSummary> executeSummaries(Function<WorkItemRepository, List<WorkItemSummary>> operation,
+            String exceptionMessage) {
+        try {
+            List<WorkItemSummary> summaries = operation.apply(workItemRepository);
+            return (null == summaries) ? new ArrayList<>() : summaries;
+        } catch (DataAccessException e) {
+            throw new DatabaseException(exceptionMessage, e);
+        }
+    }
+
+    /** Retried from the start if the work item is updated concurrently, see {@link ConflictRetrier}. */
     public WorkItem setStatus(Long workItemId, WorkItem.Status status) {
-        WorkItem workItem = getWorkItemById(workItemId);
+        return conflictRetrier.execute("setStatus", () -> {
+            WorkItem workItem = getWorkItemById(workItemId);
+            WorkItem.Status before = workItem.getStatus();
+            LocalDate completedBefore = workItem.getCompletionDate();
+            Long completionTeamBefore = workItem.getCompletionTeamId();
+            WorkItem saved = saveWorkItem(applyStatus(workItem, status));
+            statisticsService.statusChanged(saved, before, completedBefore, completionTeamBefore);
+            workloadService.changed(saved);
+            return saved;
+        });
+    }
+
+    /**
+     * Sets status on all work items in one transaction with batched updates. Ids that do not exist are rejected. Like
+     * {@link #setStatus(Long, WorkItem.Status)} it is retried from the start if any of them is updated concurrently.
+     */
+    public BatchResult<WorkItem> setStatus(List<Long> workItemIds, WorkItem.Status status) {
+        return conflictRetrier.execute("setStatus(List)", () -> {
+            BatchResult<WorkItem> result = new BatchResult<>();
+            for (int from = 0; from < workItemIds.size(); from += JpaConfig.batchSize) {
+                List<Long> chunk = workItemIds.subList(from, Math.min(from + JpaConfig.batchSize,
+                        workItemIds.size()));
+                Map<Long, WorkItem> found = findAllById(chunk);
+
+                List<WorkItem> toUpdate = new ArrayList<>(chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    WorkItem workItem = found.get(chunk.get(i));
+                    if (null == workItem) {
+                        result.reject(from + i, chunk.get(i), new NotFoundException(String.format(
+                                "No WorkItem with id '%d' exist.", chunk.get(i))).setMissingEntity(WorkItem.class));
+                    } else {
+                        WorkItem.Status before = workItem.getStatus();
+                        LocalDate completedBefore = workItem.getCompletionDate();
+                        Long completionTeamBefore = workItem.getCompletionTeamId();
+                        toUpdate.add(applyStatus(workItem, status));
+                        statisticsService.statusChanged(workItem, before, completedBefore, completionTeamBefore);
+                        workloadService.changed(workItem);
+                    }
+                }
+                result.acceptAll(saveWorkItems(toUpdate));
+            }
+            return result;
+        });
+    }
+
+    private Map<Long, WorkItem> findAllById(List<Long> workItemIds) {
+        Map<Long, WorkItem> workItems = new HashMap<>();
+        try {
+            workItemRepository.findAll(workItemIds).forEach(workItem -> workItems.put(workItem.getId(), workItem));
+        } catch (DataAccessException e) {
+            throw new DatabaseException(String.format("Cannot get %d WorkItems by id.", workItemIds.size()), e);
+        }
+        return workItems;
+    }
 
+    private WorkItem applyStatus(WorkItem workItem, WorkItem.Status status) {
         workItem.setStatus(status);
         if (status.equals(DONE)) {
             workItem.setCompletionDate(LocalDate.now());
+            workItem.setCompletionTeamId(StatisticsService.teamIdOf(workItem));
         }
-        return saveWorkItem(workItem);
+        return workItem;
     }
 
     private List<WorkItem> executeList(Function<WorkItemRepository, List<WorkItem>> operation,
@@ -207,8 +523,10 @@ public class WorkItemService {
     }
 
     public WorkItem removeById(Long workItemId) {
-        WorkItem workItem = getWorkItemById(workItemId);
-        return delete(workItem);
+        WorkItem workItem = delete(getWorkItemById(workItemId));
+        statisticsService.removed(workItem);
+        workloadService.changed(workItem);
+        return workItem;
     }
 
     private WorkItem delete(WorkItem workItem) {
@@ -225,6 +543,13 @@ public class WorkItemService {
         return executeCollection(workItemRepository -> workItemRepository.findByStatus(status), exceptionMessage);
     }
 
+    /** Like {@link #getByStatus(WorkItem.Status)}, but only id, description, status and username. */
+    public List<WorkItemSummary> getSummariesByStatus(WorkItem.Status status) {
+        String exceptionMessage = String.format("Cannot get WorkItem summaries by Status '%s'", status);
+        return executeSummaries(workItemRepository -> workItemRepository.findSummariesByStatus(status),
+                exceptionMessage);
+    }
+
     public Collection<WorkItem> getByUsernumber(Long userNumber) {
         User user = getUserByUsernumber(userNumber);
         if (nullOrEmpty(user)){
@@ -234,7 +559,21 @@ public class WorkItemService {
         return executeCollection(workItemRepository -> workItemRepository.findByUserId(user.getId()), exceptionMessage);
     }
 
+    /**
+     * Served from the {@link SearchIndex} when it is enabled, best match first and ignoring case. Otherwise the
+     * database is searched, in no particular order.
+     */
     public Collection<WorkItem> getByDescriptionContains(String text) {
+        if (searchIndex.isEnabled()) {
+            List<Long> ids = searchIndex.searchWorkItems(text);
+            List<WorkItem> workItems = new ArrayList<>(ids.size());
+            for (int from = 0; from < ids.size(); from += JpaConfig.batchSize) {
+                List<Long> chunk = ids.subList(from, Math.min(from + JpaConfig.batchSize, ids.size()));
+                Map<Long, WorkItem> found = findAllById(chunk);
+                chunk.stream().map(found::get).filter(workItem -> null != workItem).forEach(workItems::add);
+            }
+            return workItems;
+        }
         String exceptionMessage = String.format("Cannot get WorkItems by description contains '%s'", text);
         return executeCollection(workItemRepository -> workItemRepository.findByDescriptionContains(text), exceptionMessage);
     }
@@ -252,10 +591,19 @@ public class WorkItemService {
         return false;
     }
 
+    /**
+     * The user is locked while their work items are counted and the work item is assigned, so concurrent assignments
+     * to the same user cannot both pass the limit check. Retried from the start if the work item is updated
+     * concurrently, see {@link ConflictRetrier}.
+     */
     public WorkItem setUser(Long userNumber, Long workItemId) {
+        return conflictRetrier.execute("setUser", () -> assignUser(userNumber, workItemId));
+    }
+
+    private WorkItem assignUser(Long userNumber, Long workItemId) {
         WorkItem workItem = getWorkItemById(workItemId);
 
-        User user = getUserByUsernumber(userNumber);
+        User user = lockUserByUsernumber(userNumber);
         if (nullOrEmpty(user)) throw new NotFoundException(String.format("No User with usernumber '%d'.", userNumber))
                 .setMissingEntity(User.class);
         if (notActive(user)) throw new NotAllowedException(String.format("User with usernumber '%d' is inactive. Only active User can be assigned to WorkItem", userNumber));
@@ -263,7 +611,9 @@ public class WorkItemService {
         if (userReachedWorkItemLimit(user, maxAllowedWorkItemsPerUser)) throw new MaximumQuantityException(
                 String.format("User already have max amount of %d WorkItems allowed per User.", maxAllowedWorkItemsPerUser));
 
+        workloadService.changed(workItem);
         workItem.setUser(user);
+        workloadService.changed(workItem);
         return saveWorkItem(workItem);
     }
 
@@ -275,15 +625,23 @@ public class WorkItemService {
         }
     }
 
+    private User lockUserByUsernumber(Long userNumber) {
+        try {
+            return userRepository.findByUserNumberForUpdate(userNumber);
+        } catch (DataAccessException e) {
+            throw new DatabaseException(String.format("Cannot get User by userNumber '%d'", userNumber), e);
+        }
+    }
+
     private boolean notActive(User user) {
         return !user.isActive();
     }
 
     private boolean userReachedWorkItemLimit(User user, int maxAllowedWorkItemsPerUser) {
-        Collection<WorkItem> workItemsToThisUser = workItemRepository.findByUserId(user.getId());
-        if (null == workItemsToThisUser || workItemsToThisUser.size() < maxAllowedWorkItemsPerUser){
-            return false;
+        try {
+            return workItemRepository.countByUserId(user.getId()) >= maxAllowedWorkItemsPerUser;
+        } catch (DataAccessException e) {
+            throw new DatabaseException(String.format("Cannot count WorkItems of User with id '%d'.", user.getId()), e);
         }
-        return true;
     }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package se.teknikhogskolan.springcasemanagement.service.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Row counts that are allowed to lag behind, for totals on list screens. A count is taken the first time it is asked
+ * for and then refreshed in the background, so asking for it never waits on a count query again. The first count
+ * runs outside the map's locks, so two callers may both count once, but neither holds up callers of other entities.
+ */
+@Component
+public class ApproximateCountCache {
+
+    private static final Logger log = Logger.getLogger(ApproximateCountCache.class.getName());
+    private static final long refreshIntervalMillis = 60 * 1000L;
+
+    private final Map<Class<?>, Count> counts = new ConcurrentHashMap<>();
+
+    public long get(Class<?> entity, LongSupplier counter) {
+        Count count = counts.get(entity);
+        if (null != count) return count.value;
+
+        Count counted = new Count(counter, counter.getAsLong());
+        Count previous = counts.putIfAbsent(entity, counted);
+        return null == previous ? counted.value : previous.value;
+    }
+
+    /** A count that cannot be refreshed keeps its last value until the next refresh. */
+    @Scheduled(initialDelay = refreshIntervalMillis, fixedDelay = refreshIntervalMillis)
+    public void refresh() {
+        counts.forEach((entity, count) -> {
+            try {
+                count.refresh();
+            } catch (DataAccessException e) {
+                log.log(Level.WARNING, String.format("Cannot refresh count of %s, keeping %d.",
+                        entity.getSimpleName(), count.value), e);
+            }
+        });
+    }
+
+    public void invalidate(Class<?> entity) {
+        counts.remove(entity);
+    }
+
+    private static final class Count {
+        private final LongSupplier counter;
+        private volatile long value;
+
+        private Count(LongSupplier counter, long value) {
+            this.counter = counter;
+            this.value = value;
+        }
+
+        private void refresh() {
+            value = counter.getAsLong();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package se.teknikhogskolan.springcasemanagement.service.cache;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded, least recently used cache of verified tokens and their expiration. An entry is only served while both the
+ * token itself and the entry's time to live are unexpired, after that the caller has to go to the database again.
+ */
+@Component
+public class TokenCache {
+
+    public static final int defaultMaximumSize = 10000;
+    public static final Duration defaultTimeToLive = Duration.ofMinutes(5);
+
+    private final int maximumSize;
+    private final Duration timeToLive;
+    private final Map<String, Entry> entries;
+
+    public TokenCache() {
+        this(defaultMaximumSize, defaultTimeToLive);
+    }
+
+    public TokenCache(int maximumSize, Duration timeToLive) {
+        if (maximumSize < 1) throw new IllegalArgumentException("Maximum size must be positive");
+        if (null == timeToLive || timeToLive.isNegative()) throw new IllegalArgumentException(
+                "Time to live must not be negative");
+        this.maximumSize = maximumSize;
+        this.timeToLive = timeToLive;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > TokenCache.this.maximumSize;
+            }
+        };
+    }
+
+    /** @return expiration of token, or null if token is not cached or no longer valid */
+    public synchronized LocalDateTime get(String token) {
+        Entry entry = entries.get(token);
+        if (null == entry) return null;
+        LocalDateTime now = LocalDateTime.now();
+        if (entry.isStale(now)) {
+            entries.remove(token);
+            return null;
+        }
+        return entry.expiration;
+    }
+
+    public synchronized void put(String token, Long userId, LocalDateTime expiration) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!now.isBefore(expiration)) {
+            entries.remove(token);
+            return;
+        }
+        entries.put(token, new Entry(userId, expiration, now.plus(timeToLive)));
+    }
+
+    public synchronized void invalidate(String token) {
+        entries.remove(token);
+    }
+
+    public synchronized void invalidateUser(Long userId) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().userId.equals(userId)) iterator.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    private static final class Entry {
+        private final Long userId;
+        private final LocalDateTime expiration;
+        private final LocalDateTime evictAt;
+
+        private Entry(Long userId, LocalDateTime expiration, LocalDateTime evictAt) {
+            this.userId = userId;
+            this.expiration = expiration;
+            this.evictAt = evictAt;
+        }
+
+        private boolean isStale(LocalDateTime now) {
+            return !now.isBefore(expiration) || !now.isBefore(evictAt);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package se.teknikhogskolan.springcasemanagement.service.exception;
+
+/** Thrown when an update kept losing to concurrent updates of the same rows and was given up. */
+public final class ConflictException extends ServiceException {
+
+    private static final long serialVersionUID = 6014383517762294138L;
+
+    public ConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ConflictException(String message) {
+        super(message);
+    }
+
+    public ConflictException() {
+    }
+}
@@ -0,0 +1,18 @@
+package se.teknikhogskolan.springcasemanagement.service.exception;
+
+public final class ExportException extends ServiceException {
+
+    private static final long serialVersionUID = 7102864219473601582L;
+
+    public ExportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ExportException(String message) {
+        super(message);
+    }
+
+    public ExportException() {
+        super();
+    }
+}
@@ -0,0 +1,18 @@
+package se.teknikhogskolan.springcasemanagement.service.exception;
+
+public final class OverloadedException extends ServiceException {
+
+    private static final long serialVersionUID = 4395310528473928561L;
+
+    public OverloadedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public OverloadedException(String message) {
+        super(message);
+    }
+
+    public OverloadedException() {
+        super();
+    }
+}
@@ -0,0 +1,92 @@
+package se.teknikhogskolan.springcasemanagement.service.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Calls, exceptions, statements and latency of one service method at the time the snapshot was taken. Latencies are
+ * in microseconds, at three significant digits. The getters are what JMX shows of it.
+ */
+public final class OperationSnapshot {
+
+    private final String operation;
+    private final Histogram latencies;
+    private final Map<String, Long> exceptions;
+    private final long statements;
+    private final long maxStatements;
+
+    OperationSnapshot(String operation, Histogram latencies, Map<String, Long> exceptions, long statements,
+            long maxStatements) {
+        this.operation = operation;
+        this.latencies = latencies;
+        this.exceptions = Collections.unmodifiableMap(new TreeMap<>(exceptions));
+        this.statements = statements;
+        this.maxStatements = maxStatements;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    /** @return calls that returned or threw */
+    public long getCalls() {
+        return latencies.getTotalCount();
+    }
+
+    public long getFailures() {
+        return exceptions.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /** @return calls that threw, by simple name of the exception, like DatabaseException */
+    public Map<String, Long> getExceptions() {
+        return exceptions;
+    }
+
+    /** @return JDBC statements executed by all calls */
+    public long getStatements() {
+        return statements;
+    }
+
+    /** @return most JDBC statements executed by a single call */
+    public long getMaxStatements() {
+        return maxStatements;
+    }
+
+    public double getMeanMicros() {
+        return latencies.getMean() / 1000;
+    }
+
+    public double getMedianMicros() {
+        return getLatencyMicros(50);
+    }
+
+    public double getP90Micros() {
+        return getLatencyMicros(90);
+    }
+
+    public double getP99Micros() {
+        return getLatencyMicros(99);
+    }
+
+    public double getP999Micros() {
+        return getLatencyMicros(99.9);
+    }
+
+    public double getMaxMicros() {
+        return latencies.getMaxValue() / 1000.0;
+    }
+
+    /** @param percentile between 0 and 100 */
+    public double getLatencyMicros(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d calls, %d failures, %d statements, mean %.1f µs, p99 %.1f µs, max %.1f µs",
+                operation, getCalls(), getFailures(), statements, getMeanMicros(), getP99Micros(), getMaxMicros());
+    }
+}
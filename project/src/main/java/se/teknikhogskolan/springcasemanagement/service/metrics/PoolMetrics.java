@@ -0,0 +1,112 @@
+package se.teknikhogskolan.springcasemanagement.service.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.metrics.MetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.stereotype.Component;
+
+/**
+ * Connections in use, idle and waited for, how long getting and holding a connection takes, and how often getting one
+ * timed out, per connection pool {@link #track(HikariConfig) tracked}. Read in process through {@link #getPools()} or
+ * over JMX, like {@link ServiceMetrics}.
+ */
+@Component
+public class PoolMetrics implements MetricsTrackerFactory, PoolMetricsMXBean {
+
+    private final Map<String, HikariConfig> configs = new ConcurrentHashMap<>();
+    private final Map<String, Tracker> trackers = new ConcurrentHashMap<>();
+
+    /**
+     * Makes a pool started with config report here. Call before the pool starts. The pool must be named, as its
+     * maximum size is looked up by name once it starts.
+     */
+    public void track(HikariConfig config) {
+        if (null == config.getPoolName()) throw new IllegalArgumentException("Cannot track a pool without poolName");
+        config.setMetricsTrackerFactory(this);
+        configs.put(config.getPoolName(), config);
+    }
+
+    @Override
+    public MetricsTracker create(String poolName, PoolStats stats) {
+        HikariConfig config = configs.get(poolName);
+        Tracker tracker = new Tracker(poolName, stats, (null == config) ? 0 : config.getMaximumPoolSize());
+        trackers.put(poolName, tracker);
+        return tracker;
+    }
+
+    @Override
+    public Map<String, PoolSnapshot> getPools() {
+        Map<String, PoolSnapshot> snapshots = new TreeMap<>();
+        trackers.forEach((poolName, tracker) -> snapshots.put(poolName, tracker.snapshot()));
+        return Collections.unmodifiableMap(snapshots);
+    }
+
+    /** @return snapshot of the pool, or null if no pool of that name is running */
+    public PoolSnapshot getPool(String poolName) {
+        Tracker tracker = trackers.get(poolName);
+        return (null == tracker) ? null : tracker.snapshot();
+    }
+
+    /** Forgets waits, holds and timeouts so far. Connection counts are the pool's own and stay. */
+    @Override
+    public void reset() {
+        trackers.values().forEach(Tracker::reset);
+    }
+
+    private final class Tracker extends MetricsTracker {
+        private final String poolName;
+        private final PoolStats stats;
+        private final int maximumPoolSize;
+        private volatile Histogram waits = new ConcurrentHistogram(ServiceMetrics.significantDigits);
+        private volatile Histogram holds = new ConcurrentHistogram(ServiceMetrics.significantDigits);
+        private final LongAdder timeouts = new LongAdder();
+
+        private Tracker(String poolName, PoolStats stats, int maximumPoolSize) {
+            this.poolName = poolName;
+            this.stats = stats;
+            this.maximumPoolSize = maximumPoolSize;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            waits.recordValue(Math.max(0, elapsedAcquiredNanos));
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            holds.recordValue(Math.max(0, elapsedBorrowedMillis));
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        @Override
+        public void close() {
+            trackers.remove(poolName, this);
+        }
+
+        private void reset() {
+            waits = new ConcurrentHistogram(ServiceMetrics.significantDigits);
+            holds = new ConcurrentHistogram(ServiceMetrics.significantDigits);
+            timeouts.reset();
+        }
+
+        private PoolSnapshot snapshot() {
+            return new PoolSnapshot(poolName, maximumPoolSize, stats.getTotalConnections(),
+                    stats.getActiveConnections(), stats.getIdleConnections(), stats.getPendingThreads(),
+                    waits.copy(), holds.copy(), timeouts.sum());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package se.teknikhogskolan.springcasemanagement.service.metrics;
+
+import java.util.Map;
+
+/** What {@link PoolMetrics} shows over JMX. */
+public interface PoolMetricsMXBean {
+
+    /** @return a snapshot per running connection pool, by pool name */
+    Map<String, PoolSnapshot> getPools();
+
+    void reset();
+}
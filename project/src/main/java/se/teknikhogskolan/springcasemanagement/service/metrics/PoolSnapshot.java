@@ -0,0 +1,105 @@
+package se.teknikhogskolan.springcasemanagement.service.metrics;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Connection counts of one pool at the time the snapshot was taken, as the pool last updated them, and the waits for
+ * and holds of connections since startup or the last reset. The getters are what JMX shows of it.
+ */
+public final class PoolSnapshot {
+
+    private final String poolName;
+    private final int maximumPoolSize;
+    private final int totalConnections;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int pendingThreads;
+    private final Histogram waitNanos;
+    private final Histogram holdMillis;
+    private final long timeouts;
+
+    PoolSnapshot(String poolName, int maximumPoolSize, int totalConnections, int activeConnections,
+            int idleConnections, int pendingThreads, Histogram waitNanos, Histogram holdMillis, long timeouts) {
+        this.poolName = poolName;
+        this.maximumPoolSize = maximumPoolSize;
+        this.totalConnections = totalConnections;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.pendingThreads = pendingThreads;
+        this.waitNanos = waitNanos;
+        this.holdMillis = holdMillis;
+        this.timeouts = timeouts;
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    /** @return threads waiting for a connection */
+    public int getPendingThreads() {
+        return pendingThreads;
+    }
+
+    /** @return share of the maximum pool size in use, from 0 to 1 */
+    public double getUtilization() {
+        return (0 == maximumPoolSize) ? 0 : (double) activeConnections / maximumPoolSize;
+    }
+
+    /** @return connections handed out */
+    public long getConnectionsAcquired() {
+        return waitNanos.getTotalCount();
+    }
+
+    /** @return times a thread gave up waiting for a connection */
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public double getMeanWaitMicros() {
+        return waitNanos.getMean() / 1000;
+    }
+
+    public double getP99WaitMicros() {
+        return waitNanos.getValueAtPercentile(99) / 1000.0;
+    }
+
+    public double getMaxWaitMicros() {
+        return waitNanos.getMaxValue() / 1000.0;
+    }
+
+    /** @return milliseconds connections were held before they were returned, on average */
+    public double getMeanHoldMillis() {
+        return holdMillis.getMean();
+    }
+
+    public long getP99HoldMillis() {
+        return holdMillis.getValueAtPercentile(99);
+    }
+
+    public long getMaxHoldMillis() {
+        return holdMillis.getMaxValue();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d of %d active, %d idle, %d waiting, wait p99 %.1f µs, hold p99 %d ms, %d timeouts",
+                poolName, activeConnections, maximumPoolSize, idleConnections, pendingThreads, getP99WaitMicros(),
+                getP99HoldMillis(), timeouts);
+    }
+}
@@ -0,0 +1,73 @@
+package se.teknikhogskolan.springcasemanagement.service.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency histogram, call count, exception counts and statements executed per service operation, like
+ * WorkItemService.getById, since startup or the last {@link #reset()}. Filled by {@link ServiceMetricsInterceptor},
+ * read in process through {@link #getOperations()} or over JMX.
+ */
+@Component
+public class ServiceMetrics implements ServiceMetricsMXBean {
+
+    static final int significantDigits = 3;
+
+    private final Map<String, Recording> recordings = new ConcurrentHashMap<>();
+
+    /**
+     * @param statements JDBC statements the call executed
+     * @param failure what the call threw, or null if it returned
+     */
+    public void record(String operation, long nanos, int statements, Throwable failure) {
+        Recording recording = recordings.computeIfAbsent(operation, key -> new Recording());
+        recording.latencies.recordValue(Math.max(0, nanos));
+        recording.statements.add(statements);
+        recording.maxStatements.accumulate(statements);
+        if (null != failure) {
+            recording.exceptions.computeIfAbsent(failure.getClass().getSimpleName(), key -> new LongAdder())
+                    .increment();
+        }
+    }
+
+    @Override
+    public Map<String, OperationSnapshot> getOperations() {
+        Map<String, OperationSnapshot> snapshots = new TreeMap<>();
+        recordings.forEach((operation, recording) -> snapshots.put(operation, recording.snapshot(operation)));
+        return Collections.unmodifiableMap(snapshots);
+    }
+
+    /** @return snapshot of operation, with no calls if it has not been called */
+    public OperationSnapshot getOperation(String operation) {
+        Recording recording = recordings.get(operation);
+        return null == recording ? new Recording().snapshot(operation) : recording.snapshot(operation);
+    }
+
+    @Override
+    public void reset() {
+        recordings.clear();
+    }
+
+    private static final class Recording {
+        private final Histogram latencies = new ConcurrentHistogram(significantDigits);
+        private final Map<String, LongAdder> exceptions = new ConcurrentHashMap<>();
+        private final LongAdder statements = new LongAdder();
+        private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+
+        private OperationSnapshot snapshot(String operation) {
+            Map<String, Long> exceptionCounts = new HashMap<>();
+            exceptions.forEach((type, count) -> exceptionCounts.put(type, count.sum()));
+            return new OperationSnapshot(operation, latencies.copy(), exceptionCounts, statements.sum(),
+                    maxStatements.get());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package se.teknikhogskolan.springcasemanagement.service.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Times every call it intercepts, counts the statements it executes with {@link StatementCounter}, and records both in
+ * {@link ServiceMetrics} as Class.method, with the parameter types added for overloaded methods. Placed outside the
+ * transaction, the time includes the commit and exceptions thrown by it are counted. A method returning a future is
+ * timed until it returns the future.
+ */
+public class ServiceMetricsInterceptor implements MethodInterceptor {
+
+    private final ServiceMetrics metrics;
+    private final StatementCounter statementCounter;
+    private final Map<Method, String> operations = new ConcurrentHashMap<>();
+
+    public ServiceMetricsInterceptor(ServiceMetrics metrics, StatementCounter statementCounter) {
+        this.metrics = metrics;
+        this.statementCounter = statementCounter;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long statementsBefore = statementCounter.startCall();
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            record(invocation, start, statementsBefore, null);
+            return result;
+        } catch (Throwable e) {
+            record(invocation, start, statementsBefore, e);
+            throw e;
+        }
+    }
+
+    private void record(MethodInvocation invocation, long start, long statementsBefore, Throwable failure) {
+        long nanos = System.nanoTime() - start;
+        String operation = operation(invocation);
+        metrics.record(operation, nanos, statementCounter.endCall(operation, statementsBefore), failure);
+    }
+
+    private String operation(MethodInvocation invocation) {
+        return operations.computeIfAbsent(invocation.getMethod(),
+                method -> operation(ClassUtils.getUserClass(invocation.getThis()), method));
+    }
+
+    static String operation(Class<?> type, Method method) {
+        String operation = type.getSimpleName() + "." + method.getName();
+        long overloads = Arrays.stream(type.getMethods()).filter(other -> other.getName().equals(method.getName()))
+                .count();
+        if (overloads < 2) return operation;
+        return Arrays.stream(method.getParameterTypes()).map(Class::getSimpleName)
+                .collect(Collectors.joining(",", operation + "(", ")"));
+    }
+}
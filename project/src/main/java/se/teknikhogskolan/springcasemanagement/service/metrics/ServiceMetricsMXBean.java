@@ -0,0 +1,12 @@
+package se.teknikhogskolan.springcasemanagement.service.metrics;
+
+import java.util.Map;
+
+/** What {@link ServiceMetrics} shows over JMX. */
+public interface ServiceMetricsMXBean {
+
+    /** @return a snapshot per operation called since startup or the last reset, by operation */
+    Map<String, OperationSnapshot> getOperations();
+
+    void reset();
+}
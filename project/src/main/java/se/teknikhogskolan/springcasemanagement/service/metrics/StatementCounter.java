@@ -0,0 +1,183 @@
+package se.teknikhogskolan.springcasemanagement.service.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Counts the JDBC statements {@link StatementCountingDataSource} executes, per service call, per transaction and for
+ * any {@link StatementRecording} running on the thread. A service call or transaction executing more than the limit
+ * is logged and counted, which is how an eager mapping loading a row at a time shows. So is a statement slower than
+ * the slow statement threshold, with the number of its parameters. Their values can hold password hashes and login
+ * tokens, so they are only logged at FINE.
+ *
+ * A batch counts as one statement. Statements of a transaction started while another completes, like the counts
+ * written after a commit, count toward the one completing.
+ */
+@Component
+public class StatementCounter implements StatementCounterMXBean {
+
+    /** Statements a service call or transaction may execute before it is logged. */
+    public static final String maxStatementsProperty = "springcasemanagement.statements.max";
+    public static final int defaultMaxStatements = 20;
+
+    /** Statements taking this many milliseconds or more are logged. */
+    public static final String slowStatementMillisProperty = "springcasemanagement.statements.slowMillis";
+    public static final long defaultSlowStatementMillis = 100;
+
+    private static final Logger log = Logger.getLogger(StatementCounter.class.getName());
+
+    private final ThreadLocal<ThreadStatements> threadStatements = ThreadLocal.withInitial(ThreadStatements::new);
+    private final Map<String, LongAdder> callsOverLimit = new ConcurrentHashMap<>();
+    private final LongAdder transactionsOverLimit = new LongAdder();
+    private final LongAdder slowStatements = new LongAdder();
+    private volatile int maxStatements;
+    private volatile long slowStatementMillis;
+
+    @Autowired
+    public StatementCounter(Environment environment) {
+        this(environment.getProperty(maxStatementsProperty, Integer.class, defaultMaxStatements),
+                environment.getProperty(slowStatementMillisProperty, Long.class, defaultSlowStatementMillis));
+    }
+
+    public StatementCounter(int maxStatements, long slowStatementMillis) {
+        setMaxStatements(maxStatements);
+        setSlowStatementMillis(slowStatementMillis);
+    }
+
+    /** Records every statement this thread executes until the recording is closed. */
+    public StatementRecording startRecording() {
+        StatementRecording recording = new StatementRecording(this);
+        threadStatements.get().recordings.add(recording);
+        return recording;
+    }
+
+    void stopRecording(StatementRecording recording) {
+        threadStatements.get().recordings.remove(recording);
+    }
+
+    /** @return position to pass to {@link #endCall(String, long)} when the call returns */
+    long startCall() {
+        return threadStatements.get().executed;
+    }
+
+    /** @return statements executed since the call started, including those of the calls it made */
+    int endCall(String operation, long start) {
+        int statements = (int) (threadStatements.get().executed - start);
+        if (statements > maxStatements) {
+            callsOverLimit.computeIfAbsent(operation, key -> new LongAdder()).increment();
+            log.warning(String.format("%s executed %d statements, more than %d.", operation, statements,
+                    maxStatements));
+        }
+        return statements;
+    }
+
+    /**
+     * @param parameters map of the bound parameters, or a description like for a batch. Formatted only if the statement
+     * is slow, before this returns, so may still be changed after.
+     */
+    void executed(String sql, Object parameters, long nanos) {
+        ThreadStatements statements = threadStatements.get();
+        statements.executed++;
+        for (StatementRecording recording : statements.recordings) recording.add(sql);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) transactionStatements().executed++;
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (millis >= slowStatementMillis) {
+            slowStatements.increment();
+            String described = (parameters instanceof Map)
+                    ? String.format("%d parameters", ((Map<?, ?>) parameters).size()) : String.valueOf(parameters);
+            log.warning(String.format("Slow statement, %d ms: %s, %s", millis, sql, described));
+            if (log.isLoggable(Level.FINE)) log.fine(String.format("Parameters of slow statement %s: %s", sql,
+                    parameters));
+        }
+    }
+
+    private TransactionStatements transactionStatements() {
+        TransactionStatements statements = (TransactionStatements) TransactionSynchronizationManager.getResource(this);
+        if (null == statements) {
+            statements = new TransactionStatements();
+            TransactionSynchronizationManager.bindResource(this, statements);
+            TransactionSynchronizationManager.registerSynchronization(statements);
+        }
+        return statements;
+    }
+
+    @Override
+    public Map<String, Long> getCallsOverLimit() {
+        Map<String, Long> counts = new TreeMap<>();
+        callsOverLimit.forEach((operation, count) -> counts.put(operation, count.sum()));
+        return Collections.unmodifiableMap(counts);
+    }
+
+    @Override
+    public long getTransactionsOverLimit() {
+        return transactionsOverLimit.sum();
+    }
+
+    @Override
+    public long getSlowStatements() {
+        return slowStatements.sum();
+    }
+
+    @Override
+    public int getMaxStatements() {
+        return maxStatements;
+    }
+
+    @Override
+    public void setMaxStatements(int maxStatements) {
+        if (maxStatements < 0) throw new IllegalArgumentException("Max statements must not be negative");
+        this.maxStatements = maxStatements;
+    }
+
+    @Override
+    public long getSlowStatementMillis() {
+        return slowStatementMillis;
+    }
+
+    @Override
+    public void setSlowStatementMillis(long slowStatementMillis) {
+        if (slowStatementMillis < 0) throw new IllegalArgumentException("Slow statement millis must not be negative");
+        this.slowStatementMillis = slowStatementMillis;
+    }
+
+    @Override
+    public void reset() {
+        callsOverLimit.clear();
+        transactionsOverLimit.reset();
+        slowStatements.reset();
+    }
+
+    private static final class ThreadStatements {
+        private long executed;
+        private final List<StatementRecording> recordings = new ArrayList<>(1);
+    }
+
+    private final class TransactionStatements extends TransactionSynchronizationAdapter {
+        private int executed;
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(StatementCounter.this);
+            if (executed > maxStatements) {
+                transactionsOverLimit.increment();
+                log.warning(String.format("Transaction executed %d statements, more than %d.", executed,
+                        maxStatements));
+            }
+        }
+    }
+}
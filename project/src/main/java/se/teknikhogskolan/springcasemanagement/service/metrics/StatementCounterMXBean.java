@@ -0,0 +1,24 @@
+package se.teknikhogskolan.springcasemanagement.service.metrics;
+
+import java.util.Map;
+
+/** What {@link StatementCounter} shows over JMX. The limits can be changed while running. */
+public interface StatementCounterMXBean {
+
+    /** @return service calls that executed more than the max statements, by operation */
+    Map<String, Long> getCallsOverLimit();
+
+    long getTransactionsOverLimit();
+
+    long getSlowStatements();
+
+    int getMaxStatements();
+
+    void setMaxStatements(int maxStatements);
+
+    long getSlowStatementMillis();
+
+    void setSlowStatementMillis(long slowStatementMillis);
+
+    void reset();
+}
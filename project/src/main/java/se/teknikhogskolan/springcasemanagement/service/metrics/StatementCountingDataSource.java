@@ -0,0 +1,128 @@
+package se.teknikhogskolan.springcasemanagement.service.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Hands out connections whose statements report to a {@link StatementCounter} as they execute, with their SQL, the
+ * parameters set on them and how long they took. Unwrapping reaches the data source it wraps, like the connection
+ * pool.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    private final StatementCounter counter;
+
+    public StatementCountingDataSource(DataSource dataSource, StatementCounter counter) {
+        super(dataSource);
+        this.counter = counter;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return countingConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return countingConnection(super.getConnection(username, password));
+    }
+
+    private Connection countingConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = StatementCountingDataSource.invoke(connection, method, args);
+            if (!(result instanceof Statement)) return result;
+            // createStatement has no SQL, prepareStatement and prepareCall have it first
+            String sql = (null != args && args.length > 0 && args[0] instanceof String) ? (String) args[0] : null;
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { method.getReturnType() },
+                    new StatementHandler((Statement) result, (Connection) proxy, sql));
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final Connection connection;
+        private final String preparedSql;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+        private final List<String> batch = new ArrayList<>();
+        private int preparedBatchSize;
+
+        private StatementHandler(Statement statement, Connection connection, String preparedSql) {
+            this.statement = statement;
+            this.connection = connection;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("getConnection".equals(name)) return connection;
+            if (name.startsWith("set") && null != args && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.put((Integer) args[0], args[1]);
+            } else if ("clearParameters".equals(name)) {
+                parameters.clear();
+            } else if ("addBatch".equals(name)) {
+                if (null == args) preparedBatchSize++;
+                else batch.add((String) args[0]);
+            } else if ("clearBatch".equals(name)) {
+                batch.clear();
+                preparedBatchSize = 0;
+            } else if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            return StatementCountingDataSource.invoke(statement, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            String sql;
+            Object described;
+            if ("executeBatch".equals(method.getName()) || "executeLargeBatch".equals(method.getName())) {
+                sql = (null != preparedSql) ? preparedSql : String.join("; ", batch);
+                described = String.format("batch of %d", (null != preparedSql) ? preparedBatchSize : batch.size());
+                batch.clear();
+                preparedBatchSize = 0;
+            } else {
+                sql = (null != args && args.length > 0) ? (String) args[0] : preparedSql;
+                described = parameters;
+            }
+            long start = System.nanoTime();
+            try {
+                return StatementCountingDataSource.invoke(statement, method, args);
+            } finally {
+                counter.executed(sql, described, System.nanoTime() - start);
+            }
+        }
+    }
+}
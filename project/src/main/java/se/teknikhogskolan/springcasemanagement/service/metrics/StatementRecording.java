@@ -0,0 +1,75 @@
+package se.teknikhogskolan.springcasemanagement.service.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The statements one thread executed since {@link StatementCounter#startRecording()}, for tests to hold a service call
+ * to the statements it needs:
+ *
+ * <pre>
+ * try (StatementRecording recording = statementCounter.startRecording()) {
+ *     workItemService.getByTeamId(teamId);
+ *     recording.assertAtMost(2);
+ * }
+ * </pre>
+ */
+public final class StatementRecording implements AutoCloseable {
+
+    private final StatementCounter counter;
+    private final List<String> statements = new ArrayList<>();
+
+    StatementRecording(StatementCounter counter) {
+        this.counter = counter;
+    }
+
+    void add(String sql) {
+        statements.add(sql);
+    }
+
+    /** @return SQL of every statement in the order executed */
+    public List<String> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    public int getCount() {
+        return statements.size();
+    }
+
+    /** @param keyword first word of the statements to count, like select or update, in any case */
+    public int getCount(String keyword) {
+        String prefix = keyword.toLowerCase(Locale.ROOT);
+        return (int) statements.stream().filter(sql -> sql.trim().toLowerCase(Locale.ROOT).startsWith(prefix)).count();
+    }
+
+    /** @throws AssertionError listing the statements, if there are more than max */
+    public StatementRecording assertAtMost(int max) {
+        if (getCount() > max) throw new AssertionError(describe(getCount() + " statements", max));
+        return this;
+    }
+
+    /** @throws AssertionError listing the statements, if more than max start with keyword */
+    public StatementRecording assertAtMost(String keyword, int max) {
+        int count = getCount(keyword);
+        if (count > max) throw new AssertionError(describe(count + " " + keyword + " statements", max));
+        return this;
+    }
+
+    public void clear() {
+        statements.clear();
+    }
+
+    @Override
+    public void close() {
+        counter.stopRecording(this);
+    }
+
+    private String describe(String executed, int max) {
+        StringBuilder description = new StringBuilder(
+                String.format("Expected at most %d, but executed %s:", max, executed));
+        statements.forEach(sql -> description.append(System.lineSeparator()).append("    ").append(sql));
+        return description.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package se.teknikhogskolan.springcasemanagement.service.retry;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import se.teknikhogskolan.springcasemanagement.service.exception.ConflictException;
+
+/**
+ * Runs a read, change and save in a transaction of its own, and runs it again from the start if another transaction
+ * updated the same rows in between. Attempts are spaced by a random wait that doubles up to a cap, so agents racing
+ * for the same row do not keep colliding. Conflicts are counted per operation, and shown over JMX.
+ */
+@Component
+public class ConflictRetrier implements ConflictRetrierMXBean {
+
+    static final int maxAttempts = 4;
+    static final long initialBackoffMillis = 5;
+    static final long maxBackoffMillis = 100;
+
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, LongAdder> conflicts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ConflictRetrier(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Inside a transaction that is already running, the conflict would only show when that transaction commits, so
+     * the operation runs once, as part of it, and the caller handles the conflict.
+     *
+     * @throws ConflictException if every attempt lost to a concurrent update
+     */
+    public <T> T execute(String operation, Supplier<T> attempt) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) return attempt.get();
+
+        long backoffMillis = initialBackoffMillis;
+        for (int attempts = 1;; attempts++) {
+            try {
+                return transactionTemplate.execute(status -> attempt.get());
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.computeIfAbsent(operation, key -> new LongAdder()).increment();
+                if (attempts == maxAttempts) throw new ConflictException(String.format(
+                        "Gave up '%s' after %d attempts, the data kept changing concurrently.", operation, attempts), e);
+                pause(ThreadLocalRandom.current().nextLong(backoffMillis + 1), operation, e);
+                backoffMillis = Math.min(backoffMillis * 2, maxBackoffMillis);
+            }
+        }
+    }
+
+    private void pause(long millis, String operation, OptimisticLockingFailureException conflict) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException(String.format("Interrupted while retrying '%s'.", operation), conflict);
+        }
+    }
+
+    /** @return conflicts per operation since startup, every retried and every given up attempt counts */
+    @Override
+    public Map<String, Long> getConflicts() {
+        Map<String, Long> counts = new TreeMap<>();
+        conflicts.forEach((operation, count) -> counts.put(operation, count.sum()));
+        return Collections.unmodifiableMap(counts);
+    }
+
+    public long getConflicts(String operation) {
+        LongAdder count = conflicts.get(operation);
+        return null == count ? 0 : count.sum();
+    }
+}
@@ -0,0 +1,10 @@
+package se.teknikhogskolan.springcasemanagement.service.retry;
+
+import java.util.Map;
+
+/** What {@link ConflictRetrier} shows over JMX. */
+public interface ConflictRetrierMXBean {
+
+    /** @return conflicts per operation since startup, by operation */
+    Map<String, Long> getConflicts();
+}
@@ -0,0 +1,196 @@
+package se.teknikhogskolan.springcasemanagement.service.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In memory inverted index from the trigrams of one or more text fields to the ids of the documents containing them.
+ * Finds the documents where every field contains its query, ignoring case, like {@code lower(field) like %query%}
+ * would, without reading documents that share no trigram with the query.
+ *
+ * Matches are ranked: a query matching whole words scores above one starting a word, which scores above one inside a
+ * word, and matches at the start of a field score higher still. Ties go to the shorter text, then the lower id.
+ */
+public final class NGramIndex {
+
+    static final int gramLength = 3;
+
+    private final int fieldCount;
+    private final Map<Long, String[]> documents = new HashMap<>();
+    private final List<Map<String, Set<Long>>> postings = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public NGramIndex(int fieldCount) {
+        if (fieldCount < 1) throw new IllegalArgumentException("An index needs at least one field");
+        this.fieldCount = fieldCount;
+        for (int i = 0; i < fieldCount; i++) {
+            postings.add(new HashMap<>());
+        }
+    }
+
+    /** Adds a document, or replaces it if the id is indexed already. A null field matches no query. */
+    public void put(Long id, String... fields) {
+        if (fields.length != fieldCount) throw new IllegalArgumentException(String.format(
+                "Expected %d fields, got %d", fieldCount, fields.length));
+        String[] normalized = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            normalized[i] = normalize(fields[i]);
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            documents.put(id, normalized);
+            for (int i = 0; i < fieldCount; i++) {
+                for (String gram : grams(normalized[i])) {
+                    postings.get(i).computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeDocument(Long id) {
+        String[] fields = documents.remove(id);
+        if (null == fields) return;
+        for (int i = 0; i < fieldCount; i++) {
+            Map<String, Set<Long>> field = postings.get(i);
+            for (String gram : grams(fields[i])) {
+                Set<Long> ids = field.get(gram);
+                if (null == ids) continue;
+                ids.remove(id);
+                if (ids.isEmpty()) field.remove(gram);
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param queries one per field, an empty query matches every document where that field is not null
+     * @return ids of the documents where every field contains its query, best match first
+     */
+    public List<Long> search(String... queries) {
+        if (queries.length != fieldCount) throw new IllegalArgumentException(String.format(
+                "Expected %d queries, got %d", fieldCount, queries.length));
+        String[] normalized = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            if (null == queries[i]) return Collections.emptyList();
+            normalized[i] = normalize(queries[i]);
+        }
+
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : candidates(normalized)) {
+                String[] fields = documents.get(id);
+                int score = 0;
+                int length = 0;
+                for (int i = 0; i < fieldCount && score >= 0; i++) {
+                    int fieldScore = score(fields[i], normalized[i]);
+                    score = fieldScore < 0 ? -1 : score + fieldScore;
+                    length += null == fields[i] ? 0 : fields[i].length();
+                }
+                if (score >= 0) matches.add(new Match(id, score, length));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(Comparator.comparingInt((Match match) -> -match.score)
+                .thenComparingInt(match -> match.length)
+                .thenComparingLong(match -> match.id));
+        List<Long> ids = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            ids.add(match.id);
+        }
+        return ids;
+    }
+
+    /* Documents holding every trigram of every query. Queries too short for a trigram do not narrow the search. */
+    private Set<Long> candidates(String[] queries) {
+        List<Set<Long>> required = new ArrayList<>();
+        for (int i = 0; i < fieldCount; i++) {
+            for (String gram : grams(queries[i])) {
+                Set<Long> ids = postings.get(i).get(gram);
+                if (null == ids) return Collections.emptySet();
+                required.add(ids);
+            }
+        }
+        if (required.isEmpty()) return documents.keySet();
+        required.sort(Comparator.comparingInt(Set::size));
+        Set<Long> candidates = new HashSet<>(required.get(0));
+        for (int i = 1; i < required.size() && !candidates.isEmpty(); i++) {
+            candidates.retainAll(required.get(i));
+        }
+        return candidates;
+    }
+
+    /** @return -1 if the text does not contain the query, otherwise higher for better matches */
+    static int score(String text, String query) {
+        if (null == text) return -1;
+        if (query.isEmpty()) return 0;
+        int best = -1;
+        for (int at = text.indexOf(query); at >= 0; at = text.indexOf(query, at + 1)) {
+            int score = 1;
+            boolean startsWord = 0 == at || !Character.isLetterOrDigit(text.charAt(at - 1));
+            int end = at + query.length();
+            boolean endsWord = text.length() == end || !Character.isLetterOrDigit(text.charAt(end));
+            if (startsWord) score += 2;
+            if (startsWord && endsWord) score += 2;
+            if (0 == at) score += 1;
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+
+    static Set<String> grams(String text) {
+        if (null == text || text.length() < gramLength) return Collections.emptySet();
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + gramLength <= text.length(); i++) {
+            grams.add(text.substring(i, i + gramLength));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return null == text ? null : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Match {
+        private final long id;
+        private final int score;
+        private final int length;
+
+        private Match(long id, int score, int length) {
+            this.id = id;
+            this.score = score;
+            this.length = length;
+        }
+    }
+}
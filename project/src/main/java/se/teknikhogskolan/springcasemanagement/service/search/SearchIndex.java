@@ -0,0 +1,95 @@
+package se.teknikhogskolan.springcasemanagement.service.search;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+import se.teknikhogskolan.springcasemanagement.model.User;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+
+/**
+ * Work item descriptions and user names, indexed for substring search. Filled from the database at startup by
+ * {@link SearchIndexSynchronizer} and kept up to date with every committed insert, update and delete made through
+ * Hibernate in this process. Writes made by other nodes are not seen, so it only gives right answers when a single
+ * node writes to the database.
+ *
+ * Every document is held on the heap, so the index holds at most a configured number of them. When it would grow
+ * past that it is emptied and searches go to the database, until a {@link SearchIndexSynchronizer#rebuild()} fits.
+ */
+public class SearchIndex {
+
+    private static final Logger log = Logger.getLogger(SearchIndex.class.getName());
+
+    private final boolean enabled;
+    private final int maxDocuments;
+    private volatile boolean full;
+    private volatile NGramIndex workItems = new NGramIndex(1);
+    private volatile NGramIndex users = new NGramIndex(3);
+
+    public SearchIndex(boolean enabled, int maxDocuments) {
+        if (maxDocuments < 0) throw new IllegalArgumentException("maxDocuments cannot be negative");
+        this.enabled = enabled;
+        this.maxDocuments = maxDocuments;
+    }
+
+    /** When false, searches should go to the database: the index is turned off, or holds too many documents. */
+    public boolean isEnabled() {
+        return enabled && !full;
+    }
+
+    /** @return ids of the work items whose description contains the text, ignoring case, best match first */
+    public List<Long> searchWorkItems(String text) {
+        return workItems.search(text);
+    }
+
+    /** @return ids of the users whose names contain all three texts, ignoring case, best match first */
+    public List<Long> searchUsers(String firstName, String lastName, String username) {
+        return users.search(firstName, lastName, username);
+    }
+
+    boolean isTurnedOn() {
+        return enabled;
+    }
+
+    int getMaxDocuments() {
+        return maxDocuments;
+    }
+
+    void index(Object entity) {
+        if (full) return;
+        if (entity instanceof WorkItem) {
+            WorkItem workItem = (WorkItem) entity;
+            workItems.put(workItem.getId(), workItem.getDescription());
+        } else if (entity instanceof User) {
+            User user = (User) entity;
+            users.put(user.getId(), user.getFirstName(), user.getLastName(), user.getUsername());
+        }
+        if (size() > maxDocuments) overflow();
+    }
+
+    void remove(Object entity, Long id) {
+        if (entity instanceof WorkItem) workItems.remove(id);
+        else if (entity instanceof User) users.remove(id);
+    }
+
+    void replace(NGramIndex workItems, NGramIndex users) {
+        if (workItems.size() + users.size() > maxDocuments) {
+            overflow();
+            return;
+        }
+        this.workItems = workItems;
+        this.users = users;
+        full = false;
+    }
+
+    private void overflow() {
+        if (!full) log.warning(String.format("Search index is over %d documents, searching the database instead.",
+                maxDocuments));
+        full = true;
+        workItems = new NGramIndex(1);
+        users = new NGramIndex(3);
+    }
+
+    public int size() {
+        return workItems.size() + users.size();
+    }
+}
@@ -0,0 +1,127 @@
+package se.teknikhogskolan.springcasemanagement.service.search;
+
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import se.teknikhogskolan.springcasemanagement.repository.UserRepository;
+import se.teknikhogskolan.springcasemanagement.repository.WorkItemRecord;
+import se.teknikhogskolan.springcasemanagement.repository.WorkItemRepository;
+
+/**
+ * Fills the {@link SearchIndex} from the database when the application starts, and updates it after every committed
+ * insert, update and delete of a work item or user. Writes that bypass Hibernate, like bulk statements or SQL
+ * run straight against the database, are only seen by the next {@link #rebuild()}.
+ */
+@Component
+public class SearchIndexSynchronizer {
+
+    private static final int fetchSize = 500;
+
+    private final SearchIndex searchIndex;
+    private final EntityManagerFactory entityManagerFactory;
+    private final WorkItemRepository workItemRepository;
+    private final UserRepository userRepository;
+
+    @Autowired
+    public SearchIndexSynchronizer(SearchIndex searchIndex, EntityManagerFactory entityManagerFactory,
+            WorkItemRepository workItemRepository, UserRepository userRepository) {
+        this.searchIndex = searchIndex;
+        this.entityManagerFactory = entityManagerFactory;
+        this.workItemRepository = workItemRepository;
+        this.userRepository = userRepository;
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        if (!searchIndex.isTurnedOn()) return;
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImpl.class).getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        IndexingListener listener = new IndexingListener();
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void onStartup() {
+        rebuild();
+    }
+
+    /**
+     * Reads every work item and user and swaps the new index in when done. Searches keep using the old index
+     * meanwhile, and changes committed while it runs may be missing until the next rebuild. Stops reading once there
+     * are more documents than the index may hold, and leaves searches to the database.
+     */
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!searchIndex.isTurnedOn()) return;
+        long limit = searchIndex.getMaxDocuments() + 1L;
+        NGramIndex workItems = new NGramIndex(1);
+        try (Stream<WorkItemRecord> records = workItemRepository.streamAll(fetchSize)) {
+            records.limit(limit).forEach(record -> workItems.put(record.getId(), record.getDescription()));
+        }
+        NGramIndex users = new NGramIndex(3);
+        try (Stream<Object[]> rows = userRepository.streamNames()) {
+            rows.limit(limit - workItems.size())
+                    .forEach(row -> users.put((Long) row[0], (String) row[1], (String) row[2], (String) row[3]));
+        }
+        searchIndex.replace(workItems, users);
+    }
+
+    private final class IndexingListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+            PostCommitDeleteEventListener {
+
+        private static final long serialVersionUID = -2461375098710365216L;
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            searchIndex.index(event.getEntity());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            searchIndex.index(event.getEntity());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            searchIndex.remove(event.getEntity(), (Long) event.getId());
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return true;
+        }
+    }
+}
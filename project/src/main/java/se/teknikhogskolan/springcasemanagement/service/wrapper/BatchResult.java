@@ -0,0 +1,79 @@
+package se.teknikhogskolan.springcasemanagement.service.wrapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import se.teknikhogskolan.springcasemanagement.service.exception.ServiceException;
+
+/**
+ * Outcome of a bulk operation. Rows that could not be processed are reported one by one, with the exception the
+ * single row operation would have thrown, instead of failing the whole batch.
+ */
+public class BatchResult<T> {
+
+    private final List<T> accepted = new ArrayList<>();
+    private final List<Rejection> rejected = new ArrayList<>();
+
+    public BatchResult<T> accept(T item) {
+        accepted.add(item);
+        return this;
+    }
+
+    public BatchResult<T> acceptAll(List<T> items) {
+        accepted.addAll(items);
+        return this;
+    }
+
+    public BatchResult<T> reject(int row, Object input, ServiceException reason) {
+        rejected.add(new Rejection(row, input, reason));
+        return this;
+    }
+
+    public List<T> getAccepted() {
+        return Collections.unmodifiableList(accepted);
+    }
+
+    public List<Rejection> getRejected() {
+        return Collections.unmodifiableList(rejected);
+    }
+
+    public boolean hasRejections() {
+        return !rejected.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BatchResult [accepted=%d, rejected=%s]", accepted.size(), rejected);
+    }
+
+    public static final class Rejection {
+        private final int row;
+        private final Object input;
+        private final ServiceException reason;
+
+        private Rejection(int row, Object input, ServiceException reason) {
+            this.row = row;
+            this.input = input;
+            this.reason = reason;
+        }
+
+        /** @return position of the rejected input, counted from 0 */
+        public int getRow() {
+            return row;
+        }
+
+        public Object getInput() {
+            return input;
+        }
+
+        public ServiceException getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Rejection [row=%d, input=%s, reason=%s]", row, input, reason.getMessage());
+        }
+    }
+}
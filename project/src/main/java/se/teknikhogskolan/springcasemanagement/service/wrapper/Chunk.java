@@ -0,0 +1,113 @@
+package se.teknikhogskolan.springcasemanagement.service.wrapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+
+import se.teknikhogskolan.springcasemanagement.model.AbstractEntity;
+import se.teknikhogskolan.springcasemanagement.repository.paging.KeysetPagingRepository;
+import se.teknikhogskolan.springcasemanagement.service.exception.DatabaseException;
+
+/**
+ * One stretch of a keyset paginated listing. Unlike {@link Piece} there is no page number and no total, the next
+ * chunk is asked for with {@link #getContinuationToken()} and is found by seeking past the last row, however deep
+ * into the table it is.
+ */
+public class Chunk<T> {
+
+    private final List<T> content;
+    private final String continuationToken;
+
+    private Chunk(List<T> content, String continuationToken) {
+        this.content = content;
+        this.continuationToken = continuationToken;
+    }
+
+    /** Asks for one row more than the chunk holds, to find out if there is a next chunk without counting. */
+    public static Pageable pageableFor(int size) {
+        if (size < 1 || size == Integer.MAX_VALUE) throw new IllegalArgumentException(String.format(
+                "Chunk size must be between 1 and %d.", Integer.MAX_VALUE - 1));
+        return new PageRequest(0, size + 1);
+    }
+
+    /**
+     * @param rows up to size + 1 rows, the extra row only tells that there is more to come
+     */
+    public static <T extends AbstractEntity> Chunk<T> of(List<T> rows, int size, ContinuationToken.Order order) {
+        if (rows.size() <= size) return new Chunk<>(Collections.unmodifiableList(rows), null);
+        List<T> content = rows.subList(0, size);
+        String token = ContinuationToken.after(content.get(size - 1), order).encode();
+        return new Chunk<>(Collections.unmodifiableList(content), token);
+    }
+
+    /**
+     * First chunk of a keyset paginated listing read with the repository's queries, continue with
+     * {@link #next(KeysetPagingRepository, String, int, String)}.
+     *
+     * @param entities what the repository holds, like Users, for the exception message
+     */
+    public static <T extends AbstractEntity> Chunk<T> first(KeysetPagingRepository<T> repository, int size,
+            ContinuationToken.Order order, String entities) {
+        return find(repository, order, null, size, entities);
+    }
+
+    public static <T extends AbstractEntity> Chunk<T> next(KeysetPagingRepository<T> repository,
+            String continuationToken, int size, String entities) {
+        ContinuationToken after = ContinuationToken.decode(continuationToken);
+        return find(repository, after.getOrder(), after, size, entities);
+    }
+
+    private static <T extends AbstractEntity> Chunk<T> find(KeysetPagingRepository<T> repository,
+            ContinuationToken.Order order, ContinuationToken after, int size, String entities) {
+        Pageable pageable = pageableFor(size);
+        List<T> rows;
+        try {
+            if (ContinuationToken.Order.ID == order) {
+                rows = repository.findAfterId(null == after ? Long.MIN_VALUE : after.getId(), pageable);
+            } else if (null == after) {
+                rows = repository.findOrderedByCreated(pageable);
+            } else {
+                rows = repository.findAfterCreated(after.getCreated(), after.getId(), pageable);
+            }
+        } catch (DataAccessException e) {
+            throw new DatabaseException(String.format("Cannot get %s by chunk. Request was 'size %d, after %s'.",
+                    entities, size, after), e);
+        }
+        return of(null == rows ? new ArrayList<>() : rows, size, order);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getNumberOfElements() {
+        return content.size();
+    }
+
+    public boolean hasContent() {
+        return !content.isEmpty();
+    }
+
+    public boolean hasNext() {
+        return null != continuationToken;
+    }
+
+    /** @return token for the next chunk, or null if this is the last one */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public Iterator<T> iterator() {
+        return content.iterator();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Chunk [numberOfElements=%d, hasNext=%b]", content.size(), hasNext());
+    }
+}
@@ -0,0 +1,79 @@
+package se.teknikhogskolan.springcasemanagement.service.wrapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import se.teknikhogskolan.springcasemanagement.model.AbstractEntity;
+import se.teknikhogskolan.springcasemanagement.service.exception.NotAllowedException;
+
+/**
+ * Where the next {@link Chunk} starts: the order and the key of the last row handed out. Callers only see the encoded
+ * string and pass it back unchanged.
+ */
+public final class ContinuationToken {
+
+    public enum Order {
+        /** By id, every row. */
+        ID,
+        /** By created date, then id. Rows without a created date are left out. */
+        CREATED
+    }
+
+    private static final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder decoder = Base64.getUrlDecoder();
+
+    private final Order order;
+    private final LocalDate created;
+    private final Long id;
+
+    private ContinuationToken(Order order, LocalDate created, Long id) {
+        this.order = order;
+        this.created = created;
+        this.id = id;
+    }
+
+    public static ContinuationToken after(AbstractEntity last, Order order) {
+        return new ContinuationToken(order, last.getCreated(), last.getId());
+    }
+
+    public static ContinuationToken decode(String token) {
+        if (null == token) throw new NotAllowedException("Continuation token cannot be null.");
+        try {
+            String[] parts = new String(decoder.decode(token), StandardCharsets.UTF_8).split(":");
+            Order order = Order.valueOf(parts[0]);
+            if (Order.ID == order && 2 == parts.length) {
+                return new ContinuationToken(order, null, Long.valueOf(parts[1]));
+            }
+            if (Order.CREATED == order && 3 == parts.length) {
+                return new ContinuationToken(order, LocalDate.parse(parts[1]), Long.valueOf(parts[2]));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new NotAllowedException(String.format("Invalid continuation token '%s'.", token), e);
+        }
+        throw new NotAllowedException(String.format("Invalid continuation token '%s'.", token));
+    }
+
+    public String encode() {
+        String key = Order.ID == order ? order + ":" + id : order + ":" + created + ":" + id;
+        return encoder.encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public LocalDate getCreated() {
+        return created;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
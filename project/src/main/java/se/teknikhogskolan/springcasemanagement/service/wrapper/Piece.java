@@ -1,6 +1,7 @@
 package se.teknikhogskolan.springcasemanagement.service.wrapper;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.LongSupplier;
 
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.data.domain.Page;
@@ -8,79 +9,97 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 
+/**
+ * One page of a listing. Built from a {@link Slice}, so the content and whether there is a next page cost one query,
+ * and the total is only counted the first time it is asked for. On the last page the total is known without counting.
+ */
 public class Piece<T> {
-    private Page<T> page;
-    
+    private final Slice<T> slice;
+    private final LongSupplier totalCounter;
+    private Long totalElements;
+
     public Piece(Page<T> page) {
-        this.page = page;
+        this(page, page::getTotalElements);
+    }
+
+    public Piece(Slice<T> slice, LongSupplier totalCounter) {
+        this.slice = slice;
+        this.totalCounter = totalCounter;
     }
     
     @Override
     public String toString() {
-        return page.toString();
+        return String.format("Piece %d with %d elements", getNumber(), getNumberOfElements());
     }
     
     public int getNumber() {
-        return page.getNumber();
+        return slice.getNumber();
     }
     
     public int getSize() {
-        return page.getSize();
+        return slice.getSize();
     }
     
     public int getNumberOfElements() {
-        return page.getNumberOfElements();
+        return slice.getNumberOfElements();
     }
     
     public List<T> getContent() {
-        return page.getContent();
+        return slice.getContent();
     }
     
     public boolean hasContent() {
-        return page.hasContent();
+        return slice.hasContent();
     }
     
     public Sort getSort() {
-        return page.getSort();
+        return slice.getSort();
     }
     
     public boolean isFirst() {
-        return page.isFirst();
+        return slice.isFirst();
     }
     
     public boolean isLast() {
-        return page.isLast();
+        return slice.isLast();
     }
     
     public boolean hasNext() {
-        return page.hasNext();
+        return slice.hasNext();
     }
     
     public boolean hasPrevious() {
-        return page.hasPrevious();
+        return slice.hasPrevious();
     }
     
     public Pageable nextPageable() {
-        return page.nextPageable();
+        return slice.nextPageable();
     }
     
     public Pageable previousPageable() {
-        return page.previousPageable();
+        return slice.previousPageable();
     }
 
     public Iterator<T> iterator() {
-        return page.iterator();
+        return slice.iterator();
     }
     
     public int getTotalPages() {
-        return page.getTotalPages();
+        return getSize() == 0 ? 1 : (int) Math.ceil((double) getTotalElements() / (double) getSize());
     }
     
-    public long getTotalElements() {
-        return getTotalElements();
+    public synchronized long getTotalElements() {
+        if (null == totalElements) {
+            if (!slice.hasNext() && (slice.hasContent() || slice.isFirst())) {
+                totalElements = (long) getNumber() * getSize() + getNumberOfElements();
+            } else {
+                totalElements = totalCounter.getAsLong();
+            }
+        }
+        return totalElements;
     }
 
     public <S> Slice<S> map(Converter<? super T, ? extends S> converter) {
-        return page.map(converter);
+        return slice.map(converter);
     }
 }
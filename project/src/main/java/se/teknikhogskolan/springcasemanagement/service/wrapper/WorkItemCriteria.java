@@ -0,0 +1,95 @@
+package se.teknikhogskolan.springcasemanagement.service.wrapper;
+
+import java.time.LocalDate;
+
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+
+/**
+ * Filters for a work item search. Every filter that is set must match, filters left unset match everything. Pass the
+ * same criteria again along with the continuation token for the next chunk.
+ */
+public class WorkItemCriteria {
+
+    private WorkItem.Status status;
+    private Long userId;
+    private Long teamId;
+    private LocalDate createdFrom;
+    private LocalDate createdTo;
+    private LocalDate completedFrom;
+    private LocalDate completedTo;
+    private String descriptionContains;
+
+    public WorkItem.Status getStatus() {
+        return status;
+    }
+
+    public WorkItemCriteria setStatus(WorkItem.Status status) {
+        this.status = status;
+        return this;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public WorkItemCriteria setUserId(Long userId) {
+        this.userId = userId;
+        return this;
+    }
+
+    public Long getTeamId() {
+        return teamId;
+    }
+
+    /** Work items of the team's users. */
+    public WorkItemCriteria setTeamId(Long teamId) {
+        this.teamId = teamId;
+        return this;
+    }
+
+    public LocalDate getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public LocalDate getCreatedTo() {
+        return createdTo;
+    }
+
+    /** Both dates included. */
+    public WorkItemCriteria setCreatedBetween(LocalDate from, LocalDate to) {
+        this.createdFrom = from;
+        this.createdTo = to;
+        return this;
+    }
+
+    public LocalDate getCompletedFrom() {
+        return completedFrom;
+    }
+
+    public LocalDate getCompletedTo() {
+        return completedTo;
+    }
+
+    /** Both dates included. Only work items that are done have a completion date. */
+    public WorkItemCriteria setCompletedBetween(LocalDate from, LocalDate to) {
+        this.completedFrom = from;
+        this.completedTo = to;
+        return this;
+    }
+
+    public String getDescriptionContains() {
+        return descriptionContains;
+    }
+
+    public WorkItemCriteria setDescriptionContains(String text) {
+        this.descriptionContains = text;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WorkItemCriteria [status=%s, userId=%s, teamId=%s, created=%s..%s, completed=%s..%s, "
+                + "descriptionContains=%s]", status, userId, teamId, createdFrom, createdTo, completedFrom, completedTo,
+                descriptionContains);
+    }
+}
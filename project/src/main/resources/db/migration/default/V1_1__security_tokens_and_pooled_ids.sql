@@ -0,0 +1,21 @@
+-- What the entities gained between the schema of V1 and the introduction of migrations.
+
+-- Ids are handed out 50 at a time, see AbstractEntity. The sequence only grows, so ids handed out before stay unique.
+alter sequence hibernate_sequence increment by 50;
+
+-- Salts and hashes may be longer than 255 characters.
+alter table SecurityUser alter column hashedPassword varchar(1024);
+alter table SecurityUser alter column salt varchar(1024);
+
+-- Tokens have a table of their own. Tokens in the old collection table expire within a day and are not moved, those
+-- sessions log in again.
+create table SecurityToken (id bigint not null, expiresAt timestamp not null, token varchar(255) not null, user_id bigint not null, primary key (id));
+alter table SecurityToken add constraint ux_securitytoken_token unique (token);
+create index ix_securitytoken_expiresat on SecurityToken (expiresAt);
+alter table SecurityToken add constraint fk_securitytoken_user foreign key (user_id) references SecurityUser;
+drop table SecurityUser_tokensExpiration;
+
+-- Keyset pagination by created date and id.
+create index ix_user_created_id on User (created, id);
+create index ix_issue_created_id on Issue (created, id);
+create index ix_workitem_created_id on WorkItem (created, id);
@@ -0,0 +1,6 @@
+-- Optimistic locking: every update checks and increments the version it read.
+-- Rows inserted without Hibernate start at version 0.
+alter table Team add column version bigint default 0 not null;
+alter table User add column version bigint default 0 not null;
+alter table Issue add column version bigint default 0 not null;
+alter table WorkItem add column version bigint default 0 not null;
@@ -0,0 +1,14 @@
+-- Work items that entered a status on a day, per team. Team 0 is work items without a team.
+create table DailyWorkItemCount (status varchar(255) not null, countDate date not null, teamId bigint not null, amount bigint not null, primary key (status, countDate, teamId));
+
+-- Existing work items: created unassigned on their created date, and done on their completion date by their
+-- current team. Earlier status changes were never recorded and cannot be counted.
+insert into DailyWorkItemCount (status, countDate, teamId, amount)
+    select 'UNSTARTED', w.created, 0, count(*) from WorkItem w
+    where w.created is not null
+    group by w.created;
+
+insert into DailyWorkItemCount (status, countDate, teamId, amount)
+    select 'DONE', w.completionDate, coalesce(u.team_id, 0), count(*) from WorkItem w left join User u on u.id = w.user_id
+    where w.status = 'DONE' and w.completionDate is not null
+    group by w.completionDate, u.team_id;
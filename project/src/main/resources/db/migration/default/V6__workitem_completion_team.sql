@@ -0,0 +1,6 @@
+-- Team a work item was counted done under, so its daily DONE count is taken back from that team even after the work
+-- item or its user has moved. Existing work items were counted under their current team, see V4.
+alter table WorkItem add column completionTeamId bigint;
+
+update WorkItem set completionTeamId = coalesce((select u.team_id from User u where u.id = WorkItem.user_id), 0)
+    where status = 'DONE' and completionDate is not null;
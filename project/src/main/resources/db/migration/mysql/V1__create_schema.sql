@@ -0,0 +1,23 @@
+-- Schema as Hibernate generated it before migrations. MySQL has no sequences, Hibernate keeps the next id in a table.
+-- A database created then is baselined at this version and has it already, so anything added since belongs in a
+-- later migration.
+create table hibernate_sequence (next_val bigint) engine=InnoDB;
+insert into hibernate_sequence values (1);
+
+create table Team (id bigint not null, created date, lastModified date, active bit not null, name varchar(255), primary key (id)) engine=InnoDB;
+create table User (id bigint not null, created date, lastModified date, active bit not null, firstName varchar(255), lastName varchar(255), userNumber bigint not null, username varchar(255) not null, team_id bigint, primary key (id)) engine=InnoDB;
+create table Issue (id bigint not null, created date, lastModified date, active bit not null, createdBy varchar(255), description varchar(255), primary key (id)) engine=InnoDB;
+create table WorkItem (id bigint not null, created date, lastModified date, completionDate date, description varchar(255) not null, status varchar(255), issue_id bigint, user_id bigint, primary key (id)) engine=InnoDB;
+create table SecurityUser (id bigint not null, hashedPassword varchar(255), salt varchar(255), saltingIterations integer not null, username varchar(255) not null, primary key (id)) engine=InnoDB;
+create table SecurityUser_tokensExpiration (SecurityUser_id bigint not null, tokensExpiration varchar(255), tokensExpiration_KEY varchar(255) not null, primary key (SecurityUser_id, tokensExpiration_KEY)) engine=InnoDB;
+
+alter table Team add constraint uk_team_name unique (name);
+alter table User add constraint uk_user_usernumber unique (userNumber);
+alter table User add constraint uk_user_username unique (username);
+alter table WorkItem add constraint uk_workitem_description unique (description);
+alter table SecurityUser add constraint uk_securityuser_username unique (username);
+
+alter table User add constraint fk_user_team foreign key (team_id) references Team (id);
+alter table WorkItem add constraint fk_workitem_issue foreign key (issue_id) references Issue (id);
+alter table WorkItem add constraint fk_workitem_user foreign key (user_id) references User (id);
+alter table SecurityUser_tokensExpiration add constraint fk_securityuser_tokensexpiration_securityuser foreign key (SecurityUser_id) references SecurityUser (id);
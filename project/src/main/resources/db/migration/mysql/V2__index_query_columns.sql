@@ -0,0 +1,20 @@
+-- One index per repository query that filters or joins on a column without one.
+-- Infix searches (description contains, user search) cannot use an index and still scan.
+
+-- WorkItemRepository.findByStatus, findSummariesByStatus, findByCompletionDate (status = DONE and completionDate between)
+create index ix_workitem_status_completiondate on WorkItem (status, completionDate);
+
+-- WorkItemRepository.findByUserId, UserRepository.findOne (workItems), joins from User to WorkItem
+create index ix_workitem_user_id on WorkItem (user_id);
+
+-- WorkItemRepository.findByIssueIsNotNull, the workItem of every Issue query
+create index ix_workitem_issue_id on WorkItem (issue_id);
+
+-- UserRepository.findByTeamId, WorkItemRepository.findByTeamId, TeamRepository.findOne (users)
+create index ix_user_team_id on User (team_id);
+
+-- IssueRepository.findByDescription
+create index ix_issue_description on Issue (description);
+
+-- SecurityTokenRepository.deleteByUserId
+create index ix_securitytoken_user_id on SecurityToken (user_id);
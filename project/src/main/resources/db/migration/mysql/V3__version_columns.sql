@@ -0,0 +1,6 @@
+-- Optimistic locking: every update checks and increments the version it read.
+-- Rows inserted without Hibernate start at version 0.
+alter table Team add column version bigint not null default 0;
+alter table User add column version bigint not null default 0;
+alter table Issue add column version bigint not null default 0;
+alter table WorkItem add column version bigint not null default 0;
@@ -0,0 +1,19 @@
+-- Work items of a team by status and its oldest work item not done, worked out again whenever they change.
+create table TeamWorkload (teamId bigint not null, unstarted bigint not null, started bigint not null, done bigint not null, oldestOpenWorkItemId bigint, oldestOpenCreated date, primary key (teamId)) engine=InnoDB;
+
+insert into TeamWorkload (teamId, unstarted, started, done)
+    select u.team_id,
+        sum(case when w.status = 'UNSTARTED' then 1 else 0 end),
+        sum(case when w.status = 'STARTED' then 1 else 0 end),
+        sum(case when w.status = 'DONE' then 1 else 0 end)
+    from WorkItem w join User u on u.id = w.user_id
+    where u.team_id is not null
+    group by u.team_id;
+
+update TeamWorkload set oldestOpenWorkItemId = (
+    select w.id from WorkItem w join User u on u.id = w.user_id
+    where u.team_id = TeamWorkload.teamId and w.status <> 'DONE'
+    order by w.created, w.id limit 1);
+
+update TeamWorkload set oldestOpenCreated = (
+    select w.created from WorkItem w where w.id = TeamWorkload.oldestOpenWorkItemId);
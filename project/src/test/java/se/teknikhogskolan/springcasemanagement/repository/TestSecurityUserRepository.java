@@ -2,20 +2,17 @@ package se.teknikhogskolan.springcasemanagement.repository;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import se.teknikhogskolan.springcasemanagement.model.SecurityToken;
 import se.teknikhogskolan.springcasemanagement.model.SecurityUser;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
-import static org.junit.Assert.assertTrue;
 import static se.teknikhogskolan.springcasemanagement.service.SecurityHelper.generateToken;
 
 public final class TestSecurityUserRepository {
@@ -44,36 +41,24 @@ public final class TestSecurityUserRepository {
     }
 
     @Test
-    public void ifUserHasNoTokensEmptyMapIsReturnedNotNull() {
+    public void canAddTokenAndFindByToken() {
         try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
             context.scan(PROJECT_PACKAGE);
             context.refresh();
-            SecurityUserRepository securityUserRepository = context.getBean(SecurityUserRepository.class);
-
-            SecurityUser noTokensUser = new SecurityUser("NoTokes4Life");
-            noTokensUser = securityUserRepository.save(noTokensUser);
-
-            assertNotNull(noTokensUser.getTokensExpiration());
-            assertTrue(Map.class.isAssignableFrom(noTokensUser.getTokensExpiration().getClass()));
-            assertTrue(noTokensUser.getTokensExpiration().isEmpty());
-
-            securityUserRepository.delete(noTokensUser);
-        }
-    }
+            SecurityTokenRepository tokenRepository = context.getBean(SecurityTokenRepository.class);
 
-    @Test
-    public void canGetAndAddTokenAndFindByToken() {
+            final SecurityUser batman = executeOne(repo -> repo.findByUsername(user.getUsername()));
 
-        final SecurityUser batman = executeOne(repo -> repo.findByUsername(user.getUsername()));
+            String token = generateToken(255);
+            LocalDateTime expireTime = LocalDateTime.now().plusDays(1L);
+            SecurityToken securityToken = tokenRepository.save(new SecurityToken(token, batman, expireTime));
 
-        String token = generateToken(255);
-        LocalDateTime expireTime = LocalDateTime.now().plusDays(1L);
-        batman.addToken(token, expireTime);
-        SecurityUser batmanWithToken = executeOne(repo -> repo.save(batman));
-        assertFalse(batman.getTokensExpiration().isEmpty());
+            assertEquals(expireTime, tokenRepository.findByToken(token).getExpiresAt());
+            SecurityUser result = executeOne(repo -> repo.findByToken(token));
+            assertEquals(batman, result);
 
-        SecurityUser result = executeOne(repo -> repo.findByToken(token));
-        assertEquals(batmanWithToken, result);
+            tokenRepository.delete(securityToken);
+        }
     }
 
     @Test
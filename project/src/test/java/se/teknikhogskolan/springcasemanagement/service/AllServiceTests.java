@@ -3,8 +3,21 @@ package se.teknikhogskolan.springcasemanagement.service;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
+import se.teknikhogskolan.springcasemanagement.service.cache.TestApproximateCountCache;
+import se.teknikhogskolan.springcasemanagement.service.cache.TestTokenCache;
+import se.teknikhogskolan.springcasemanagement.service.metrics.TestPoolMetrics;
+import se.teknikhogskolan.springcasemanagement.service.metrics.TestServiceMetrics;
+import se.teknikhogskolan.springcasemanagement.service.metrics.TestStatementCounter;
+import se.teknikhogskolan.springcasemanagement.service.retry.TestConflictRetrier;
+import se.teknikhogskolan.springcasemanagement.service.search.TestNGramIndex;
+import se.teknikhogskolan.springcasemanagement.service.search.TestSearchIndex;
 
 @RunWith(Suite.class)
-@SuiteClasses({TestIssueService.class, TestTeamService.class, TestUserService.class, TestWorkItemService.class})
+@SuiteClasses({TestIssueService.class, TestTeamService.class, TestUserService.class, TestWorkItemService.class,
+        TestSecurityUserService.class, TestSecurityHelper.class, TestPasswordHashingExecutor.class,
+        TestCalibratedHashingPolicy.class, TestTokenCache.class, TestApproximateCountCache.class,
+        TestExportFormat.class, TestNGramIndex.class, TestConflictRetrier.class, TestStatisticsService.class,
+        TestTeamWorkloadService.class, TestServiceMetrics.class, TestStatementCounter.class,
+        TestPoolMetrics.class, TestSearchIndex.class})
 public class AllServiceTests {
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package se.teknikhogskolan.springcasemanagement.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public final class TestCalibratedHashingPolicy {
+
+    @Test
+    public void iterationsStayWithinBounds() {
+        CalibratedHashingPolicy policy = new CalibratedHashingPolicy(50, 10000, 20000);
+        assertTrue(policy.getIterations() >= 10000);
+        assertTrue(policy.getIterations() <= 20000);
+    }
+
+    @Test
+    public void neverCalibratesBelowMinimum() {
+        CalibratedHashingPolicy policy = new CalibratedHashingPolicy(1, 15000, 1000000);
+        assertEquals(15000, policy.getIterations());
+    }
+
+    @Test
+    public void calibrationSetsIterations() {
+        CalibratedHashingPolicy policy = new CalibratedHashingPolicy(1, 15000, 1000000);
+        policy.calibrate();
+        assertEquals(15000, policy.getIterations());
+    }
+
+    @Test
+    public void cheaperStoredHashNeedsRehash() {
+        CalibratedHashingPolicy policy = new CalibratedHashingPolicy(1, 15000, 1000000);
+        assertTrue(policy.needsRehash(SecurityHelper.hashingIterations));
+        assertFalse(policy.needsRehash(15000));
+    }
+
+    @Test
+    public void slightlyCheaperStoredHashIsKept() {
+        CalibratedHashingPolicy policy = new CalibratedHashingPolicy(1, 10000, 1000000, 40000);
+        assertFalse(policy.needsRehash(39000));
+        assertFalse(policy.needsRehash(30000));
+        assertTrue(policy.needsRehash(29000));
+    }
+
+    @Test
+    public void pinnedIterationsAreUsedAsIs() {
+        CalibratedHashingPolicy policy = new CalibratedHashingPolicy(1, 10000, 1000000, 123000);
+        policy.calibrate();
+        assertEquals(123000, policy.getIterations());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pinnedIterationsMustNotBeWeakerThanDefault() {
+        new CalibratedHashingPolicy(50, 10000, 1000000, 1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void minimumMustNotBeWeakerThanDefault() {
+        new CalibratedHashingPolicy(50, 1000, 1000000);
+    }
+}
@@ -0,0 +1,42 @@
+package se.teknikhogskolan.springcasemanagement.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+import se.teknikhogskolan.springcasemanagement.model.WorkItem.Status;
+import se.teknikhogskolan.springcasemanagement.repository.WorkItemRecord;
+
+public class TestExportFormat {
+
+    private final LocalDate date = LocalDate.of(2016, 11, 11);
+
+    private String write(ExportFormat format, WorkItemRecord record) throws IOException {
+        StringWriter writer = new StringWriter();
+        format.write(record, writer);
+        return writer.toString();
+    }
+
+    @Test
+    public void csvQuotesOnlyWhenNeeded() throws IOException {
+        WorkItemRecord plain = new WorkItemRecord(1L, "Be evil", Status.DONE, date, date, null, 2L, null);
+        assertEquals("1,Be evil,DONE,2016-11-11,2016-11-11,,2,\r\n", write(ExportFormat.CSV, plain));
+
+        WorkItemRecord special = new WorkItemRecord(1L, "Say \"hi\", then\nleave", Status.DONE, null, null, null,
+                null, null);
+        assertEquals("1,\"Say \"\"hi\"\", then\nleave\",DONE,,,,,\r\n", write(ExportFormat.CSV, special));
+    }
+
+    @Test
+    public void jsonEscapesQuotesBackslashesAndControlCharacters() throws IOException {
+        WorkItemRecord record = new WorkItemRecord(1L, "a\"b\\c\nd\u0001", Status.STARTED, null, date, null, null,
+                7L);
+        assertEquals("{\"id\":1,\"description\":\"a\\\"b\\\\c\\nd\\u0001\",\"status\":\"STARTED\","
+                + "\"completionDate\":null,\"created\":\"2016-11-11\",\"lastModified\":null,\"userId\":null,"
+                + "\"issueId\":7}\n", write(ExportFormat.JSON_LINES, record));
+    }
+}
@@ -0,0 +1,93 @@
+package se.teknikhogskolan.springcasemanagement.service;
+
+import static org.hamcrest.CoreMatchers.isA;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import se.teknikhogskolan.springcasemanagement.service.exception.OverloadedException;
+
+public final class TestPasswordHashingExecutor {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private PasswordHashingExecutor executor;
+
+    @Before
+    public void setUp() {
+        executor = new PasswordHashingExecutor(1, 1);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void hashIsSameAsSecurityHelper() {
+        String expected = SecurityHelper.hashPassword("backinblack", "salt");
+        assertEquals(expected, executor.hashAndWait("backinblack", "salt"));
+    }
+
+    @Test
+    public void recordsHashLatency() {
+        executor.hashAndWait("backinblack", "salt");
+        assertEquals(1, executor.getCompletedCount());
+        assertTrue(executor.getMaxHashMicros() > 0);
+    }
+
+    @Test
+    public void futureFailsWhenQueueIsFull() {
+        CompletableFuture<String> last = null;
+        for (int i = 0; i < 10; i++) {
+            last = executor.hash("backinblack", "salt" + i);
+        }
+        assertTrue(last.isCompletedExceptionally());
+
+        thrown.expect(CompletionException.class);
+        thrown.expectCause(isA(OverloadedException.class));
+        last.join();
+    }
+
+    @Test
+    public void waitingForHashThrowsWhenQueueIsFull() {
+        executor.hash("backinblack", "salt1");
+        executor.hash("backinblack", "salt2");
+
+        thrown.expect(OverloadedException.class);
+        executor.hashAndWait("backinblack", "salt3");
+    }
+
+    @Test
+    public void queuedHashFailsWhenShutDownNow() {
+        executor.hash("backinblack", "salt1", 1_000_000);
+        CompletableFuture<String> queued = executor.hash("backinblack", "salt2");
+        executor.shutdownNow();
+
+        thrown.expect(CompletionException.class);
+        thrown.expectCause(isA(OverloadedException.class));
+        queued.join();
+    }
+
+    @Test
+    public void waitingForHashIsBounded() {
+        PasswordHashingExecutor impatient = new PasswordHashingExecutor(1, 1, 1);
+        try {
+            thrown.expect(OverloadedException.class);
+            thrown.expectMessage("did not finish within 1 ms");
+            impatient.hashAndWait("backinblack", "salt", 1_000_000);
+        } finally {
+            assertEquals(1, impatient.getTimedOutCount());
+            impatient.shutdownNow();
+        }
+    }
+}
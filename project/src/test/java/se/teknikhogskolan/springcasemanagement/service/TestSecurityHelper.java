@@ -0,0 +1,31 @@
+package se.teknikhogskolan.springcasemanagement.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Base64;
+
+import org.junit.Test;
+
+public class TestSecurityHelper {
+
+    @Test
+    public void tokenHasRequestedLengthAndIsUrlSafe() {
+        String token = SecurityHelper.generateToken(255);
+        assertEquals(255, token.length());
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    public void tokensAreUnique() {
+        assertNotEquals(SecurityHelper.generateToken(255), SecurityHelper.generateToken(255));
+    }
+
+    @Test
+    public void saltCarriesAllRandomBytes() {
+        String salt = SecurityHelper.generateSalt();
+        assertEquals(SecurityHelper.hashSize / 8, Base64.getDecoder().decode(salt).length);
+        assertNotEquals(salt, SecurityHelper.generateSalt());
+    }
+}
@@ -0,0 +1,184 @@
+package se.teknikhogskolan.springcasemanagement.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import se.teknikhogskolan.springcasemanagement.model.SecurityToken;
+import se.teknikhogskolan.springcasemanagement.model.SecurityUser;
+import se.teknikhogskolan.springcasemanagement.repository.SecurityTokenRepository;
+import se.teknikhogskolan.springcasemanagement.repository.SecurityUserRepository;
+import se.teknikhogskolan.springcasemanagement.service.cache.TokenCache;
+import se.teknikhogskolan.springcasemanagement.service.exception.NotAuthorizedException;
+
+@RunWith(MockitoJUnitRunner.class)
+public final class TestSecurityUserService {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Mock
+    private SecurityUserRepository repository;
+
+    @Mock
+    private SecurityTokenRepository tokenRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TokenCache tokenCache;
+    private PasswordHashingExecutor hashingExecutor;
+    private SecurityUserService service;
+    private final String token = "token";
+    private final Long userId = 1L;
+    private LocalDateTime expiration;
+    private final int upgradedIterations = SecurityHelper.hashingIterations + 1000;
+
+    @Before
+    public void setUp() {
+        tokenCache = new TokenCache();
+        hashingExecutor = new PasswordHashingExecutor(1, 1);
+        service = new SecurityUserService(repository, tokenRepository, tokenCache, hashingExecutor,
+                () -> upgradedIterations, transactionManager);
+        expiration = LocalDateTime.now().plusDays(1);
+    }
+
+    @After
+    public void tearDown() {
+        hashingExecutor.shutdownNow();
+    }
+
+    @Test
+    public void verifyingCachedTokenDoesNotTouchRepository() {
+        tokenCache.put(token, userId, expiration);
+        service.verify(token);
+        verifyZeroInteractions(repository, tokenRepository);
+    }
+
+    @Test
+    public void verifiedTokenIsCached() {
+        when(tokenRepository.findByToken(token)).thenReturn(
+                new SecurityToken(token, new SecurityUser("Batman"), expiration));
+
+        service.verify(token);
+        service.verify(token);
+
+        verify(tokenRepository, times(1)).findByToken(anyString());
+        assertEquals(expiration, service.getExpiration(token));
+    }
+
+    @Test
+    public void verifyingExpiredTokenShouldThrowException() {
+        thrown.expect(NotAuthorizedException.class);
+        thrown.expectMessage("Login session has expired");
+        when(tokenRepository.findByToken(token)).thenReturn(
+                new SecurityToken(token, new SecurityUser("Batman"), LocalDateTime.now().minusSeconds(1)));
+        service.verify(token);
+    }
+
+    @Test
+    public void verifyingUnknownTokenShouldThrowException() {
+        thrown.expect(NotAuthorizedException.class);
+        thrown.expectMessage("Not authorized");
+        service.verify(token);
+    }
+
+    @Test
+    public void legacyHashIsUpgradedOnSuccessfulLogin() {
+        String password = "backinblack";
+        SecurityUser legacyUser = new SecurityUser("Batman", SecurityHelper.hashPassword(password, "salt"), "salt", 0);
+        when(repository.findByUsername("Batman")).thenReturn(legacyUser);
+        when(repository.save(legacyUser)).thenReturn(legacyUser);
+
+        service.createTokenFor("Batman", password);
+
+        verify(repository).save(legacyUser);
+        assertEquals(upgradedIterations, legacyUser.getSaltingIterations());
+        assertEquals(SecurityHelper.hashPassword(password, legacyUser.getSalt(), upgradedIterations),
+                legacyUser.getHashedPassword());
+    }
+
+    @Test
+    public void currentHashIsNotRehashed() {
+        String password = "backinblack";
+        SecurityUser user = new SecurityUser("Batman",
+                SecurityHelper.hashPassword(password, "salt", upgradedIterations), "salt", upgradedIterations);
+        when(repository.findByUsername("Batman")).thenReturn(user);
+
+        service.createTokenFor("Batman", password);
+
+        verify(repository, never()).save(user);
+        assertEquals("salt", user.getSalt());
+    }
+
+    @Test
+    public void wrongPasswordIsNotRehashed() {
+        thrown.expect(NotAuthorizedException.class);
+        thrown.expectMessage("Wrong password");
+        SecurityUser legacyUser = new SecurityUser("Batman", SecurityHelper.hashPassword("backinblack", "salt"), "salt", 0);
+        when(repository.findByUsername("Batman")).thenReturn(legacyUser);
+
+        service.createTokenFor("Batman", "burnitalldown");
+    }
+
+    @Test
+    public void wrongPasswordOnDeleteOpensNoTransaction() {
+        SecurityUser user = new SecurityUser("Batman", SecurityHelper.hashPassword("backinblack", "salt"), "salt", 0);
+        when(repository.findByUsername("Batman")).thenReturn(user);
+
+        try {
+            service.delete("Batman", "highwaytohell");
+        } catch (NotAuthorizedException e) {
+            verifyZeroInteractions(transactionManager, tokenRepository);
+            verify(repository, never()).delete(any(Long.class));
+            return;
+        }
+        throw new AssertionError("Wrong password was accepted");
+    }
+
+    @Test
+    public void asynchronousLoginSavesOnGivenExecutor() {
+        String password = "backinblack";
+        SecurityUser legacyUser = new SecurityUser("Batman", SecurityHelper.hashPassword(password, "salt"), "salt", 0);
+        when(repository.findByUsername("Batman")).thenReturn(legacyUser);
+        List<String> savingThreads = new ArrayList<>();
+        when(repository.save(legacyUser)).thenAnswer(invocation -> {
+            savingThreads.add(Thread.currentThread().getName());
+            return legacyUser;
+        });
+        when(tokenRepository.save(any(SecurityToken.class))).thenAnswer(invocation -> {
+            savingThreads.add(Thread.currentThread().getName());
+            return invocation.getArguments()[0];
+        });
+        ExecutorService callerSide = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "caller"));
+        try {
+            service.createTokenForAsync("Batman", password, callerSide).join();
+        } finally {
+            callerSide.shutdownNow();
+        }
+
+        assertEquals(Arrays.asList("caller", "caller"), savingThreads);
+    }
+}
@@ -0,0 +1,172 @@
+package se.teknikhogskolan.springcasemanagement.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static se.teknikhogskolan.springcasemanagement.model.WorkItem.Status.DONE;
+import static se.teknikhogskolan.springcasemanagement.model.WorkItem.Status.STARTED;
+import static se.teknikhogskolan.springcasemanagement.model.WorkItem.Status.UNSTARTED;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import se.teknikhogskolan.springcasemanagement.model.DailyWorkItemCount;
+import se.teknikhogskolan.springcasemanagement.model.Team;
+import se.teknikhogskolan.springcasemanagement.model.User;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.repository.DailyWorkItemCountRepository;
+import se.teknikhogskolan.springcasemanagement.service.exception.DatabaseException;
+import se.teknikhogskolan.springcasemanagement.service.exception.NotAllowedException;
+
+public final class TestStatisticsService {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Mock
+    private DailyWorkItemCountRepository countRepository;
+
+    @Mock
+    private WorkItem workItem;
+
+    @Mock
+    private User user;
+
+    @Mock
+    private Team team;
+
+    private StatisticsService statisticsService;
+
+    private final Long teamId = 2465878L;
+    private final LocalDate today = LocalDate.now();
+    private final LocalDate completed = LocalDate.of(2016, 11, 11);
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        statisticsService = new StatisticsService(countRepository, mock(PlatformTransactionManager.class));
+        when(workItem.getUser()).thenReturn(user);
+        when(user.getTeam()).thenReturn(team);
+        when(team.getId()).thenReturn(teamId);
+        when(workItem.getCompletionTeamId()).thenReturn(null);
+    }
+
+    @Test
+    public void missingCountIsInserted() {
+        when(workItem.getUser()).thenReturn(null);
+        when(workItem.getCreated()).thenReturn(completed);
+        when(countRepository.add(UNSTARTED, completed, DailyWorkItemCount.noTeam, 1)).thenReturn(0);
+
+        statisticsService.created(workItem);
+
+        verify(countRepository).save(any(DailyWorkItemCount.class));
+    }
+
+    @Test
+    public void reopeningTakesBackCompletion() {
+        when(workItem.getStatus()).thenReturn(STARTED);
+        when(countRepository.add(any(WorkItem.Status.class), any(LocalDate.class), any(Long.class), any(Long.class)))
+                .thenReturn(1);
+
+        statisticsService.statusChanged(workItem, DONE, completed, null);
+
+        verify(countRepository).add(DONE, completed, teamId, -1);
+        verify(countRepository).add(STARTED, today, teamId, 1);
+        verify(countRepository, never()).save(any(DailyWorkItemCount.class));
+    }
+
+    @Test
+    public void completionIsTakenBackFromTheTeamItWasCompletedUnder() {
+        Long otherTeamId = 4L;
+        when(workItem.getStatus()).thenReturn(STARTED);
+        when(countRepository.add(any(WorkItem.Status.class), any(LocalDate.class), any(Long.class), any(Long.class)))
+                .thenReturn(1);
+
+        statisticsService.statusChanged(workItem, DONE, completed, otherTeamId);
+
+        verify(countRepository).add(DONE, completed, otherTeamId, -1);
+        verify(countRepository).add(STARTED, today, teamId, 1);
+    }
+
+    @Test
+    public void failedWriteAfterCommitIsCountedAndTheRestAreWritten() {
+        when(workItem.getStatus()).thenReturn(STARTED);
+        when(countRepository.add(DONE, completed, teamId, -1)).thenThrow(new RecoverableDataAccessException("Down"));
+        when(countRepository.add(STARTED, today, teamId, 1)).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            statisticsService.statusChanged(workItem, DONE, completed, null);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.unbindResourceIfPossible(statisticsService);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(countRepository).add(STARTED, today, teamId, 1);
+        assertEquals(1, statisticsService.getFailedWrites());
+    }
+
+    @Test
+    public void unchangedStatusIsNotCounted() {
+        when(workItem.getStatus()).thenReturn(STARTED);
+        statisticsService.statusChanged(workItem, STARTED, null, null);
+        verifyZeroInteractions(countRepository);
+    }
+
+    @Test
+    public void countsInTransactionAreWrittenAfterCommit() {
+        when(workItem.getStatus()).thenReturn(DONE);
+        when(workItem.getCompletionDate()).thenReturn(today);
+        when(countRepository.add(DONE, today, teamId, 2)).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            statisticsService.statusChanged(workItem, STARTED, null, null);
+            statisticsService.statusChanged(workItem, UNSTARTED, null, null);
+            verifyZeroInteractions(countRepository);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(
+                            TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(countRepository).add(DONE, today, teamId, 2);
+        assertEquals(false, TransactionSynchronizationManager.hasResource(statisticsService));
+    }
+
+    @Test
+    public void canGetCompletedPerTeamPerDay() {
+        DailyWorkItemCount count = new DailyWorkItemCount(DONE, today, teamId, 3);
+        when(countRepository.findByStatusBetween(DONE, today.minusDays(89), today)).thenReturn(Arrays.asList(count));
+        assertEquals(Arrays.asList(count), statisticsService.getCompletedPerTeamPerDay(90));
+    }
+
+    @Test
+    public void getCompletedPerTeamPerDayRejectsNoDays() {
+        exception.expect(NotAllowedException.class);
+        statisticsService.getCompletedPerTeamPerDay(0);
+    }
+
+    @Test
+    public void getDailyCountsShouldCatchExceptionsAndThrowDatabaseException() {
+        exception.expect(DatabaseException.class);
+        when(countRepository.findByStatusBetween(DONE, completed, today))
+                .thenThrow(new RecoverableDataAccessException("Exception"));
+        statisticsService.getDailyCounts(DONE, completed, today);
+    }
+}
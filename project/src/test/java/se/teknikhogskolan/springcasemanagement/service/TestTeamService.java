@@ -22,7 +22,6 @@ import se.teknikhogskolan.springcasemanagement.service.exception.NotFoundExcepti
 
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 
 import static junit.framework.TestCase.assertNull;
 import static org.junit.Assert.*;
@@ -40,6 +39,9 @@ public final class TestTeamService {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private TeamWorkloadService workloadService;
+
     @Mock
     private Team mockedTeam;
 
@@ -273,21 +275,21 @@ public final class TestTeamService {
 
     @Test
     public void canAddUserToTeam() {
-        when(teamRepository.findOne(teamId)).thenReturn(team);
+        when(teamRepository.findByIdForUpdate(teamId)).thenReturn(team);
         when(userRepository.findOne(userId)).thenReturn(user);
-        teamService.addUserToTeam(teamId, userId);
+        assertTrue(teamService.addUserToTeam(teamId, userId).getUsers().contains(user));
         verify(userRepository).save(user);
+        verify(workloadService).changed(teamId);
     }
 
     @Test
     public void shouldThrowMaximumQuantityExceptionIfTeamIsFullWhenAddingUserToTeam() {
         thrown.expect(MaximumQuantityException.class);
         thrown.expectMessage(String.format("Team with id '%d' already have max amount of 10 allowed Users.", teamId));
-        when(teamRepository.findOne(teamId)).thenReturn(mockedTeam);
+        when(teamRepository.findByIdForUpdate(teamId)).thenReturn(mockedTeam);
         when(userRepository.findOne(userId)).thenReturn(user);
         when(mockedTeam.isActive()).thenReturn(true);
-        int maxAmountOfUsers = 10;
-        when(mockedTeam.getUsers()).thenReturn(getUsersFromTeam(maxAmountOfUsers));
+        when(userRepository.countByTeamId(teamId)).thenReturn(10L);
         teamService.addUserToTeam(teamId, userId);
     }
 
@@ -295,14 +297,14 @@ public final class TestTeamService {
     public void shouldThrowNotFoundExceptionIfUserIsNullWhenAddingUserToTeam() {
         thrown.expect(NotFoundException.class);
         thrown.expectMessage(String.format("No User with id '%d' exist.", userId));
-        when(teamRepository.findOne(teamId)).thenReturn(team);
+        when(teamRepository.findByIdForUpdate(teamId)).thenReturn(team);
         when(userRepository.findOne(userId)).thenReturn(null);
         teamService.addUserToTeam(teamId, userId);
     }
 
     @Test
     public void exceptionShouldHoldMissingClassIfNoUserFoundWhenTryingToAddToTeam() {
-        when(teamRepository.findOne(teamId)).thenReturn(team);
+        when(teamRepository.findByIdForUpdate(teamId)).thenReturn(team);
         when(userRepository.findOne(userId)).thenReturn(null);
         try {
             teamService.addUserToTeam(teamId, userId);
@@ -315,14 +317,14 @@ public final class TestTeamService {
     public void shouldThrowNotFoundExceptionIfTeamIsNullWhenAddingUserToTeam() {
         thrown.expect(NotFoundException.class);
         thrown.expectMessage(String.format("Team with id '%d' do not exist.", teamId));
-        when(teamRepository.findOne(teamId)).thenReturn(null);
+        when(teamRepository.findByIdForUpdate(teamId)).thenReturn(null);
         when(userRepository.findOne(userId)).thenReturn(user);
         teamService.addUserToTeam(teamId, userId);
     }
 
     @Test
     public void exceptionShouldHoldMissingClassIfNoTeamFoundWhenTryingToAddAUserToTeam() {
-        when(teamRepository.findOne(teamId)).thenReturn(null);
+        when(teamRepository.findByIdForUpdate(teamId)).thenReturn(null);
         when(userRepository.findOne(userId)).thenReturn(user);
         try {
             teamService.addUserToTeam(teamId, userId);
@@ -336,7 +338,7 @@ public final class TestTeamService {
         thrown.expect(NotAllowedException.class);
         thrown.expectMessage(String.format("Adding inactive User to Team is not allowed. User with id '%d' is inactive.",
                 userId));
-        when(teamRepository.findOne(teamId)).thenReturn(team);
+        when(teamRepository.findByIdForUpdate(teamId)).thenReturn(team);
         when(userRepository.findOne(userId)).thenReturn(user);
         user.setActive(false);
         teamService.addUserToTeam(teamId, userId);
@@ -346,7 +348,7 @@ public final class TestTeamService {
     public void shouldThrowNotAllowedExceptionIfTeamIsInactiveWhenAddingUserToTeam() {
         thrown.expect(NotAllowedException.class);
         thrown.expectMessage(String.format("Adding User to inactive Team is not allowed. Team with id '5' is inactive."));
-        when(teamRepository.findOne(teamId)).thenReturn(team);
+        when(teamRepository.findByIdForUpdate(teamId)).thenReturn(team);
         when(userRepository.findOne(userId)).thenReturn(user);
         team.setActive(false);
         teamService.addUserToTeam(teamId, userId);
@@ -356,7 +358,7 @@ public final class TestTeamService {
     public void shouldThrowDatabaseExceptionIfErrorOccursWhenAddingUserToTeam() {
         thrown.expect(DatabaseException.class);
         thrown.expectMessage(String.format("Cannot add User with id '%d' to Team with id '%d'.", userId, teamId));
-        when(teamRepository.findOne(teamId)).thenReturn(team);
+        when(teamRepository.findByIdForUpdate(teamId)).thenReturn(team);
         when(userRepository.findOne(userId)).thenReturn(user);
         doThrow(dataAccessException).when(userRepository).save(user);
         teamService.addUserToTeam(teamId, userId);
@@ -368,6 +370,7 @@ public final class TestTeamService {
         when(userRepository.findOne(userId)).thenReturn(user);
         teamService.removeUserFromTeam(teamId, userId);
         verify(userRepository).save(user);
+        verify(workloadService).changed(teamId);
         assertNull(user.getTeam());
     }
 
@@ -427,12 +430,4 @@ public final class TestTeamService {
         doThrow(dataAccessException).when(userRepository).findOne(userId);
         teamService.removeUserFromTeam(teamId, userId);
     }
-
-    private List<User> getUsersFromTeam(int amount) {
-        ArrayList<User> users = new ArrayList<>();
-        for (int i = 0; i < amount; i++) {
-            users.add(new User(10L + i, "username" + i, "", ""));
-        }
-        return users;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package se.teknikhogskolan.springcasemanagement.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import se.teknikhogskolan.springcasemanagement.model.Team;
+import se.teknikhogskolan.springcasemanagement.model.TeamWorkload;
+import se.teknikhogskolan.springcasemanagement.model.User;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.repository.TeamRepository;
+import se.teknikhogskolan.springcasemanagement.repository.TeamWorkloadRepository;
+import se.teknikhogskolan.springcasemanagement.repository.WorkItemRepository;
+import se.teknikhogskolan.springcasemanagement.service.exception.DatabaseException;
+import se.teknikhogskolan.springcasemanagement.service.exception.NotFoundException;
+
+public final class TestTeamWorkloadService {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Mock
+    private TeamWorkloadRepository workloadRepository;
+
+    @Mock
+    private WorkItemRepository workItemRepository;
+
+    @Mock
+    private TeamRepository teamRepository;
+
+    @Mock
+    private User user;
+
+    @Mock
+    private Team team;
+
+    private TeamWorkloadService workloadService;
+
+    private final Long teamId = 2465878L;
+    private final LocalDate created = LocalDate.of(2016, 11, 11);
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        workloadService = new TeamWorkloadService(workloadRepository, workItemRepository, teamRepository,
+                mock(PlatformTransactionManager.class));
+        when(user.getTeam()).thenReturn(team);
+        when(team.getId()).thenReturn(teamId);
+        when(workloadRepository.save(any(TeamWorkload.class))).thenAnswer(invocation -> invocation.getArguments()[0]);
+    }
+
+    @Test
+    public void refreshCountsEveryStatus() {
+        when(workloadRepository.findByTeamIdForUpdate(teamId)).thenReturn(new TeamWorkload(teamId)
+                .setCount(WorkItem.Status.DONE, 7));
+        when(workItemRepository.countByStatusInTeam(teamId)).thenReturn(rows(
+                new Object[] { WorkItem.Status.UNSTARTED, 2L }, new Object[] { WorkItem.Status.STARTED, 1L }));
+        when(workItemRepository.findOpenByTeamIdOldestFirst(any(Long.class), any(Pageable.class)))
+                .thenReturn(rows(new Object[] { 98486464L, created }));
+
+        TeamWorkload workload = workloadService.refresh(teamId);
+
+        assertEquals(2, workload.getUnstarted());
+        assertEquals(1, workload.getStarted());
+        assertEquals(0, workload.getDone());
+        assertEquals(Long.valueOf(98486464L), workload.getOldestOpenWorkItemId());
+        assertEquals(created, workload.getOldestOpenCreated());
+    }
+
+    @Test
+    public void refreshWithoutOpenWorkItemsHasNoOldest() {
+        when(workItemRepository.countByStatusInTeam(teamId)).thenReturn(rows(
+                new Object[] { WorkItem.Status.DONE, 3L }));
+        when(workItemRepository.findOpenByTeamIdOldestFirst(any(Long.class), any(Pageable.class)))
+                .thenReturn(new ArrayList<>());
+
+        TeamWorkload workload = workloadService.refresh(teamId);
+
+        assertEquals(3, workload.getDone());
+        assertNull(workload.getOldestOpenWorkItemId());
+    }
+
+    @Test
+    public void changesInTransactionAreRefreshedOnceAfterCommit() {
+        when(workItemRepository.findOpenByTeamIdOldestFirst(any(Long.class), any(Pageable.class)))
+                .thenReturn(new ArrayList<>());
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            workloadService.changed(user);
+            workloadService.changed(teamId);
+            verifyZeroInteractions(workloadRepository);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(
+                            TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(workloadRepository).findByTeamIdForUpdate(teamId);
+        assertEquals(false, TransactionSynchronizationManager.hasResource(workloadService));
+    }
+
+    @Test
+    public void failedRefreshAfterCommitIsCountedAndNotThrown() {
+        when(workloadRepository.findByTeamIdForUpdate(teamId)).thenThrow(new RecoverableDataAccessException("Down"));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            workloadService.changed(teamId);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.unbindResourceIfPossible(workloadService);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(1, workloadService.getFailedRefreshes());
+    }
+
+    @Test
+    public void userWithoutTeamChangesNothing() {
+        when(user.getTeam()).thenReturn(null);
+        workloadService.changed(user);
+        verifyZeroInteractions(workloadRepository, workItemRepository);
+    }
+
+    @Test
+    public void teamWithoutWorkloadHasEmptyWorkload() {
+        when(teamRepository.exists(teamId)).thenReturn(true);
+        TeamWorkload workload = workloadService.getByTeamId(teamId);
+        assertEquals(teamId, workload.getTeamId());
+        assertEquals(0, workload.getUnstarted() + workload.getStarted() + workload.getDone());
+    }
+
+    @Test
+    public void getByTeamIdShouldThrowNotFoundExceptionIfTeamDoNotExist() {
+        exception.expect(NotFoundException.class);
+        exception.expectMessage(String.format("Team with id '%d' do not exist.", teamId));
+        workloadService.getByTeamId(teamId);
+    }
+
+    @Test
+    public void refreshShouldCatchExceptionsAndThrowDatabaseException() {
+        exception.expect(DatabaseException.class);
+        when(workloadRepository.findByTeamIdForUpdate(teamId))
+                .thenThrow(new RecoverableDataAccessException("Exception"));
+        workloadService.refresh(teamId);
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return Arrays.asList(rows);
+    }
+}
@@ -2,13 +2,18 @@ package se.teknikhogskolan.springcasemanagement.service;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
@@ -32,8 +37,10 @@ import se.teknikhogskolan.springcasemanagement.model.User;
 import se.teknikhogskolan.springcasemanagement.model.WorkItem;
 import se.teknikhogskolan.springcasemanagement.model.WorkItem.Status;
 import se.teknikhogskolan.springcasemanagement.repository.UserRepository;
+import se.teknikhogskolan.springcasemanagement.service.exception.DatabaseException;
 import se.teknikhogskolan.springcasemanagement.service.exception.NotFoundException;
 import se.teknikhogskolan.springcasemanagement.service.exception.ServiceException;
+import se.teknikhogskolan.springcasemanagement.service.search.SearchIndex;
 
 @RunWith(MockitoJUnitRunner.class)
 public final class TestUserService {
@@ -47,6 +54,15 @@ public final class TestUserService {
     @Mock
     private User mockedUser;
 
+    @Mock
+    private SearchIndex searchIndex;
+
+    @Mock
+    private TeamWorkloadService workloadService;
+
+    @Mock
+    private StatisticsService statisticsService;
+
     @InjectMocks
     private UserService userService;
 
@@ -291,6 +307,37 @@ public final class TestUserService {
         verify(userRepository).save(mockedUser);
     }
 
+    @Test
+    public void inactivateUserCountsStatusChangesOfWorkItems() {
+        LocalDate completed = LocalDate.of(2016, 11, 11);
+        List<WorkItem> workItems = new ArrayList<>();
+        workItems.add(mockedWorkItem);
+        when(mockedWorkItem.getStatus()).thenReturn(Status.DONE);
+        when(mockedWorkItem.getCompletionDate()).thenReturn(completed);
+        when(mockedWorkItem.getCompletionTeamId()).thenReturn(4L);
+        when(userRepository.findByUserNumber(1L)).thenReturn(mockedUser);
+        when(mockedUser.getWorkItems()).thenReturn(workItems);
+        when(mockedUser.setActive(false)).thenReturn(mockedUser);
+        userService.inactivate(1L);
+        verify(statisticsService).statusChanged(mockedWorkItem, Status.DONE, completed, 4L);
+    }
+
+    @Test
+    public void failedInactivationIsNotCounted() {
+        List<WorkItem> workItems = new ArrayList<>();
+        workItems.add(mockedWorkItem);
+        when(userRepository.findByUserNumber(1L)).thenReturn(mockedUser);
+        when(mockedUser.getWorkItems()).thenReturn(workItems);
+        when(mockedUser.setActive(false)).thenReturn(mockedUser);
+        doThrow(dataAccessException).when(userRepository).save(mockedUser);
+        try {
+            userService.inactivate(1L);
+            fail("Expected DatabaseException");
+        } catch (DatabaseException e) {
+            verifyZeroInteractions(statisticsService);
+        }
+    }
+
     @Test
     public void inactivateUserNoWorkItemsAttachedStillInactivatesUser() {
         when(userRepository.findByUserNumber(1L)).thenReturn(user);
@@ -357,6 +404,19 @@ public final class TestUserService {
         assertEquals(users, usersFromDatabase);
     }
 
+    @Test
+    public void searchKeepsSearchIndexRankingWhenEnabled() {
+        User other = mock(User.class);
+        when(mockedUser.getId()).thenReturn(5L);
+        when(other.getId()).thenReturn(7L);
+        when(searchIndex.isEnabled()).thenReturn(true);
+        when(searchIndex.searchUsers("first", "last", "user")).thenReturn(Arrays.asList(7L, 5L));
+        when(userRepository.findAll(Arrays.asList(7L, 5L))).thenReturn(Arrays.asList(mockedUser, other));
+
+        assertEquals(Arrays.asList(other, mockedUser), userService.search("first", "last", "user"));
+        verify(userRepository, never()).searchUsers("first", "last", "user");
+    }
+
     @Test
     public void searchResultsAsEmptyListReturnsEmptyList() {
         when(userRepository.searchUsers("first", "last", "user")).thenReturn(new ArrayList<>());
@@ -371,6 +431,12 @@ public final class TestUserService {
         assertTrue(users.isEmpty());
     }
 
+    @Test
+    public void summarySearchResultsInNullReturnsEmptyList() {
+        when(userRepository.searchUserSummaries("first", "last", "user")).thenReturn(null);
+        assertTrue(userService.searchSummaries("first", "last", "user").isEmpty());
+    }
+
     @Test
     public void searchUsersThrowsServiceExceptionIfExceptionIsThrown() {
         doThrow(dataAccessException).when(userRepository)
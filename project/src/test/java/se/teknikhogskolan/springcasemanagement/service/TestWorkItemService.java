@@ -1,14 +1,30 @@
 package se.teknikhogskolan.springcasemanagement.service;
 
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import org.hibernate.jdbc.Work;
 import org.junit.Before;
@@ -23,6 +39,9 @@ import org.springframework.dao.RecoverableDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
 import se.teknikhogskolan.springcasemanagement.model.Issue;
 import se.teknikhogskolan.springcasemanagement.model.User;
@@ -30,9 +49,17 @@ import se.teknikhogskolan.springcasemanagement.model.WorkItem;
 import se.teknikhogskolan.springcasemanagement.model.WorkItem.Status;
 import se.teknikhogskolan.springcasemanagement.repository.IssueRepository;
 import se.teknikhogskolan.springcasemanagement.repository.UserRepository;
+import se.teknikhogskolan.springcasemanagement.repository.WorkItemRecord;
 import se.teknikhogskolan.springcasemanagement.repository.WorkItemRepository;
+import se.teknikhogskolan.springcasemanagement.service.cache.ApproximateCountCache;
 import se.teknikhogskolan.springcasemanagement.service.exception.*;
+import se.teknikhogskolan.springcasemanagement.service.retry.ConflictRetrier;
+import se.teknikhogskolan.springcasemanagement.service.search.SearchIndex;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.BatchResult;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.Chunk;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.ContinuationToken;
 import se.teknikhogskolan.springcasemanagement.service.wrapper.Piece;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.WorkItemCriteria;
 
 public final class TestWorkItemService {
     
@@ -60,6 +87,21 @@ public final class TestWorkItemService {
     @Mock
     private Piece<WorkItem> piece;
 
+    @Mock
+    private ApproximateCountCache countCache;
+
+    @Mock
+    private SearchIndex searchIndex;
+
+    @Mock
+    private ConflictRetrier conflictRetrier;
+
+    @Mock
+    private StatisticsService statisticsService;
+
+    @Mock
+    private TeamWorkloadService workloadService;
+
     @Mock
     private Page<WorkItem> page;
 
@@ -76,8 +118,11 @@ public final class TestWorkItemService {
     private List<WorkItem> workItemList = new ArrayList<>();
 
     @Before
+    @SuppressWarnings("unchecked")
     public void setup() {
         MockitoAnnotations.initMocks(this);
+        when(conflictRetrier.execute(anyString(), any(Supplier.class)))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArguments()[1]).get());
         workItemCollection.clear();
         workItemList.clear();
     }
@@ -115,17 +160,126 @@ public final class TestWorkItemService {
         workItemList.add(workItem);
         Page<WorkItem> workItemPage = new PageImpl<>(workItemList);
         PageRequest pageRequest = new PageRequest(0, 10);
-        when(workItemRepository.findAll(pageRequest)).thenReturn(workItemPage);
+        when(workItemRepository.findSlice(pageRequest)).thenReturn(workItemPage);
         
         Piece<WorkItem> result = workItemService.getAllByPiece(0, 10);
         assertNotNull(result);
     }
 
+    @Test
+    public void pieceCountsTotalOnlyOnceWhenAsked() {
+        workItemList.add(workItem);
+        PageRequest pageRequest = new PageRequest(0, 1);
+        when(workItemRepository.findSlice(pageRequest)).thenReturn(new SliceImpl<>(workItemList, pageRequest, true));
+        when(workItemRepository.count()).thenReturn(5L);
+
+        Piece<WorkItem> result = workItemService.getAllByPiece(0, 1);
+        verify(workItemRepository, never()).count();
+
+        assertEquals(5L, result.getTotalElements());
+        assertEquals(5, result.getTotalPages());
+        verify(workItemRepository, times(1)).count();
+    }
+
+    @Test
+    public void lastPieceKnowsTotalWithoutCounting() {
+        workItemList.add(workItem);
+        PageRequest pageRequest = new PageRequest(2, 3);
+        when(workItemRepository.findSlice(pageRequest)).thenReturn(new SliceImpl<>(workItemList, pageRequest, false));
+
+        Piece<WorkItem> result = workItemService.getAllByPiece(2, 3);
+
+        assertEquals(7L, result.getTotalElements());
+        verify(workItemRepository, never()).count();
+    }
+
+    @Test
+    public void pieceCanServeApproximateTotal() {
+        workItemList.add(workItem);
+        PageRequest pageRequest = new PageRequest(0, 1);
+        when(workItemRepository.findSlice(pageRequest)).thenReturn(new SliceImpl<>(workItemList, pageRequest, true));
+        when(countCache.get(eq(WorkItem.class), any(LongSupplier.class))).thenReturn(42L);
+
+        Piece<WorkItem> result = workItemService.getAllByPiece(0, 1, true);
+
+        assertEquals(42L, result.getTotalElements());
+        verify(workItemRepository, never()).count();
+    }
+
+    @Test
+    public void countingTotalShouldCatchExceptionsAndThrowServiceException() {
+        exception.expect(DatabaseException.class);
+        workItemList.add(workItem);
+        PageRequest pageRequest = new PageRequest(0, 1);
+        when(workItemRepository.findSlice(pageRequest)).thenReturn(new SliceImpl<>(workItemList, pageRequest, true));
+        when(workItemRepository.count()).thenThrow(dataAccessException);
+
+        workItemService.getAllByPiece(0, 1).getTotalElements();
+    }
+
+    @Test
+    public void chunkContinuesAfterLastRowHandedOut() {
+        WorkItem extraRow = new WorkItem("Extra");
+        when(workItem.getId()).thenReturn(workItemId);
+        when(workItemRepository.findAfterId(Long.MIN_VALUE, Chunk.pageableFor(1)))
+                .thenReturn(Arrays.asList(workItem, extraRow));
+
+        Chunk<WorkItem> chunk = workItemService.getFirstChunk(1, ContinuationToken.Order.ID);
+
+        assertEquals(Arrays.asList(workItem), chunk.getContent());
+        assertEquals(workItemId, ContinuationToken.decode(chunk.getContinuationToken()).getId());
+    }
+
+    @Test
+    public void getChunkShouldCatchExceptionsAndThrowServiceException() {
+        exception.expect(DatabaseException.class);
+        when(workItemRepository.findOrderedByCreated(Chunk.pageableFor(10))).thenThrow(dataAccessException);
+        workItemService.getFirstChunk(10, ContinuationToken.Order.CREATED);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void searchAsksForOneRowMoreThanTheChunk() {
+        when(workItem.getId()).thenReturn(workItemId);
+        when(workItemRepository.findMatching(any(Specification.class), eq(new Sort("id")), eq(2)))
+                .thenReturn(Arrays.asList(workItem, new WorkItem("Extra")));
+
+        Chunk<WorkItem> chunk = workItemService.search(new WorkItemCriteria().setStatus(Status.STARTED), 1,
+                ContinuationToken.Order.ID);
+
+        assertEquals(Arrays.asList(workItem), chunk.getContent());
+        assertEquals(workItemId, ContinuationToken.decode(chunk.getContinuationToken()).getId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void searchShouldCatchExceptionsAndThrowServiceException() {
+        exception.expect(DatabaseException.class);
+        when(workItemRepository.findMatching(any(Specification.class), any(Sort.class), eq(11)))
+                .thenThrow(dataAccessException);
+        workItemService.search(new WorkItemCriteria(), 10, ContinuationToken.Order.CREATED);
+    }
+
+    @Test
+    public void searchWithHalfOpenDateRangeIsNotAllowed() {
+        exception.expect(NotAllowedException.class);
+        exception.expectMessage("Created date range needs both a start and an end date.");
+        workItemService.search(new WorkItemCriteria().setCreatedBetween(LocalDate.now(), null), 10,
+                ContinuationToken.Order.ID);
+    }
+
+    @Test
+    public void searchWithReversedDateRangeIsNotAllowed() {
+        exception.expect(NotAllowedException.class);
+        workItemService.search(new WorkItemCriteria().setCompletedBetween(LocalDate.now(), LocalDate.now().minusDays(1)),
+                10, ContinuationToken.Order.ID);
+    }
+
     @Test
     public void canGetAllBySlicesMocked() {
         workItemCollection.add(workItem);
         PageRequest pageRequest = new PageRequest(1, 1);
-        when(workItemRepository.findAll(pageRequest)).thenReturn(page);
+        when(workItemRepository.findSlice(pageRequest)).thenReturn(page);
         when(page.hasContent()).thenReturn(true);
         
         Piece<WorkItem> result = workItemService.getAllByPiece(1, 1);
@@ -169,7 +323,7 @@ public final class TestWorkItemService {
         exception.expect(NotAllowedException.class);
         exception.expectMessage(String.format("User with usernumber '%d' is inactive. Only active User can be assigned to WorkItem", userNumber));
         when(workItemRepository.findOne(workItemId)).thenReturn(workItem);
-        when(userRepository.findByUserNumber(userNumber)).thenReturn(user);
+        when(userRepository.findByUserNumberForUpdate(userNumber)).thenReturn(user);
         when(user.isActive()).thenReturn(false);
         workItemService.setUser(userNumber, workItemId);
     }
@@ -178,31 +332,22 @@ public final class TestWorkItemService {
     public void settingUserWithFiveWorkItemToSixthWorkItemShouldThrowException() {
         exception.expect(MaximumQuantityException.class);
         exception.expectMessage("User already have max amount of 5 WorkItems allowed per User.");
-        when(userRepository.findByUserNumber(userNumber)).thenReturn(user);
+        when(userRepository.findByUserNumberForUpdate(userNumber)).thenReturn(user);
         when(user.isActive()).thenReturn(true);
         when(user.getId()).thenReturn(userId);
         when(workItemRepository.findOne(workItemId)).thenReturn(workItem);
-        workItemCollection = createListWithWorkItems(5);
-        when(workItemRepository.findByUserId(userId)).thenReturn(workItemCollection);
+        when(workItemRepository.countByUserId(userId)).thenReturn(5L);
         workItemService.setUser(userNumber, workItemId);
     }
 
-    private Collection<WorkItem> createListWithWorkItems(int amountOfItems) {
-        Collection<WorkItem> items = new ArrayList<>();
-        for (int i = 0; i < amountOfItems; i++)
-            items.add(new WorkItem("WorkItem #" + i));
-        return items;
-    }
-
     @Test
     public void canSetUserToWorkItem() {
-        when(userRepository.findByUserNumber(userNumber)).thenReturn(user);
+        when(userRepository.findByUserNumberForUpdate(userNumber)).thenReturn(user);
         when(user.isActive()).thenReturn(true);
         when(user.getUserNumber()).thenReturn(userNumber);
         when(workItem.getId()).thenReturn(workItemId);
-        workItemCollection = createListWithWorkItems(4);
         when(user.getId()).thenReturn(userId);
-        when(workItemRepository.findByUserId(userId)).thenReturn(workItemCollection);
+        when(workItemRepository.countByUserId(userId)).thenReturn(4L);
         when(workItemRepository.findOne(workItemId)).thenReturn(workItem);
         
         workItemService.setUser(userNumber, workItemId);
@@ -213,14 +358,14 @@ public final class TestWorkItemService {
     @Test
     public void canSetUserToWorkItemShouldCatchExceptionsAndThrowServiceExeption() {
         exception.expect(ServiceException.class);
-        when(userRepository.findByUserNumber(userNumber)).thenThrow(dataAccessException);
+        when(userRepository.findByUserNumberForUpdate(userNumber)).thenThrow(dataAccessException);
         workItemService.setUser(userNumber, workItemId);
     }
 
     @Test
     public void setNotFoundUserToWorkItemShouldThrowNoSearchResultExeption() {
         exception.expect(NotFoundException.class);
-        when(userRepository.findByUserNumber(userNumber)).thenReturn(null);
+        when(userRepository.findByUserNumberForUpdate(userNumber)).thenReturn(null);
         workItemService.setUser(userNumber, workItemId);
     }
 
@@ -437,6 +582,22 @@ public final class TestWorkItemService {
         verify(workItemRepository).findByDescriptionContains(searchText);
     }
 
+    @Test
+    public void findByDescriptionContainsKeepsSearchIndexRankingWhenEnabled() {
+        WorkItem best = mock(WorkItem.class);
+        WorkItem second = mock(WorkItem.class);
+        when(best.getId()).thenReturn(2L);
+        when(second.getId()).thenReturn(1L);
+        when(searchIndex.isEnabled()).thenReturn(true);
+        when(searchIndex.searchWorkItems("lead")).thenReturn(Arrays.asList(2L, 3L, 1L));
+        when(workItemRepository.findAll(Arrays.asList(2L, 3L, 1L))).thenReturn(Arrays.asList(second, best));
+
+        Collection<WorkItem> workItems = workItemService.getByDescriptionContains("lead");
+
+        assertEquals(Arrays.asList(best, second), new ArrayList<>(workItems));
+        verify(workItemRepository, never()).findByDescriptionContains("lead");
+    }
+
     @Test
     public void canFindByStatus() {
         Status wantedStatus = Status.STARTED;
@@ -485,6 +646,45 @@ public final class TestWorkItemService {
         verify(workItemRepository).save(workItem);
     }
 
+    @Test
+    public void statusChangeIsCountedWithStatusBeforeChange() {
+        when(workItem.getStatus()).thenReturn(Status.STARTED);
+        when(workItem.getCompletionTeamId()).thenReturn(null);
+        when(workItemRepository.findOne(workItemId)).thenReturn(workItem);
+        when(workItemRepository.save(workItem)).thenReturn(workItem);
+        workItemService.setStatus(workItemId, Status.DONE);
+        verify(statisticsService).statusChanged(workItem, Status.STARTED, null, null);
+    }
+
+    @Test
+    public void failedRemoveIsNotCounted() {
+        when(workItemRepository.findOne(workItemId)).thenReturn(workItem);
+        doThrow(dataAccessException).when(workItemRepository).delete(workItem);
+        try {
+            workItemService.removeById(workItemId);
+            fail("Expected DatabaseException");
+        } catch (DatabaseException e) {
+            verifyZeroInteractions(statisticsService);
+        }
+    }
+
+    @Test
+    public void changeStatusOnManyRejectsMissingIdsPerRow() {
+        Long missingId = 1L;
+        when(workItem.getId()).thenReturn(workItemId);
+        when(workItemRepository.findAll(anyListOf(Long.class))).thenReturn(Arrays.asList(workItem));
+        when(workItemRepository.saveInBatches(anyListOf(WorkItem.class)))
+                .thenAnswer(invocation -> invocation.getArguments()[0]);
+
+        BatchResult<WorkItem> result = workItemService.setStatus(Arrays.asList(missingId, workItemId), Status.STARTED);
+
+        verify(workItem).setStatus(Status.STARTED);
+        assertEquals(Arrays.asList(workItem), result.getAccepted());
+        assertEquals(1, result.getRejected().size());
+        assertEquals(0, result.getRejected().get(0).getRow());
+        assertTrue(result.getRejected().get(0).getReason() instanceof NotFoundException);
+    }
+
     @Test
     public void changeWorkItemStatusShouldCatchExceptionsAndThrowServiceException() {
         Status newStatus = Status.DONE;
@@ -504,6 +704,31 @@ public final class TestWorkItemService {
         workItemService.setStatus(workItem.getId(), newStatus);
     }
 
+    @Test
+    public void createAllRejectsExistingAndRepeatedDescriptionsPerRow() {
+        when(workItemRepository.findExistingDescriptions(anyListOf(String.class)))
+                .thenReturn(Arrays.asList("Existing"));
+        when(workItemRepository.saveInBatches(anyListOf(WorkItem.class)))
+                .thenAnswer(invocation -> invocation.getArguments()[0]);
+
+        BatchResult<WorkItem> result = workItemService.createAll(Arrays.asList("New", "Existing", "New", null));
+
+        assertEquals(1, result.getAccepted().size());
+        assertEquals("New", result.getAccepted().get(0).getDescription());
+        assertEquals(3, result.getRejected().size());
+        assertEquals(1, result.getRejected().get(0).getRow());
+        assertEquals(2, result.getRejected().get(1).getRow());
+        assertEquals(3, result.getRejected().get(2).getRow());
+        assertTrue(result.getRejected().get(0).getReason() instanceof NotAllowedException);
+    }
+
+    @Test
+    public void createAllShouldCatchExceptionsAndThrowServiceException() {
+        exception.expect(DatabaseException.class);
+        when(workItemRepository.findExistingDescriptions(anyListOf(String.class))).thenThrow(dataAccessException);
+        workItemService.createAll(Arrays.asList("New"));
+    }
+
     @Test
     public void canCreatePersistedWorkItem() {
         String workItemDescription = "Do something!";
@@ -560,4 +785,39 @@ public final class TestWorkItemService {
         doThrow(dataAccessException).when(workItemRepository).findByCompletionDate(from, to);
         workItemService.getCompletedWorkItems(from, to);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void exportClosesStreamWhenWritingFails() {
+        AtomicBoolean closed = new AtomicBoolean();
+        WorkItemRecord record = new WorkItemRecord(1L, "description", Status.DONE, null, null, null, null, null);
+        when(workItemRepository.streamAll(100)).thenReturn(Stream.of(record).onClose(() -> closed.set(true)));
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Disconnected");
+            }
+        };
+
+        try {
+            workItemService.export(failing, ExportFormat.CSV, 100);
+            fail("Expected ExportException");
+        } catch (ExportException e) {
+            assertTrue(closed.get());
+        }
+    }
+
+    @Test
+    public void exportThrowsDatabaseExceptionIfDatabaseFails() {
+        exception.expect(DatabaseException.class);
+        doThrow(dataAccessException).when(workItemRepository).streamAll(100);
+        workItemService.export(new ByteArrayOutputStream(), ExportFormat.CSV, 100);
+    }
+
+    @Test
+    public void summariesByStatusThrowsDatabaseExceptionIfDatabaseFails() {
+        exception.expect(DatabaseException.class);
+        exception.expectMessage("Cannot get WorkItem summaries by Status 'DONE'");
+        doThrow(dataAccessException).when(workItemRepository).findSummariesByStatus(Status.DONE);
+        workItemService.getSummariesByStatus(Status.DONE);
+    }
+}
@@ -0,0 +1,57 @@
+package se.teknikhogskolan.springcasemanagement.service.cache;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.RecoverableDataAccessException;
+
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+
+public final class TestApproximateCountCache {
+
+    private ApproximateCountCache cache;
+    private AtomicLong rows;
+    private AtomicLong countQueries;
+    private LongSupplier counter;
+
+    @Before
+    public void setUp() {
+        cache = new ApproximateCountCache();
+        rows = new AtomicLong(3);
+        countQueries = new AtomicLong();
+        counter = () -> {
+            countQueries.incrementAndGet();
+            return rows.get();
+        };
+    }
+
+    @Test
+    public void countIsTakenOnceUntilRefreshed() {
+        assertEquals(3, cache.get(WorkItem.class, counter));
+        rows.set(4);
+        assertEquals(3, cache.get(WorkItem.class, counter));
+        assertEquals(1, countQueries.get());
+
+        cache.refresh();
+        assertEquals(4, cache.get(WorkItem.class, counter));
+    }
+
+    @Test
+    public void failedRefreshKeepsLastCount() {
+        AtomicBoolean databaseDown = new AtomicBoolean();
+        LongSupplier flaky = () -> {
+            if (databaseDown.get()) throw new RecoverableDataAccessException("Exception");
+            return rows.get();
+        };
+        assertEquals(3, cache.get(WorkItem.class, flaky));
+
+        databaseDown.set(true);
+        cache.refresh();
+        assertEquals(3, cache.get(WorkItem.class, flaky));
+    }
+}
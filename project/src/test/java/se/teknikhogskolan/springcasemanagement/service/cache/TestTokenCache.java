@@ -0,0 +1,64 @@
+package se.teknikhogskolan.springcasemanagement.service.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public final class TestTokenCache {
+
+    private TokenCache cache;
+    private LocalDateTime tomorrow;
+
+    @Before
+    public void setUp() {
+        this.cache = new TokenCache(2, Duration.ofMinutes(5));
+        this.tomorrow = LocalDateTime.now().plusDays(1);
+    }
+
+    @Test
+    public void canGetCachedExpiration() {
+        cache.put("token", 1L, tomorrow);
+        assertEquals(tomorrow, cache.get("token"));
+    }
+
+    @Test
+    public void expiredTokenIsNotCached() {
+        cache.put("token", 1L, LocalDateTime.now().minusSeconds(1));
+        assertNull(cache.get("token"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void entryIsEvictedAfterTimeToLive() {
+        TokenCache noTimeToLive = new TokenCache(2, Duration.ZERO);
+        noTimeToLive.put("token", 1L, tomorrow);
+        assertNull(noTimeToLive.get("token"));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvictedWhenFull() {
+        cache.put("first", 1L, tomorrow);
+        cache.put("second", 1L, tomorrow);
+        cache.get("first");
+        cache.put("third", 2L, tomorrow);
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("second"));
+        assertEquals(tomorrow, cache.get("first"));
+    }
+
+    @Test
+    public void canInvalidateAllTokensOfUser() {
+        cache.put("first", 1L, tomorrow);
+        cache.put("second", 2L, tomorrow);
+        cache.invalidateUser(1L);
+
+        assertNull(cache.get("first"));
+        assertEquals(tomorrow, cache.get("second"));
+    }
+}
@@ -0,0 +1,102 @@
+package se.teknikhogskolan.springcasemanagement.service.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.TimeUnit;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.metrics.MetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public final class TestPoolMetrics {
+
+    private PoolMetrics metrics;
+    private MetricsTracker tracker;
+
+    @Before
+    public void setUp() {
+        metrics = new PoolMetrics();
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("h2");
+        config.setMaximumPoolSize(10);
+        metrics.track(config);
+        assertSame(metrics, config.getMetricsTrackerFactory());
+        tracker = metrics.create("h2", new FixedPoolStats(10, 4, 6, 2));
+    }
+
+    @Test
+    public void connectionCountsAreThePoolsOwn() {
+        PoolSnapshot snapshot = metrics.getPool("h2");
+        assertEquals(10, snapshot.getMaximumPoolSize());
+        assertEquals(10, snapshot.getTotalConnections());
+        assertEquals(4, snapshot.getActiveConnections());
+        assertEquals(6, snapshot.getIdleConnections());
+        assertEquals(2, snapshot.getPendingThreads());
+        assertEquals(0.4, snapshot.getUtilization(), 0.001);
+    }
+
+    @Test
+    public void waitsHoldsAndTimeoutsAreRecorded() {
+        for (int i = 1; i <= 100; i++) {
+            tracker.recordConnectionAcquiredNanos(TimeUnit.MICROSECONDS.toNanos(i));
+            tracker.recordConnectionUsageMillis(i);
+        }
+        tracker.recordConnectionTimeout();
+
+        PoolSnapshot snapshot = metrics.getPool("h2");
+        assertEquals(100, snapshot.getConnectionsAcquired());
+        assertEquals(50.5, snapshot.getMeanWaitMicros(), 0.5);
+        assertEquals(99, snapshot.getP99WaitMicros(), 0.5);
+        assertEquals(100, snapshot.getMaxWaitMicros(), 0.5);
+        assertEquals(50.5, snapshot.getMeanHoldMillis(), 0.5);
+        assertEquals(99, snapshot.getP99HoldMillis());
+        assertEquals(100, snapshot.getMaxHoldMillis());
+        assertEquals(1, snapshot.getTimeouts());
+    }
+
+    @Test
+    public void resetForgetsWaitsButNotThePool() {
+        tracker.recordConnectionAcquiredNanos(1000);
+        tracker.recordConnectionTimeout();
+
+        metrics.reset();
+
+        PoolSnapshot snapshot = metrics.getPool("h2");
+        assertEquals(0, snapshot.getConnectionsAcquired());
+        assertEquals(0, snapshot.getTimeouts());
+        assertEquals(4, snapshot.getActiveConnections());
+    }
+
+    @Test
+    public void closedPoolIsNoLongerReported() {
+        tracker.close();
+
+        assertNull(metrics.getPool("h2"));
+        assertEquals(0, metrics.getPools().size());
+    }
+
+    private static final class FixedPoolStats extends PoolStats {
+
+        private FixedPoolStats(int total, int active, int idle, int pending) {
+            super(0);
+            totalConnections = total;
+            activeConnections = active;
+            idleConnections = idle;
+            pendingThreads = pending;
+        }
+
+        @Override
+        protected void update() {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void poolWithoutNameIsNotTracked() {
+        metrics.track(new HikariConfig());
+    }
+}
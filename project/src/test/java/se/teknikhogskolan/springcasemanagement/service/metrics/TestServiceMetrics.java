@@ -0,0 +1,106 @@
+package se.teknikhogskolan.springcasemanagement.service.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.service.WorkItemService;
+import se.teknikhogskolan.springcasemanagement.service.exception.DatabaseException;
+import se.teknikhogskolan.springcasemanagement.service.exception.NotFoundException;
+
+public final class TestServiceMetrics {
+
+    private ServiceMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new ServiceMetrics();
+    }
+
+    @Test
+    public void callsAndLatenciesAreRecordedPerOperation() {
+        for (int i = 1; i <= 100; i++) {
+            metrics.record("WorkItemService.getById", TimeUnit.MICROSECONDS.toNanos(i), 0, null);
+        }
+        metrics.record("UserService.getById", TimeUnit.MILLISECONDS.toNanos(2), 0, null);
+
+        OperationSnapshot workItems = metrics.getOperation("WorkItemService.getById");
+        assertEquals(100, workItems.getCalls());
+        assertEquals(0, workItems.getFailures());
+        assertEquals(50.5, workItems.getMeanMicros(), 0.5);
+        assertEquals(50, workItems.getMedianMicros(), 0.5);
+        assertEquals(99, workItems.getP99Micros(), 0.5);
+        assertEquals(100, workItems.getMaxMicros(), 0.5);
+        assertEquals(2000, metrics.getOperation("UserService.getById").getMaxMicros(), 2);
+        assertEquals("[UserService.getById, WorkItemService.getById]", metrics.getOperations().keySet().toString());
+    }
+
+    @Test
+    public void exceptionsAreCountedByType() {
+        metrics.record("WorkItemService.getById", 1000, 0, new NotFoundException("No WorkItem"));
+        metrics.record("WorkItemService.getById", 1000, 0, new NotFoundException("No WorkItem"));
+        metrics.record("WorkItemService.getById", 1000, 0, new DatabaseException("Down"));
+        metrics.record("WorkItemService.getById", 1000, 0, null);
+
+        OperationSnapshot snapshot = metrics.getOperation("WorkItemService.getById");
+        assertEquals(4, snapshot.getCalls());
+        assertEquals(3, snapshot.getFailures());
+        assertEquals("{DatabaseException=1, NotFoundException=2}", snapshot.getExceptions().toString());
+    }
+
+    @Test
+    public void statementsAreSummedWithTheMostOfOneCall() {
+        metrics.record("WorkItemService.getByTeamId", 1000, 3, null);
+        metrics.record("WorkItemService.getByTeamId", 1000, 7, null);
+
+        OperationSnapshot snapshot = metrics.getOperation("WorkItemService.getByTeamId");
+        assertEquals(10, snapshot.getStatements());
+        assertEquals(7, snapshot.getMaxStatements());
+    }
+
+    @Test
+    public void operationNotCalledHasEmptySnapshot() {
+        OperationSnapshot snapshot = metrics.getOperation("WorkItemService.getById");
+
+        assertEquals(0, snapshot.getCalls());
+        assertTrue(snapshot.getExceptions().isEmpty());
+        assertTrue(metrics.getOperations().isEmpty());
+    }
+
+    @Test
+    public void snapshotIsNotChangedByLaterCalls() {
+        metrics.record("WorkItemService.getById", 1000, 0, null);
+        OperationSnapshot snapshot = metrics.getOperation("WorkItemService.getById");
+
+        metrics.record("WorkItemService.getById", 1000, 0, new NotFoundException("No WorkItem"));
+
+        assertEquals(1, snapshot.getCalls());
+        assertEquals(0, snapshot.getFailures());
+    }
+
+    @Test
+    public void resetForgetsEverything() {
+        metrics.record("WorkItemService.getById", 1000, 0, new NotFoundException("No WorkItem"));
+
+        metrics.reset();
+
+        assertTrue(metrics.getOperations().isEmpty());
+        assertEquals(0, metrics.getOperation("WorkItemService.getById").getCalls());
+    }
+
+    @Test
+    public void overloadedMethodsAreNamedWithParameterTypes() throws NoSuchMethodException {
+        assertEquals("WorkItemService.getById", ServiceMetricsInterceptor.operation(WorkItemService.class,
+                WorkItemService.class.getMethod("getById", Long.class)));
+        assertEquals("WorkItemService.setStatus(List,Status)", ServiceMetricsInterceptor.operation(
+                WorkItemService.class, WorkItemService.class.getMethod("setStatus", List.class, WorkItem.Status.class)));
+        assertEquals("WorkItemService.setStatus(Long,Status)", ServiceMetricsInterceptor.operation(
+                WorkItemService.class, WorkItemService.class.getMethod("setStatus", Long.class, WorkItem.Status.class)));
+    }
+}
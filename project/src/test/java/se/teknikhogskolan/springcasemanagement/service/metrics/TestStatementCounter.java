@@ -0,0 +1,183 @@
+package se.teknikhogskolan.springcasemanagement.service.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public final class TestStatementCounter {
+
+    private static final String select = "select * from WorkItem where id = ?";
+
+    private StatementCounter counter;
+    private PreparedStatement wrappedStatement;
+    private Connection connection;
+
+    @Before
+    public void setUp() throws SQLException {
+        counter = new StatementCounter(2, 100);
+        DataSource dataSource = mock(DataSource.class);
+        Connection wrappedConnection = mock(Connection.class);
+        wrappedStatement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(wrappedConnection);
+        when(wrappedConnection.prepareStatement(anyString())).thenReturn(wrappedStatement);
+        connection = new StatementCountingDataSource(dataSource, counter).getConnection();
+    }
+
+    @Test
+    public void executedStatementsAreRecorded() throws SQLException {
+        try (StatementRecording recording = counter.startRecording()) {
+            PreparedStatement statement = connection.prepareStatement(select);
+            statement.setLong(1, 98486464L);
+            statement.executeQuery();
+            connection.prepareStatement("update WorkItem set status = ? where id = ?").executeUpdate();
+
+            assertEquals(2, recording.getCount());
+            assertEquals(1, recording.getCount("SELECT"));
+            assertEquals(select, recording.getStatements().get(0));
+            verify(wrappedStatement).setLong(1, 98486464L);
+        }
+    }
+
+    @Test
+    public void batchCountsAsOneStatement() throws SQLException {
+        try (StatementRecording recording = counter.startRecording()) {
+            PreparedStatement statement = connection.prepareStatement(select);
+            statement.addBatch();
+            statement.addBatch();
+            statement.executeBatch();
+
+            assertEquals(1, recording.getCount());
+        }
+    }
+
+    @Test
+    public void recordingStopsWhenClosed() throws SQLException {
+        StatementRecording recording = counter.startRecording();
+        recording.close();
+
+        connection.prepareStatement(select).executeQuery();
+
+        assertEquals(0, recording.getCount());
+    }
+
+    @Test
+    public void assertionListsStatementsOverLimit() throws SQLException {
+        try (StatementRecording recording = counter.startRecording()) {
+            connection.prepareStatement(select).executeQuery();
+            connection.prepareStatement(select).executeQuery();
+            recording.assertAtMost(2).assertAtMost("update", 0);
+            try {
+                recording.assertAtMost("select", 1);
+                fail("Expected AssertionError");
+            } catch (AssertionError e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("Expected at most 1, but executed 2 select"));
+                assertTrue(e.getMessage(), e.getMessage().contains(select));
+            }
+        }
+    }
+
+    @Test
+    public void callOverLimitIsCounted() throws SQLException {
+        long start = counter.startCall();
+        connection.prepareStatement(select).executeQuery();
+        assertEquals(1, counter.endCall("WorkItemService.getById", start));
+
+        start = counter.startCall();
+        for (int i = 0; i < 3; i++) connection.prepareStatement(select).executeQuery();
+        assertEquals(3, counter.endCall("WorkItemService.getByTeamId", start));
+
+        assertEquals("{WorkItemService.getByTeamId=1}", counter.getCallsOverLimit().toString());
+    }
+
+    @Test
+    public void transactionOverLimitIsCounted() throws SQLException {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            for (int i = 0; i < 3; i++) connection.prepareStatement(select).executeQuery();
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, counter.getTransactionsOverLimit());
+        assertEquals(null, TransactionSynchronizationManager.getResource(counter));
+    }
+
+    @Test
+    public void slowStatementIsCounted() throws SQLException {
+        connection.prepareStatement(select).executeQuery();
+        assertEquals(0, counter.getSlowStatements());
+
+        counter.setSlowStatementMillis(0);
+        connection.prepareStatement(select).executeQuery();
+        assertEquals(1, counter.getSlowStatements());
+
+        counter.reset();
+        assertEquals(0, counter.getSlowStatements());
+    }
+
+    @Test
+    public void slowStatementIsLoggedWithoutParameterValuesUnlessFine() throws SQLException {
+        Logger log = Logger.getLogger(StatementCounter.class.getName());
+        List<LogRecord> records = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        handler.setLevel(Level.ALL);
+        Level level = log.getLevel();
+        log.addHandler(handler);
+        try {
+            counter.setSlowStatementMillis(0);
+            PreparedStatement statement = connection.prepareStatement(select);
+            statement.setString(1, "secretToken");
+            statement.executeQuery();
+            assertEquals(1, records.size());
+            assertEquals(Level.WARNING, records.get(0).getLevel());
+            assertFalse(records.get(0).getMessage().contains("secretToken"));
+            assertTrue(records.get(0).getMessage().contains("1 parameters"));
+
+            log.setLevel(Level.FINE);
+            statement.executeQuery();
+            assertEquals(3, records.size());
+            assertTrue(records.get(2).getMessage().contains("secretToken"));
+        } finally {
+            log.removeHandler(handler);
+            log.setLevel(level);
+        }
+    }
+}
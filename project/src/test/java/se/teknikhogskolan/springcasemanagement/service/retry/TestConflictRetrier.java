@@ -0,0 +1,76 @@
+package se.teknikhogskolan.springcasemanagement.service.retry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.service.exception.ConflictException;
+import se.teknikhogskolan.springcasemanagement.service.exception.DatabaseException;
+
+public final class TestConflictRetrier {
+
+    private ConflictRetrier retrier;
+    private AtomicInteger attempts;
+
+    @Before
+    public void setUp() {
+        retrier = new ConflictRetrier(mock(PlatformTransactionManager.class));
+        attempts = new AtomicInteger();
+    }
+
+    @Test
+    public void conflictIsRetriedAndCounted() {
+        String result = retrier.execute("setStatus", () -> {
+            if (attempts.incrementAndGet() < 3) throw conflict();
+            return "saved";
+        });
+
+        assertEquals("saved", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, retrier.getConflicts("setStatus"));
+        assertEquals(0, retrier.getConflicts("setUser"));
+    }
+
+    @Test
+    public void givesUpAfterMaxAttempts() {
+        try {
+            retrier.execute("setUser", () -> {
+                attempts.incrementAndGet();
+                throw conflict();
+            });
+            fail("Expected ConflictException");
+        } catch (ConflictException e) {
+            assertTrue(e.getCause() instanceof ObjectOptimisticLockingFailureException);
+        }
+        assertEquals(ConflictRetrier.maxAttempts, attempts.get());
+        assertEquals(Long.valueOf(ConflictRetrier.maxAttempts), retrier.getConflicts().get("setUser"));
+    }
+
+    @Test
+    public void otherFailuresAreNotRetried() {
+        try {
+            retrier.execute("setStatus", () -> {
+                attempts.incrementAndGet();
+                throw new DatabaseException("Cannot save", new RecoverableDataAccessException("Exception"));
+            });
+            fail("Expected DatabaseException");
+        } catch (DatabaseException e) {
+            assertEquals(1, attempts.get());
+        }
+        assertTrue(retrier.getConflicts().isEmpty());
+    }
+
+    private ObjectOptimisticLockingFailureException conflict() {
+        return new ObjectOptimisticLockingFailureException(WorkItem.class, 1L);
+    }
+}
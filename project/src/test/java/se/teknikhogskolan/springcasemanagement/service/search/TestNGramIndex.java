@@ -0,0 +1,80 @@
+package se.teknikhogskolan.springcasemanagement.service.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public final class TestNGramIndex {
+
+    private NGramIndex index;
+
+    @Before
+    public void setUp() {
+        index = new NGramIndex(1);
+        index.put(1L, "Lead the team in battle");
+        index.put(2L, "Lead TMNT");
+        index.put(3L, "Misleading the clan");
+        index.put(4L, "Lead foot clan");
+    }
+
+    @Test
+    public void findsSubstringsIgnoringCase() {
+        assertEquals(Arrays.asList(3L), index.search("SLEAD"));
+        assertEquals(Arrays.asList(4L, 3L), index.search("clan"));
+    }
+
+    @Test
+    public void ranksWholeWordsAtStartFirstThenShorterText() {
+        assertEquals(Arrays.asList(2L, 4L, 1L, 3L), index.search("lead"));
+    }
+
+    @Test
+    public void wordStartRanksAboveMatchInsideWord() {
+        index.put(5L, "teamwork");
+        index.put(6L, "steam");
+        assertEquals(Arrays.asList(1L, 5L, 6L), index.search("team"));
+    }
+
+    @Test
+    public void shortQueriesScanEveryDocument() {
+        assertEquals(Arrays.asList(2L), index.search("tm"));
+    }
+
+    @Test
+    public void emptyQueryMatchesEveryDocumentAndNullMatchesNone() {
+        assertEquals(4, index.search("").size());
+        assertTrue(index.search((String) null).isEmpty());
+    }
+
+    @Test
+    public void putReplacesAndRemoveForgetsDocument() {
+        index.put(2L, "Eat pizza");
+        assertEquals(Arrays.asList(4L, 1L, 3L), index.search("lead"));
+        assertEquals(Arrays.asList(2L), index.search("pizza"));
+
+        index.remove(2L);
+        assertEquals(Collections.emptyList(), index.search("pizza"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void everyFieldMustContainItsQuery() {
+        NGramIndex users = new NGramIndex(3);
+        users.put(1L, "Leonardo", "Hamato", "leo1234567");
+        users.put(2L, "Raphael", "Hamato", "raph123456");
+        users.put(3L, "Leonardo", null, "leo7654321");
+
+        assertEquals(Arrays.asList(1L), users.search("leo", "hamato", ""));
+        assertEquals(Arrays.asList(2L, 1L), users.search("", "Hamato", "12"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongNumberOfQueriesIsRejected() {
+        index.search("lead", "team");
+    }
+}
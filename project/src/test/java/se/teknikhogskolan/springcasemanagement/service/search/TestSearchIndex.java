@@ -0,0 +1,74 @@
+package se.teknikhogskolan.springcasemanagement.service.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+
+public final class TestSearchIndex {
+
+    private SearchIndex searchIndex;
+
+    @Before
+    public void setUp() {
+        searchIndex = new SearchIndex(true, 2);
+    }
+
+    @Test
+    public void indexBelowBoundIsSearched() {
+        searchIndex.index(workItem(1L, "Lead TMNT"));
+        searchIndex.index(workItem(2L, "Lead foot clan"));
+        assertTrue(searchIndex.isEnabled());
+        assertEquals(Arrays.asList(1L, 2L), searchIndex.searchWorkItems("lead"));
+    }
+
+    @Test
+    public void indexGrowingPastBoundIsEmptiedAndTurnedOff() {
+        searchIndex.index(workItem(1L, "Lead TMNT"));
+        searchIndex.index(workItem(2L, "Lead foot clan"));
+        searchIndex.index(workItem(3L, "Lead the team in battle"));
+        assertFalse(searchIndex.isEnabled());
+        assertEquals(0, searchIndex.size());
+
+        searchIndex.index(workItem(4L, "Lead again"));
+        assertEquals(0, searchIndex.size());
+    }
+
+    @Test
+    public void rebuildThatFitsTurnsIndexBackOn() {
+        searchIndex.replace(index(3), new NGramIndex(3));
+        assertFalse(searchIndex.isEnabled());
+
+        searchIndex.replace(index(2), new NGramIndex(3));
+        assertTrue(searchIndex.isEnabled());
+        assertEquals(2, searchIndex.size());
+    }
+
+    @Test
+    public void indexTurnedOffIsNeverEnabled() {
+        assertFalse(new SearchIndex(false, 2).isEnabled());
+    }
+
+    private NGramIndex index(int documents) {
+        NGramIndex index = new NGramIndex(1);
+        for (long id = 1; id <= documents; id++) {
+            index.put(id, "Work item " + id);
+        }
+        return index;
+    }
+
+    private WorkItem workItem(Long id, String description) {
+        WorkItem workItem = mock(WorkItem.class);
+        when(workItem.getId()).thenReturn(id);
+        when(workItem.getDescription()).thenReturn(description);
+        return workItem;
+    }
+}
@@ -5,6 +5,9 @@ import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ TestIssueIntegration.class, TestTeamIntegration.class, TestUserIntegration.class,
-        TestWorkItemIntegration.class })
+        TestWorkItemIntegration.class, TestSecondLevelCacheIntegration.class, TestFetchPlanIntegration.class,
+        TestQueryPlanIntegration.class, TestStatementCountIntegration.class, TestServiceMetricsIntegration.class,
+        TestPoolConfigIntegration.class, TestPoolMetricsIntegration.class, TestStatisticsIntegration.class,
+        TestTeamWorkloadIntegration.class, TestSearchIndexIntegration.class })
 public class AllIntegrationTests {
 }
@@ -0,0 +1,86 @@
+package se.teknikhogskolan.springcasemanagement.system;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import se.teknikhogskolan.springcasemanagement.config.JpaConfig;
+import se.teknikhogskolan.springcasemanagement.config.h2.H2InfrastructureConfig;
+import se.teknikhogskolan.springcasemanagement.model.Team;
+import se.teknikhogskolan.springcasemanagement.model.User;
+import se.teknikhogskolan.springcasemanagement.repository.UserSummary;
+import se.teknikhogskolan.springcasemanagement.service.TeamService;
+import se.teknikhogskolan.springcasemanagement.service.UserService;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { H2InfrastructureConfig.class })
+@TestPropertySource(properties = JpaConfig.statisticsEnabledProperty + "=true")
+@DirtiesContext
+@SqlGroup({ @Sql(scripts = "insert_user.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+        @Sql(scripts = "h2_clean_tables.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD) })
+public class TestFetchPlanIntegration {
+
+    @Autowired
+    private TeamService teamService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics.clear();
+    }
+
+    @Test
+    public void getAllTeamsIsOneStatement() {
+        int teams = 0;
+        for (Team team : teamService.getAll()) {
+            team.getName();
+            teams++;
+        }
+        assertEquals(2, teams);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void getAllUsersByTeamIdIsOneStatement() {
+        List<User> users = userService.getAllByTeamId(1L);
+        users.forEach(user -> user.getTeam().getName());
+
+        assertEquals(3, users.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void getUserByIdLoadsWorkItems() {
+        User luke = userService.getById(10L);
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(2, luke.getWorkItems().size());
+        assertEquals(statements, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void userSummariesAreOneStatementAndLoadNoEntities() {
+        List<UserSummary> users = userService.searchSummaries("", "Skywalker", "");
+
+        assertEquals(2, users.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
@@ -19,6 +19,8 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import se.teknikhogskolan.springcasemanagement.config.h2.H2InfrastructureConfig;
 import se.teknikhogskolan.springcasemanagement.model.Issue;
 import se.teknikhogskolan.springcasemanagement.service.IssueService;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.Chunk;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.ContinuationToken;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(classes = H2InfrastructureConfig.class)
@@ -98,4 +100,15 @@ public class TestIssueIntegration {
         Page<Issue> issuePage = issueService.getAllByPage(1, 2);
         assertEquals(issuePage.getSize(), issuesFromPageOne.size());
     }
+
+    @Test
+    public void canGetIssuesByChunks() {
+        Chunk<Issue> first = issueService.getFirstChunk(2, ContinuationToken.Order.ID);
+        assertEquals(2, first.getNumberOfElements());
+        assertEquals(Long.valueOf(2L), first.getContent().get(1).getId());
+
+        Chunk<Issue> last = issueService.getNextChunk(first.getContinuationToken(), 2);
+        assertEquals(Long.valueOf(3L), last.getContent().get(0).getId());
+        assertFalse(last.hasNext());
+    }
 }
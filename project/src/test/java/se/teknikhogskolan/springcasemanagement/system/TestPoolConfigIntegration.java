@@ -0,0 +1,41 @@
+package se.teknikhogskolan.springcasemanagement.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import se.teknikhogskolan.springcasemanagement.config.JpaConfig;
+import se.teknikhogskolan.springcasemanagement.config.h2.H2InfrastructureConfig;
+import se.teknikhogskolan.springcasemanagement.service.TeamService;
+import se.teknikhogskolan.springcasemanagement.service.metrics.PoolMetrics;
+import se.teknikhogskolan.springcasemanagement.service.metrics.PoolSnapshot;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { H2InfrastructureConfig.class })
+@TestPropertySource(properties = JpaConfig.poolConfigPropertyPrefix
+        + "h2=classpath:se/teknikhogskolan/springcasemanagement/system/unnamed_pool.properties")
+@DirtiesContext
+public class TestPoolConfigIntegration {
+
+    @Autowired
+    private PoolMetrics metrics;
+
+    @Autowired
+    private TeamService teamService;
+
+    @Test
+    public void poolWithoutNameInItsPropertiesIsNamedAfterTheConfiguration() {
+        teamService.getAll();
+
+        PoolSnapshot snapshot = metrics.getPool("h2");
+        assertNotNull(snapshot);
+        assertEquals(3, snapshot.getMaximumPoolSize());
+    }
+}
@@ -0,0 +1,68 @@
+package se.teknikhogskolan.springcasemanagement.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import se.teknikhogskolan.springcasemanagement.config.MetricsConfig;
+import se.teknikhogskolan.springcasemanagement.config.h2.H2InfrastructureConfig;
+import se.teknikhogskolan.springcasemanagement.service.WorkItemService;
+import se.teknikhogskolan.springcasemanagement.service.metrics.PoolMetrics;
+import se.teknikhogskolan.springcasemanagement.service.metrics.PoolSnapshot;
+
+/** A context of its own, as the MBean of a cached context closed earlier may have gone with it. */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { H2InfrastructureConfig.class })
+@DirtiesContext(classMode = ClassMode.BEFORE_CLASS)
+@SqlGroup({
+    @Sql(scripts = "insert_workitem.sql", executionPhase = ExecutionPhase.BEFORE_TEST_METHOD),
+    @Sql(scripts = "h2_clean_tables.sql", executionPhase = ExecutionPhase.AFTER_TEST_METHOD)
+})
+public class TestPoolMetricsIntegration {
+
+    @Autowired
+    private PoolMetrics metrics;
+
+    @Autowired
+    private WorkItemService workItemService;
+
+    @Test
+    public void poolIsConfiguredFromItsPropertiesAndTracked() {
+        workItemService.getById(98486464L);
+
+        PoolSnapshot snapshot = metrics.getPool("h2");
+        assertNotNull(snapshot);
+        assertEquals(10, snapshot.getMaximumPoolSize());
+        assertTrue(snapshot.getConnectionsAcquired() > 0);
+        assertEquals(0, snapshot.getTimeouts());
+    }
+
+    @Test
+    public void snapshotsArePublishedOverJmx() throws Exception {
+        workItemService.getById(98486464L);
+
+        TabularData pools = (TabularData) ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(MetricsConfig.poolMetricsObjectName), "Pools");
+        CompositeData row = pools.get(new Object[] { "h2" });
+        assertNotNull(row);
+        CompositeData snapshot = (CompositeData) row.get("value");
+        assertEquals(10, snapshot.get("maximumPoolSize"));
+    }
+}
@@ -0,0 +1,333 @@
+package se.teknikhogskolan.springcasemanagement.system;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.data.jpa.domain.Specifications.where;
+import static se.teknikhogskolan.springcasemanagement.repository.WorkItemSpecifications.*;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import se.teknikhogskolan.springcasemanagement.config.h2.H2InfrastructureConfig;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.repository.DailyWorkItemCountRepository;
+import se.teknikhogskolan.springcasemanagement.repository.IssueRepository;
+import se.teknikhogskolan.springcasemanagement.repository.SecurityTokenRepository;
+import se.teknikhogskolan.springcasemanagement.repository.SecurityUserRepository;
+import se.teknikhogskolan.springcasemanagement.repository.TeamRepository;
+import se.teknikhogskolan.springcasemanagement.repository.TeamWorkloadRepository;
+import se.teknikhogskolan.springcasemanagement.repository.UserRepository;
+import se.teknikhogskolan.springcasemanagement.repository.WorkItemRecord;
+import se.teknikhogskolan.springcasemanagement.repository.WorkItemRepository;
+import se.teknikhogskolan.springcasemanagement.repository.WorkItemRepositoryCustom;
+import se.teknikhogskolan.springcasemanagement.repository.paging.PagingIssueRepository;
+
+/**
+ * Runs every repository query on H2, each in a transaction of its own, and asks H2 for the plan of every select,
+ * update and delete it executed. A plan with a table scan fails the test unless the query is in {@link #scansAllowed}
+ * with the reason no index can serve it, and an allowed query that no longer scans fails too, so the list stays
+ * honest. Every query method the repositories declare must be run here, the test finds the ones that are not.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { H2InfrastructureConfig.class })
+@SqlGroup({ @Sql(scripts = "insert_workitem.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+        @Sql(scripts = "h2_clean_tables.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD) })
+public class TestQueryPlanIntegration {
+
+    private static final List<Class<?>> repositories = Arrays.asList(WorkItemRepository.class,
+            WorkItemRepositoryCustom.class, UserRepository.class, TeamRepository.class, IssueRepository.class,
+            PagingIssueRepository.class, SecurityUserRepository.class, SecurityTokenRepository.class,
+            DailyWorkItemCountRepository.class, TeamWorkloadRepository.class);
+
+    /** Queries that may scan a table, and why. */
+    private static final Map<String, String> scansAllowed = new HashMap<>();
+
+    static {
+        String wholeTable = "reads every row by design";
+        String wildcard = "searches with a leading wildcard, which no index can serve";
+        String isNotNull = "H2 cannot use an index for is not null, MySQL reads the index range";
+        scansAllowed.put("WorkItemRepository.findAll(Pageable)", wholeTable);
+        scansAllowed.put("WorkItemRepository.findSlice(Pageable)", wholeTable);
+        scansAllowed.put("WorkItemRepository.findByDescriptionContains(String)", wildcard);
+        scansAllowed.put("WorkItemRepository.findByIssueIsNotNull()", isNotNull);
+        scansAllowed.put("UserRepository.findAll(Pageable)", wholeTable);
+        scansAllowed.put("UserRepository.findSlice(Pageable)", wholeTable);
+        scansAllowed.put("UserRepository.streamNames()", wholeTable);
+        scansAllowed.put("UserRepository.searchUsers(String, String, String)", wildcard);
+        scansAllowed.put("PagingIssueRepository.findAll(Pageable)", wholeTable);
+        scansAllowed.put("PagingIssueRepository.findSlice(Pageable)", wholeTable);
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WorkItemRepository workItemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private IssueRepository issueRepository;
+
+    @Autowired
+    private PagingIssueRepository pagingIssueRepository;
+
+    @Autowired
+    private SecurityUserRepository securityUserRepository;
+
+    @Autowired
+    private SecurityTokenRepository securityTokenRepository;
+
+    @Autowired
+    private DailyWorkItemCountRepository dailyWorkItemCountRepository;
+
+    @Autowired
+    private TeamWorkloadRepository teamWorkloadRepository;
+
+    private final LocalDate date = LocalDate.of(2016, 11, 11);
+    private final PageRequest page = new PageRequest(0, 5);
+    private final Map<String, Runnable> queries = new LinkedHashMap<>();
+
+    @Before
+    public void listQueries() {
+        query("WorkItemRepository.findAll(Iterable)",
+                () -> workItemRepository.findAll(Arrays.asList(98486464L, 12343456L)));
+        query("WorkItemRepository.findAll(Pageable)", () -> workItemRepository.findAll(page));
+        query("WorkItemRepository.findByStatus(Status)",
+                () -> workItemRepository.findByStatus(WorkItem.Status.STARTED));
+        query("WorkItemRepository.findByUserId(Long)", () -> workItemRepository.findByUserId(6165111L));
+        query("WorkItemRepository.countByUserId(Long)", () -> workItemRepository.countByUserId(6165111L));
+        query("WorkItemRepository.findByDescriptionContains(String)",
+                () -> workItemRepository.findByDescriptionContains("Lead"));
+        query("WorkItemRepository.findByIssueIsNotNull()", () -> workItemRepository.findByIssueIsNotNull());
+        query("WorkItemRepository.findByTeamId(Long)", () -> workItemRepository.findByTeamId(2465878L));
+        query("WorkItemRepository.findByCompletionDate(LocalDate, LocalDate)",
+                () -> workItemRepository.findByCompletionDate(date, date));
+        query("WorkItemRepository.findByCreationDate(LocalDate, LocalDate)",
+                () -> workItemRepository.findByCreationDate(date, date));
+        query("WorkItemRepository.findExistingDescriptions(Collection)",
+                () -> workItemRepository.findExistingDescriptions(Arrays.asList("Be evil", "Be good")));
+        query("WorkItemRepository.findAfterId(Long, Pageable)", () -> workItemRepository.findAfterId(10186464L, page));
+        query("WorkItemRepository.findOrderedByCreated(Pageable)", () -> workItemRepository.findOrderedByCreated(page));
+        query("WorkItemRepository.findAfterCreated(LocalDate, Long, Pageable)",
+                () -> workItemRepository.findAfterCreated(date, 10186464L, page));
+        query("WorkItemRepository.findSlice(Pageable)", () -> workItemRepository.findSlice(page));
+        query("WorkItemRepository.findSummariesByStatus(Status)",
+                () -> workItemRepository.findSummariesByStatus(WorkItem.Status.STARTED));
+        query("WorkItemRepository.findSummariesByTeamId(Long)",
+                () -> workItemRepository.findSummariesByTeamId(2465878L));
+        query("WorkItemRepository.countByStatusInTeam(Long)", () -> workItemRepository.countByStatusInTeam(2465878L));
+        query("WorkItemRepository.findOpenByTeamIdOldestFirst(Long, Pageable)",
+                () -> workItemRepository.findOpenByTeamIdOldestFirst(2465878L, page));
+        query("WorkItemRepositoryCustom.saveInBatches(Collection)",
+                () -> workItemRepository.saveInBatches(Arrays.asList(new WorkItem("Order pizza"))));
+        query("WorkItemRepositoryCustom.streamAll(int)", () -> {
+            try (Stream<WorkItemRecord> records = workItemRepository.streamAll(5)) {
+                records.count();
+            }
+        });
+        query("WorkItemRepositoryCustom.findMatching(Specification, Sort, int) status in team",
+                () -> workItemRepository.findMatching(where(hasStatus(WorkItem.Status.STARTED))
+                        .and(inTeam(2465878L)), new Sort("id"), 5));
+        query("WorkItemRepositoryCustom.findMatching(Specification, Sort, int) user created after id",
+                () -> workItemRepository.findMatching(where(hasUser(6165111L)).and(createdBetween(date, date))
+                        .and(idAfter(0L)), new Sort("id"), 5));
+        query("WorkItemRepositoryCustom.findMatching(Specification, Sort, int) completed",
+                () -> workItemRepository.findMatching(where(completedBetween(date, date)), new Sort("id"), 5));
+        query("WorkItemRepositoryCustom.findMatching(Specification, Sort, int) after created",
+                () -> workItemRepository.findMatching(where(hasCreated()).and(createdAfter(date, 0L)),
+                        new Sort("created", "id"), 5));
+
+        query("UserRepository.findOne(Long)", () -> userRepository.findOne(26344L));
+        query("UserRepository.findAll(Iterable)", () -> userRepository.findAll(Arrays.asList(26344L, 22523L)));
+        query("UserRepository.findByUserNumberForUpdate(Long)", () -> userRepository.findByUserNumberForUpdate(10003L));
+        query("UserRepository.countByTeamId(Long)", () -> userRepository.countByTeamId(2465878L));
+        query("UserRepository.findByUserNumber(Long)", () -> userRepository.findByUserNumber(10003L));
+        query("UserRepository.searchUsers(String, String, String)", () -> userRepository.searchUsers("", "", "Leo"));
+        query("UserRepository.searchUserSummaries(String, String, String)",
+                () -> userRepository.searchUserSummaries("", "", "Leo"));
+        query("UserRepository.findAll(Pageable)", () -> userRepository.findAll(page));
+        query("UserRepository.findByTeamId(Long)", () -> userRepository.findByTeamId(2465878L));
+        query("UserRepository.findByCreationDate(LocalDate, LocalDate)",
+                () -> userRepository.findByCreationDate(date, date));
+        query("UserRepository.findAfterId(Long, Pageable)", () -> userRepository.findAfterId(22523L, page));
+        query("UserRepository.findOrderedByCreated(Pageable)", () -> userRepository.findOrderedByCreated(page));
+        query("UserRepository.findAfterCreated(LocalDate, Long, Pageable)",
+                () -> userRepository.findAfterCreated(date, 22523L, page));
+        query("UserRepository.findSlice(Pageable)", () -> userRepository.findSlice(page));
+        query("UserRepository.streamNames()", () -> {
+            try (Stream<Object[]> names = userRepository.streamNames()) {
+                names.count();
+            }
+        });
+
+        query("TeamRepository.findOne(Long)", () -> teamRepository.findOne(2465878L));
+        query("TeamRepository.findByIdForUpdate(Long)", () -> teamRepository.findByIdForUpdate(2465878L));
+        query("TeamRepository.findByName(String)", () -> teamRepository.findByName("Teenage Mutant Ninja Turtles"));
+
+        query("IssueRepository.findOne(Long)", () -> issueRepository.findOne(123541L));
+        query("IssueRepository.findByDescription(String)",
+                () -> issueRepository.findByDescription("The turtles need pizza for energy to fight"));
+
+        query("PagingIssueRepository.findAll(Pageable)", () -> pagingIssueRepository.findAll(page));
+        query("PagingIssueRepository.findAfterId(Long, Pageable)", () -> pagingIssueRepository.findAfterId(0L, page));
+        query("PagingIssueRepository.findOrderedByCreated(Pageable)",
+                () -> pagingIssueRepository.findOrderedByCreated(page));
+        query("PagingIssueRepository.findAfterCreated(LocalDate, Long, Pageable)",
+                () -> pagingIssueRepository.findAfterCreated(date, 0L, page));
+        query("PagingIssueRepository.findSlice(Pageable)", () -> pagingIssueRepository.findSlice(page));
+
+        query("SecurityUserRepository.findByToken(String)", () -> securityUserRepository.findByToken("token"));
+        query("SecurityUserRepository.findByUsername(String)",
+                () -> securityUserRepository.findByUsername("Splinter"));
+
+        query("SecurityTokenRepository.findByToken(String)", () -> securityTokenRepository.findByToken("token"));
+        query("SecurityTokenRepository.deleteByExpiresAtBefore(LocalDateTime)",
+                () -> securityTokenRepository.deleteByExpiresAtBefore(date.atStartOfDay()));
+        query("SecurityTokenRepository.deleteByUserId(Long)", () -> securityTokenRepository.deleteByUserId(68165L));
+
+        query("DailyWorkItemCountRepository.add(Status, LocalDate, Long, long)",
+                () -> dailyWorkItemCountRepository.add(WorkItem.Status.DONE, date, 2465878L, 1));
+        query("DailyWorkItemCountRepository.findByStatusBetween(Status, LocalDate, LocalDate)",
+                () -> dailyWorkItemCountRepository.findByStatusBetween(WorkItem.Status.DONE, date, date));
+
+        query("TeamWorkloadRepository.findByTeamIdForUpdate(Long)",
+                () -> teamWorkloadRepository.findByTeamIdForUpdate(2465878L));
+    }
+
+    @After
+    public void stopRecording() throws SQLException {
+        execute("set query_statistics false");
+    }
+
+    @Test
+    public void everyRepositoryQueryIsPlanned() {
+        List<String> missing = new ArrayList<>();
+        for (Class<?> repository : repositories) {
+            for (Method method : repository.getDeclaredMethods()) {
+                if (method.isSynthetic() || method.isDefault() || Modifier.isStatic(method.getModifiers())) continue;
+                String signature = signature(repository, method);
+                if (queries.keySet().stream().noneMatch(query -> query.startsWith(signature))) missing.add(signature);
+            }
+        }
+        assertTrue("Queries not planned:\n" + String.join("\n", missing), missing.isEmpty());
+    }
+
+    @Test
+    public void repositoryQueriesScanOnlyWhereAllowed() throws SQLException {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<String> problems = new ArrayList<>();
+        for (Map.Entry<String, Runnable> query : queries.entrySet()) {
+            execute("set query_statistics false");
+            execute("set query_statistics true");
+            transaction.execute(status -> {
+                query.getValue().run();
+                return null;
+            });
+
+            List<String> scans = new ArrayList<>();
+            plans(recordedStatements()).forEach((sql, plan) -> {
+                if (plan.contains(".tableScan")) scans.add(plan);
+            });
+            boolean allowed = scansAllowed.containsKey(query.getKey());
+            if (!scans.isEmpty() && !allowed) {
+                problems.add(String.format("%s scans:%n%s", query.getKey(), String.join("\n", scans)));
+            } else if (scans.isEmpty() && allowed) {
+                problems.add(String.format("%s no longer scans, take it out of scansAllowed", query.getKey()));
+            }
+        }
+        assertTrue(String.join("\n\n", problems), problems.isEmpty());
+    }
+
+    private void query(String name, Runnable call) {
+        queries.put(name, call);
+    }
+
+    private static String signature(Class<?> repository, Method method) {
+        List<String> parameters = new ArrayList<>();
+        for (Class<?> parameter : method.getParameterTypes()) {
+            parameters.add(parameter.getSimpleName());
+        }
+        return String.format("%s.%s(%s)", repository.getSimpleName(), method.getName(),
+                String.join(", ", parameters));
+    }
+
+    /* Selects, updates and deletes. Inserts have no plan to choose. */
+    private List<String> recordedStatements() throws SQLException {
+        List<String> statements = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rows = statement.executeQuery(
+                        "select sql_statement from information_schema.query_statistics")) {
+            while (rows.next()) {
+                String sql = rows.getString(1);
+                String lower = sql.toLowerCase();
+                boolean planned = lower.startsWith("select") || lower.startsWith("update")
+                        || lower.startsWith("delete");
+                if (planned && !lower.contains("information_schema")) statements.add(sql);
+            }
+        }
+        return statements;
+    }
+
+    private Map<String, String> plans(List<String> statements) throws SQLException {
+        Map<String, String> plans = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (String sql : statements) {
+                try (PreparedStatement explain = connection.prepareStatement("explain " + sql)) {
+                    // The plan does not depend on the values, but every parameter must have one
+                    for (int i = 1; i <= explain.getParameterMetaData().getParameterCount(); i++) {
+                        explain.setNull(i, Types.NULL);
+                    }
+                    try (ResultSet plan = explain.executeQuery()) {
+                        plan.next();
+                        plans.put(sql, plan.getString(1));
+                    }
+                }
+            }
+        }
+        return plans;
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package se.teknikhogskolan.springcasemanagement.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import se.teknikhogskolan.springcasemanagement.config.JpaConfig;
+import se.teknikhogskolan.springcasemanagement.config.h2.H2InfrastructureConfig;
+import se.teknikhogskolan.springcasemanagement.model.User;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.repository.WorkItemRepository;
+import se.teknikhogskolan.springcasemanagement.service.UserService;
+import se.teknikhogskolan.springcasemanagement.service.WorkItemService;
+import se.teknikhogskolan.springcasemanagement.service.search.SearchIndex;
+import se.teknikhogskolan.springcasemanagement.service.search.SearchIndexSynchronizer;
+
+/** The test data is inserted with SQL, behind the index's back, so every test starts by rebuilding it. */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { H2InfrastructureConfig.class })
+@TestPropertySource(properties = JpaConfig.searchEnabledProperty + "=true")
+@DirtiesContext
+@SqlGroup({
+    @Sql(scripts = "insert_workitem.sql", executionPhase = ExecutionPhase.BEFORE_TEST_METHOD),
+    @Sql(scripts = "h2_clean_tables.sql", executionPhase = ExecutionPhase.AFTER_TEST_METHOD)
+})
+public class TestSearchIndexIntegration {
+
+    @Autowired
+    private SearchIndexSynchronizer synchronizer;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private WorkItemService workItemService;
+
+    @Autowired
+    private WorkItemRepository workItemRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserService userService;
+
+    @Before
+    public void rebuildIndex() {
+        synchronizer.rebuild();
+    }
+
+    @Test
+    public void descriptionSearchIsRankedAndIgnoresCase() {
+        assertEquals(Arrays.asList("Lead TMNT", "Lead foot clan", "Lead the team in battle"),
+                descriptions(workItemService.getByDescriptionContains("LEAD")));
+    }
+
+    @Test
+    public void createdWorkItemIsFound() {
+        WorkItem workItem = workItemService.create("Order pizza for the lair");
+        assertEquals(Arrays.asList(workItem.getId()), searchIndex.searchWorkItems("pizza"));
+        assertEquals(Arrays.asList("Order pizza for the lair"),
+                descriptions(workItemService.getByDescriptionContains("pizza")));
+    }
+
+    @Test
+    public void removedWorkItemIsNotFound() {
+        workItemService.removeById(98481212L);
+        assertEquals(Arrays.asList("Lead TMNT", "Lead the team in battle"),
+                descriptions(workItemService.getByDescriptionContains("lead")));
+    }
+
+    @Test
+    public void savedChangedAndDeletedWorkItemIsSearchedFor() {
+        WorkItem workItem = workItemService.create("Train in the sewers");
+        assertEquals(Arrays.asList(workItem.getId()), searchIndex.searchWorkItems("sewer"));
+
+        workItemRepository.save(workItem.setDescription("Train on the rooftops"));
+        assertTrue(searchIndex.searchWorkItems("sewer").isEmpty());
+        assertEquals(Arrays.asList(workItem.getId()), searchIndex.searchWorkItems("rooftop"));
+
+        workItemRepository.delete(workItem.getId());
+        assertTrue(searchIndex.searchWorkItems("rooftop").isEmpty());
+    }
+
+    @Test
+    public void rebuildFindsRowsWrittenBehindHibernate() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("insert into WorkItem (id, created, description, status) "
+                    + "values (77777777, '2016-11-11', 'Sharpen the katanas', 'UNSTARTED')");
+            statement.executeUpdate("delete from WorkItem where id = 98481212");
+        }
+        assertTrue(searchIndex.searchWorkItems("katana").isEmpty());
+        assertEquals(Arrays.asList(98481212L), searchIndex.searchWorkItems("foot clan"));
+
+        synchronizer.rebuild();
+        assertEquals(Arrays.asList(77777777L), searchIndex.searchWorkItems("katana"));
+        assertTrue(searchIndex.searchWorkItems("foot clan").isEmpty());
+    }
+
+    @Test
+    public void userSearchIsServedFromIndex() {
+        User april = userService.create(30001L, "aprilONeil", "April", "O'Neil");
+        userService.create(30002L, "caseyjones", "Casey", "Jones");
+
+        List<User> users = userService.search("apr", "neil", "");
+        assertEquals(1, users.size());
+        assertEquals(april.getId(), users.get(0).getId());
+
+        userService.updateLastName(30001L, "Jones");
+        assertEquals(Arrays.asList("aprilONeil", "caseyjones"), usernames(userService.search("", "jones", "")));
+    }
+
+    private List<String> descriptions(Iterable<WorkItem> workItems) {
+        List<String> descriptions = new ArrayList<>();
+        workItems.forEach(workItem -> descriptions.add(workItem.getDescription()));
+        return descriptions;
+    }
+
+    private List<String> usernames(List<User> users) {
+        List<String> usernames = new ArrayList<>();
+        users.forEach(user -> usernames.add(user.getUsername()));
+        return usernames;
+    }
+}
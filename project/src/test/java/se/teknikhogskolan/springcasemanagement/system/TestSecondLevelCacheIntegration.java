@@ -0,0 +1,104 @@
+package se.teknikhogskolan.springcasemanagement.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import se.teknikhogskolan.springcasemanagement.config.JpaConfig;
+import se.teknikhogskolan.springcasemanagement.config.h2.H2InfrastructureConfig;
+import se.teknikhogskolan.springcasemanagement.model.Team;
+import se.teknikhogskolan.springcasemanagement.service.TeamService;
+import se.teknikhogskolan.springcasemanagement.service.UserService;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { H2InfrastructureConfig.class })
+@TestPropertySource(properties = { JpaConfig.cacheEnabledProperty + "=true",
+        JpaConfig.statisticsEnabledProperty + "=true" })
+@DirtiesContext
+@SqlGroup({ @Sql(scripts = "insert_team.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+        @Sql(scripts = "h2_clean_tables.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD) })
+public class TestSecondLevelCacheIntegration {
+
+    private static final String teamRegion = Team.class.getName();
+
+    // Same as in the insert_team.sql file
+    private final Long teamId = 1L;
+    private final String teamName = "test";
+    private final Long userNumber = 1L;
+
+    @Autowired
+    private TeamService teamService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        // The test data is inserted with SQL, behind the cache's back
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @Test
+    public void secondLookupByIdIsServedFromCache() {
+        teamService.getById(teamId);
+        long statements = statistics.getPrepareStatementCount();
+
+        teamService.getById(teamId);
+
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getSecondLevelCacheStatistics(teamRegion).getHitCount() > 0);
+    }
+
+    @Test
+    public void secondLookupByNameIsServedFromQueryCache() {
+        teamService.getByName(teamName);
+        long statements = statistics.getPrepareStatementCount();
+
+        teamService.getByName(teamName);
+
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheStatistics("query.teamByName").getHitCount());
+    }
+
+    @Test
+    public void secondLookupByUserNumberIsServedFromQueryCache() {
+        userService.getByUserNumber(userNumber);
+        long statements = statistics.getPrepareStatementCount();
+
+        userService.getByUserNumber(userNumber);
+
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheStatistics("query.userByNumber").getHitCount());
+    }
+
+    @Test
+    public void updateIsVisibleThroughCache() {
+        teamService.getById(teamId);
+        teamService.getByName(teamName);
+
+        teamService.updateName(teamId, "renamed");
+
+        assertEquals("renamed", teamService.getById(teamId).getName());
+        assertEquals(teamId, teamService.getByName("renamed").getId());
+    }
+}
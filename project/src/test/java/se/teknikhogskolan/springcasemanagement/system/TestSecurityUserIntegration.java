@@ -1,6 +1,8 @@
 package se.teknikhogskolan.springcasemanagement.system;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.ForkJoinPool;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -12,7 +14,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import se.teknikhogskolan.springcasemanagement.config.h2.H2InfrastructureConfig;
+import se.teknikhogskolan.springcasemanagement.model.SecurityToken;
 import se.teknikhogskolan.springcasemanagement.model.SecurityUser;
+import se.teknikhogskolan.springcasemanagement.repository.SecurityTokenRepository;
+import se.teknikhogskolan.springcasemanagement.repository.SecurityUserRepository;
+import se.teknikhogskolan.springcasemanagement.service.ExpiredTokenSweeper;
 import se.teknikhogskolan.springcasemanagement.service.SecurityUserService;
 import se.teknikhogskolan.springcasemanagement.service.exception.NotAllowedException;
 import se.teknikhogskolan.springcasemanagement.service.exception.NotAuthorizedException;
@@ -36,6 +42,15 @@ public class TestSecurityUserIntegration {
     @Autowired
     private SecurityUserService service;
 
+    @Autowired
+    private SecurityUserRepository repository;
+
+    @Autowired
+    private SecurityTokenRepository tokenRepository;
+
+    @Autowired
+    private ExpiredTokenSweeper sweeper;
+
     @Rule
     public ExpectedException thrown = ExpectedException.none();
 
@@ -125,9 +140,39 @@ public class TestSecurityUserIntegration {
         service.verify(wrongCases);
     }
 
+    @Test
+    public void canFindUserByToken() {
+        String token = service.createTokenFor(username, password);
+        assertEquals(userId, repository.findByToken(token).getId());
+    }
+
+    @Test
+    public void canCreateTokenAsynchronously() {
+        String token = service.createTokenForAsync(username, password, ForkJoinPool.commonPool()).join();
+        service.verify(token);
+    }
+
+    @Test
+    public void asynchronousTokenDemandValidPassword() {
+        thrown.expectCause(org.hamcrest.CoreMatchers.isA(NotAuthorizedException.class));
+        service.createTokenForAsync(username, "burnitalldown", ForkJoinPool.commonPool()).join();
+    }
+
     @Test
     public void canCreateToken() {
         String token = service.createTokenFor(username, password);
         service.verify(token);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void sweeperRemovesOnlyExpiredTokens() {
+        String liveToken = service.createTokenFor(username, password);
+        SecurityUser user = repository.findByUsername(username);
+        tokenRepository.save(new SecurityToken("expiredToken", user, LocalDateTime.now().minusMinutes(1)));
+
+        assertEquals(1, sweeper.sweep());
+
+        assertNull(tokenRepository.findByToken("expiredToken"));
+        assertNotNull(tokenRepository.findByToken(liveToken));
+    }
+}
@@ -0,0 +1,109 @@
+package se.teknikhogskolan.springcasemanagement.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import se.teknikhogskolan.springcasemanagement.config.MetricsConfig;
+import se.teknikhogskolan.springcasemanagement.config.h2.H2InfrastructureConfig;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.service.PasswordHashingExecutor;
+import se.teknikhogskolan.springcasemanagement.service.WorkItemService;
+import se.teknikhogskolan.springcasemanagement.service.exception.NotFoundException;
+import se.teknikhogskolan.springcasemanagement.service.metrics.OperationSnapshot;
+import se.teknikhogskolan.springcasemanagement.service.metrics.ServiceMetrics;
+
+/** A context of its own, as the MBean of a cached context closed earlier may have gone with it. */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { H2InfrastructureConfig.class })
+@DirtiesContext(classMode = ClassMode.BEFORE_CLASS)
+@SqlGroup({
+    @Sql(scripts = "insert_workitem.sql", executionPhase = ExecutionPhase.BEFORE_TEST_METHOD),
+    @Sql(scripts = "h2_clean_tables.sql", executionPhase = ExecutionPhase.AFTER_TEST_METHOD)
+})
+public class TestServiceMetricsIntegration {
+
+    @Autowired
+    private ServiceMetrics metrics;
+
+    @Autowired
+    private WorkItemService workItemService;
+
+    @Autowired
+    private PasswordHashingExecutor hashingExecutor;
+
+    @Before
+    public void resetMetrics() {
+        metrics.reset();
+    }
+
+    @Test
+    public void serviceCallsAreRecordedWithTheirExceptions() {
+        workItemService.getById(98486464L);
+        try {
+            workItemService.getById(1L);
+            fail("Expected NotFoundException");
+        } catch (NotFoundException e) {
+            // Counted below
+        }
+
+        OperationSnapshot snapshot = metrics.getOperation("WorkItemService.getById");
+        assertEquals(2, snapshot.getCalls());
+        assertEquals(Long.valueOf(1), snapshot.getExceptions().get("NotFoundException"));
+    }
+
+    @Test
+    public void callsBetweenServicesToPackagePrivateMethodsAreNotRecorded() {
+        workItemService.setStatus(Arrays.asList(98486464L), WorkItem.Status.DONE);
+
+        assertEquals(1, metrics.getOperation("WorkItemService.setStatus(List,Status)").getCalls());
+        assertFalse(metrics.getOperations().keySet().stream().anyMatch(name -> name.startsWith("StatisticsService")));
+    }
+
+    @Test
+    public void snapshotsArePublishedOverJmx() throws Exception {
+        workItemService.getById(98486464L);
+
+        TabularData operations = (TabularData) ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(MetricsConfig.serviceMetricsObjectName), "Operations");
+        CompositeData row = operations.get(new Object[] { "WorkItemService.getById" });
+        assertNotNull(row);
+        CompositeData snapshot = (CompositeData) row.get("value");
+        assertEquals(1L, snapshot.get("calls"));
+    }
+
+    @Test
+    public void passwordHashingIsPublishedOverJmx() throws Exception {
+        hashingExecutor.reset();
+        hashingExecutor.hashAndWait("backinblack", "salt");
+
+        assertEquals(1L, ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(MetricsConfig.passwordHashingObjectName), "CompletedCount"));
+    }
+
+    @Test
+    public void conflictsArePublishedOverJmx() throws Exception {
+        assertNotNull(ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(MetricsConfig.conflictRetrierObjectName), "Conflicts"));
+    }
+}
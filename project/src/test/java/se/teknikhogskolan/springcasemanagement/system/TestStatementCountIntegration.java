@@ -0,0 +1,108 @@
+package se.teknikhogskolan.springcasemanagement.system;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import se.teknikhogskolan.springcasemanagement.config.h2.H2InfrastructureConfig;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.service.TeamService;
+import se.teknikhogskolan.springcasemanagement.service.UserService;
+import se.teknikhogskolan.springcasemanagement.service.WorkItemService;
+import se.teknikhogskolan.springcasemanagement.service.metrics.ServiceMetrics;
+import se.teknikhogskolan.springcasemanagement.service.metrics.StatementCounter;
+import se.teknikhogskolan.springcasemanagement.service.metrics.StatementRecording;
+
+/** Statement budgets of the service calls the eager mappings could turn into a statement per row. */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { H2InfrastructureConfig.class })
+@SqlGroup({
+    @Sql(scripts = "insert_workitem.sql", executionPhase = ExecutionPhase.BEFORE_TEST_METHOD),
+    @Sql(scripts = "h2_clean_tables.sql", executionPhase = ExecutionPhase.AFTER_TEST_METHOD)
+})
+public class TestStatementCountIntegration {
+
+    private final Long teamId = 2465878L;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private ServiceMetrics metrics;
+
+    @Autowired
+    private WorkItemService workItemService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TeamService teamService;
+
+    private StatementRecording recording;
+
+    @Before
+    public void startRecording() {
+        metrics.reset();
+        recording = statementCounter.startRecording();
+    }
+
+    @After
+    public void stopRecording() {
+        recording.close();
+    }
+
+    @Test
+    public void getWorkItemById() {
+        workItemService.getById(45634545L);
+        recording.assertAtMost(1);
+    }
+
+    @Test
+    public void getWorkItemsByTeamId() {
+        assertEquals(2, workItemService.getByTeamId(teamId).size());
+        recording.assertAtMost(2);
+    }
+
+    /** Count, page, and the issues and teams the page rows refer to, loaded separately. */
+    @Test
+    public void getWorkItemsByPage() {
+        workItemService.getAllByPage(0, 20);
+        recording.assertAtMost(4);
+    }
+
+    @Test
+    public void getUserByUserNumber() {
+        userService.getByUserNumber(10003L);
+        recording.assertAtMost(2);
+    }
+
+    @Test
+    public void getTeamById() {
+        teamService.getById(teamId);
+        recording.assertAtMost(1);
+    }
+
+    /** Includes the daily counts and team workload written after the commit. */
+    @Test
+    public void setStatus() {
+        workItemService.setStatus(45634545L, WorkItem.Status.DONE);
+        recording.assertAtMost("update", 2).assertAtMost(10);
+    }
+
+    @Test
+    public void statementsAreRecordedPerServiceCall() {
+        workItemService.getByTeamId(teamId);
+
+        assertEquals(recording.getCount(), metrics.getOperation("WorkItemService.getByTeamId").getStatements());
+    }
+}
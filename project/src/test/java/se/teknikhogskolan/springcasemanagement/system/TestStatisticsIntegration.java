@@ -0,0 +1,121 @@
+package se.teknikhogskolan.springcasemanagement.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import se.teknikhogskolan.springcasemanagement.config.h2.H2InfrastructureConfig;
+import se.teknikhogskolan.springcasemanagement.model.DailyWorkItemCount;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.service.StatisticsService;
+import se.teknikhogskolan.springcasemanagement.service.UserService;
+import se.teknikhogskolan.springcasemanagement.service.WorkItemService;
+import se.teknikhogskolan.springcasemanagement.service.exception.NotAllowedException;
+
+/** The test data is inserted with SQL and is not counted, so counts start from nothing in every test. */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { H2InfrastructureConfig.class })
+@SqlGroup({
+    @Sql(scripts = "insert_workitem.sql", executionPhase = ExecutionPhase.BEFORE_TEST_METHOD),
+    @Sql(scripts = "h2_clean_tables.sql", executionPhase = ExecutionPhase.AFTER_TEST_METHOD)
+})
+public class TestStatisticsIntegration {
+
+    private final Long teamId = 2465878L;
+    private final Long leonardo = 10003L;
+    private final LocalDate today = LocalDate.now();
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private WorkItemService workItemService;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    public void createdWorkItemsAreCountedWithoutTeam() {
+        workItemService.create("Train in the sewers");
+        workItemService.createAll(Arrays.asList("Skateboard", "Be evil"));
+
+        assertEquals(Arrays.asList(
+                "UNSTARTED " + today + " team " + DailyWorkItemCount.noTeam + ": 2"),
+                describe(statisticsService.getDailyCounts(WorkItem.Status.UNSTARTED, today, today)));
+    }
+
+    @Test
+    public void completionsAreCountedPerTeamAndTakenBack() {
+        workItemService.setUser(leonardo, 45634545L);
+        workItemService.setStatus(45634545L, WorkItem.Status.DONE);
+        workItemService.setStatus(Arrays.asList(8658766L, 98481234L), WorkItem.Status.DONE);
+
+        assertEquals(Arrays.asList(
+                "DONE " + today + " team " + DailyWorkItemCount.noTeam + ": 2",
+                "DONE " + today + " team " + teamId + ": 1"),
+                describe(statisticsService.getCompletedPerTeamPerDay(90)));
+
+        workItemService.setStatus(8658766L, WorkItem.Status.STARTED);
+        workItemService.removeById(98481234L);
+        workItemService.setStatus(45634545L, WorkItem.Status.DONE);
+
+        assertEquals(Arrays.asList("DONE " + today + " team " + teamId + ": 1"),
+                describe(statisticsService.getCompletedPerTeamPerDay(90)));
+        assertEquals(Arrays.asList("STARTED " + today + " team " + DailyWorkItemCount.noTeam + ": 1"),
+                describe(statisticsService.getDailyCounts(WorkItem.Status.STARTED, today, today)));
+    }
+
+    @Test
+    public void completionIsTakenBackFromTheTeamItWasCompletedUnder() {
+        Long splinter = 10001L;
+        workItemService.setUser(leonardo, 45634545L);
+        workItemService.setStatus(45634545L, WorkItem.Status.DONE);
+        workItemService.setUser(splinter, 45634545L);
+        workItemService.setStatus(45634545L, WorkItem.Status.STARTED);
+
+        assertTrue(statisticsService.getCompletedPerTeamPerDay(90).isEmpty());
+    }
+
+    @Test
+    public void inactivatingUserTakesBackCompletionsOfItsWorkItems() {
+        workItemService.setStatus(98486464L, WorkItem.Status.DONE);
+        assertEquals(Arrays.asList("DONE " + today + " team " + teamId + ": 1"),
+                describe(statisticsService.getCompletedPerTeamPerDay(90)));
+
+        userService.inactivate(leonardo);
+
+        assertTrue(statisticsService.getCompletedPerTeamPerDay(90).isEmpty());
+        assertEquals(Arrays.asList("UNSTARTED " + today + " team " + teamId + ": 1"),
+                describe(statisticsService.getDailyCounts(WorkItem.Status.UNSTARTED, today, today)));
+    }
+
+    @Test
+    public void failedChangeIsNotCounted() {
+        try {
+            workItemService.create("Be evil");
+        } catch (NotAllowedException e) {
+            // Description is taken
+        }
+        assertTrue(statisticsService.getDailyCounts(WorkItem.Status.UNSTARTED, today, today).isEmpty());
+    }
+
+    private List<String> describe(List<DailyWorkItemCount> counts) {
+        return counts.stream()
+                .map(count -> String.format("%s %s team %d: %d", count.getStatus(), count.getCountDate(),
+                        count.getTeamId(), count.getAmount()))
+                .collect(Collectors.toList());
+    }
+}
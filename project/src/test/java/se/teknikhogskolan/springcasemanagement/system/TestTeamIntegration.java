@@ -112,6 +112,13 @@ public class TestTeamIntegration {
         assertEquals(user.getTeam(), team);
     }
 
+    @Test
+    public void addedUserIsAmongTheUsersOfTheReturnedTeam() {
+        Team team = teamService.addUserToTeam(teamId, userId);
+        assertEquals(1, team.getUsers().size());
+        assertEquals(userId, team.getUsers().iterator().next().getUserNumber());
+    }
+
     @Test
     public void canRemoveUserFromTeam() {
         canAddUserToTeam();
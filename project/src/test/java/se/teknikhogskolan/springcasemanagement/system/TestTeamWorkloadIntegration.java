@@ -0,0 +1,90 @@
+package se.teknikhogskolan.springcasemanagement.system;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import se.teknikhogskolan.springcasemanagement.config.h2.H2InfrastructureConfig;
+import se.teknikhogskolan.springcasemanagement.model.TeamWorkload;
+import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.service.TeamService;
+import se.teknikhogskolan.springcasemanagement.service.TeamWorkloadService;
+import se.teknikhogskolan.springcasemanagement.service.UserService;
+import se.teknikhogskolan.springcasemanagement.service.WorkItemService;
+
+/** The test data is inserted with SQL, so the team has no workload until the first change or refresh. */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { H2InfrastructureConfig.class })
+@SqlGroup({
+    @Sql(scripts = "insert_workitem.sql", executionPhase = ExecutionPhase.BEFORE_TEST_METHOD),
+    @Sql(scripts = "h2_clean_tables.sql", executionPhase = ExecutionPhase.AFTER_TEST_METHOD)
+})
+public class TestTeamWorkloadIntegration {
+
+    private final Long teamId = 2465878L;
+
+    @Autowired
+    private TeamWorkloadService workloadService;
+
+    @Autowired
+    private WorkItemService workItemService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TeamService teamService;
+
+    @Test
+    public void refreshWorksOutWorkloadFromWorkItems() {
+        assertEquals("unstarted 0, started 0, done 0, oldest null", describe(workloadService.getByTeamId(teamId)));
+
+        workloadService.refresh(teamId);
+
+        assertEquals("unstarted 1, started 1, done 0, oldest 45634545",
+                describe(workloadService.getByTeamId(teamId)));
+        assertEquals(1, workloadService.getAll().size());
+    }
+
+    @Test
+    public void workItemChangesKeepWorkloadCurrent() {
+        workItemService.setStatus(45634545L, WorkItem.Status.DONE);
+        assertEquals("unstarted 1, started 0, done 1, oldest 98486464",
+                describe(workloadService.getByTeamId(teamId)));
+
+        workItemService.setUser(10003L, 8658766L);
+        assertEquals("unstarted 1, started 1, done 1, oldest 8658766",
+                describe(workloadService.getByTeamId(teamId)));
+
+        workItemService.removeById(98486464L);
+        workItemService.setStatus(Arrays.asList(8658766L), WorkItem.Status.DONE);
+        assertEquals("unstarted 0, started 0, done 2, oldest null", describe(workloadService.getByTeamId(teamId)));
+    }
+
+    @Test
+    public void userChangesKeepWorkloadCurrent() {
+        Long shredder = 6165111L;
+        teamService.addUserToTeam(teamId, shredder);
+        assertEquals("unstarted 6, started 1, done 0, oldest 10186464",
+                describe(workloadService.getByTeamId(teamId)));
+
+        teamService.removeUserFromTeam(teamId, shredder);
+        userService.inactivate(10005L);
+        assertEquals("unstarted 2, started 0, done 0, oldest 45634545",
+                describe(workloadService.getByTeamId(teamId)));
+    }
+
+    private String describe(TeamWorkload workload) {
+        return String.format("unstarted %d, started %d, done %d, oldest %d", workload.getUnstarted(),
+                workload.getStarted(), workload.getDone(), workload.getOldestOpenWorkItemId());
+    }
+}
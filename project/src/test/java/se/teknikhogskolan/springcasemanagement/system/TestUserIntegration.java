@@ -6,6 +6,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import junit.framework.TestCase;
@@ -22,7 +23,10 @@ import se.teknikhogskolan.springcasemanagement.config.hsql.HsqlInfrastructureCon
 import se.teknikhogskolan.springcasemanagement.model.User;
 import se.teknikhogskolan.springcasemanagement.model.WorkItem;
 import se.teknikhogskolan.springcasemanagement.model.WorkItem.Status;
+import se.teknikhogskolan.springcasemanagement.repository.UserSummary;
 import se.teknikhogskolan.springcasemanagement.service.UserService;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.Chunk;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.ContinuationToken;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(classes = { HsqlInfrastructureConfig.class })
@@ -143,6 +147,17 @@ public class TestUserIntegration {
         assertTrue(usersFromDataBase.contains(leia));
     }
 
+    @Test
+    public void searchSummaries() {
+        List<UserSummary> summaries = userService.searchSummaries("", "Skywalker", "");
+
+        assertEquals(2, summaries.size());
+        assertEquals(Long.valueOf(1L), summaries.get(0).getUserNumber());
+        assertEquals("Robotarm Luke", summaries.get(0).getUsername());
+        assertEquals(Long.valueOf(3L), summaries.get(1).getUserNumber());
+        assertEquals("I am your sister", summaries.get(1).getUsername());
+    }
+
     @Test
     public void getAllByPage() {
         Page<User> userPage = userService.getAllByPage(0, 2);
@@ -166,4 +181,15 @@ public class TestUserIntegration {
         assertTrue(usersFromDatabase.contains(luke));
         assertTrue(usersFromDatabase.contains(vader));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void canGetUsersByChunksInCreatedOrder() {
+        Chunk<User> first = userService.getFirstChunk(3, ContinuationToken.Order.CREATED);
+        assertEquals(Arrays.asList(luke, vader, leia), first.getContent());
+        assertTrue(first.hasNext());
+
+        Chunk<User> last = userService.getNextChunk(first.getContinuationToken(), 3);
+        assertEquals(Arrays.asList(yoda), last.getContent());
+        assertFalse(last.hasNext());
+    }
+}
@@ -9,11 +9,18 @@ import static se.teknikhogskolan.springcasemanagement.model.WorkItem.Status.DONE
 import static se.teknikhogskolan.springcasemanagement.model.WorkItem.Status.STARTED;
 import static se.teknikhogskolan.springcasemanagement.model.WorkItem.Status.UNSTARTED;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import junit.framework.TestCase;
 import org.junit.Rule;
@@ -30,8 +37,15 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import se.teknikhogskolan.springcasemanagement.config.h2.H2InfrastructureConfig;
 import se.teknikhogskolan.springcasemanagement.model.Issue;
 import se.teknikhogskolan.springcasemanagement.model.WorkItem;
+import se.teknikhogskolan.springcasemanagement.repository.WorkItemSummary;
+import se.teknikhogskolan.springcasemanagement.service.ExportFormat;
 import se.teknikhogskolan.springcasemanagement.service.WorkItemService;
 import se.teknikhogskolan.springcasemanagement.service.exception.*;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.BatchResult;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.Chunk;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.ContinuationToken;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.Piece;
+import se.teknikhogskolan.springcasemanagement.service.wrapper.WorkItemCriteria;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(classes = { H2InfrastructureConfig.class })
@@ -133,6 +147,95 @@ public class TestWorkItemIntegration {
         workItemService.setUser(usernumberWithFiveWorkItems, workItemIdWithoutUser);
     }
 
+    @Test
+    public void concurrentAssignmentsStopAtLimit() throws Exception {
+        Long leonardo = 10003L;
+        List<Long> workItemIds = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            workItemIds.add(workItemService.create("Practice kata #" + i).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(workItemIds.size());
+        List<Future<WorkItem>> assignments = new ArrayList<>();
+        try {
+            for (Long workItemId : workItemIds) {
+                assignments.add(executor.submit(() -> workItemService.setUser(leonardo, workItemId)));
+            }
+            int assigned = 0;
+            for (Future<WorkItem> assignment : assignments) {
+                try {
+                    assignment.get();
+                    assigned++;
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause().toString(), e.getCause() instanceof MaximumQuantityException);
+                }
+            }
+            assertEquals(4, assigned);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(5, workItemService.getByUsernumber(leonardo).size());
+    }
+
+    @Test
+    public void concurrentChangesToSameWorkItemAreNotLost() throws Exception {
+        Long raphael = 10002L;
+        List<Long> workItemIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            workItemIds.add(workItemService.create("Train with Splinter #" + i).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2 * workItemIds.size());
+        List<Future<WorkItem>> changes = new ArrayList<>();
+        try {
+            for (Long workItemId : workItemIds) {
+                changes.add(executor.submit(() -> workItemService.setStatus(workItemId, DONE)));
+                changes.add(executor.submit(() -> workItemService.setUser(raphael, workItemId)));
+            }
+            for (Future<WorkItem> change : changes) {
+                change.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (Long workItemId : workItemIds) {
+            WorkItem workItem = workItemService.getById(workItemId);
+            assertEquals(DONE, workItem.getStatus());
+            assertEquals(raphael, workItem.getUser().getUserNumber());
+            assertEquals(Long.valueOf(2), workItem.getVersion());
+        }
+    }
+
+    @Test
+    public void concurrentChangesToWorkItemsSetInBulkAreNotLost() throws Exception {
+        Long raphael = 10002L;
+        List<Long> workItemIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            workItemIds.add(workItemService.create("Spar with Leonardo #" + i).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(workItemIds.size() + 1);
+        List<Future<?>> changes = new ArrayList<>();
+        try {
+            changes.add(executor.submit(() -> workItemService.setStatus(workItemIds, DONE)));
+            for (Long workItemId : workItemIds) {
+                changes.add(executor.submit(() -> workItemService.setUser(raphael, workItemId)));
+            }
+            for (Future<?> change : changes) {
+                change.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (Long workItemId : workItemIds) {
+            WorkItem workItem = workItemService.getById(workItemId);
+            assertEquals(DONE, workItem.getStatus());
+            assertEquals(raphael, workItem.getUser().getUserNumber());
+        }
+    }
+
     @Test
     public void canGetByStatus() {
         final int workItemsStarted = 3;
@@ -250,4 +353,162 @@ public class TestWorkItemIntegration {
         workItemService.create(description);
         workItemService.create(description);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void createAllReportsExistingDescriptionsPerRow() {
+        BatchResult<WorkItem> result = workItemService.createAll(Arrays.asList("Bulk one", "Be evil", "Bulk two"));
+
+        assertEquals(2, result.getAccepted().size());
+        assertEquals(1, result.getRejected().size());
+        assertEquals(1, result.getRejected().get(0).getRow());
+        assertEquals(2, workItemService.getByDescriptionContains("Bulk").size());
+    }
+
+    @Test
+    public void createAllSavesMoreThanOneBatch() {
+        List<String> descriptions = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            descriptions.add("Bulk " + i);
+        }
+
+        BatchResult<WorkItem> result = workItemService.createAll(descriptions);
+
+        assertFalse(result.hasRejections());
+        assertEquals(120, workItemService.getByDescriptionContains("Bulk").size());
+    }
+
+    @Test
+    public void canSetStatusOnManyWorkItems() {
+        BatchResult<WorkItem> result = workItemService.setStatus(Arrays.asList(98481111L, 98422222L, 1L), DONE);
+
+        assertEquals(2, result.getAccepted().size());
+        assertEquals(2, result.getRejected().get(0).getRow());
+        assertEquals(DONE, workItemService.getById(98481111L).getStatus());
+        assertEquals(DONE, workItemService.getById(98422222L).getStatus());
+        assertNotNull(workItemService.getById(98422222L).getCompletionDate());
+    }
+
+    @Test
+    public void canWalkAllWorkItemsByChunks() {
+        List<Long> ids = new ArrayList<>();
+        Chunk<WorkItem> chunk = workItemService.getFirstChunk(4, ContinuationToken.Order.ID);
+        chunk.getContent().forEach(workItem -> ids.add(workItem.getId()));
+        while (chunk.hasNext()) {
+            chunk = workItemService.getNextChunk(chunk.getContinuationToken(), 4);
+            chunk.getContent().forEach(workItem -> ids.add(workItem.getId()));
+        }
+
+        assertEquals(Arrays.asList(8658766L, 10186464L, 12343456L, 45634545L, 98422222L, 98481111L, 98481212L,
+                98481234L, 98486464L), ids);
+    }
+
+    @Test
+    public void searchCombinesFilters() {
+        WorkItemCriteria teamStarted = new WorkItemCriteria().setTeamId(2465878L).setStatus(STARTED);
+        assertEquals(Arrays.asList(45634545L), ids(workItemService.search(teamStarted, 10, ContinuationToken.Order.ID)));
+
+        WorkItemCriteria evilShredder = new WorkItemCriteria().setUserId(6165111L).setDescriptionContains("evil")
+                .setCreatedBetween(LocalDate.of(2016, 11, 1), LocalDate.of(2016, 11, 30));
+        assertEquals(Arrays.asList(10186464L, 98481111L),
+                ids(workItemService.search(evilShredder, 10, ContinuationToken.Order.ID)));
+
+        WorkItemCriteria nothingDone = new WorkItemCriteria().setStatus(DONE);
+        assertFalse(workItemService.search(nothingDone, 10, ContinuationToken.Order.ID).hasContent());
+    }
+
+    @Test
+    public void searchMatchesWildcardCharactersAsText() {
+        Long percent = workItemService.create("Eat 100% of the pizza").getId();
+        Long underscore = workItemService.create("Rename pizza_box").getId();
+        Long backslash = workItemService.create("Escape C:\\sewer").getId();
+
+        assertEquals(Arrays.asList(percent), ids(workItemService.search(
+                new WorkItemCriteria().setDescriptionContains("%"), 10, ContinuationToken.Order.ID)));
+        assertEquals(Arrays.asList(underscore), ids(workItemService.search(
+                new WorkItemCriteria().setDescriptionContains("a_b"), 10, ContinuationToken.Order.ID)));
+        assertEquals(Arrays.asList(backslash), ids(workItemService.search(
+                new WorkItemCriteria().setDescriptionContains(":\\"), 10, ContinuationToken.Order.ID)));
+    }
+
+    @Test
+    public void canWalkSearchResultsByChunks() {
+        WorkItemCriteria unstarted = new WorkItemCriteria().setStatus(UNSTARTED);
+        List<Long> ids = new ArrayList<>();
+        Chunk<WorkItem> chunk = workItemService.search(unstarted, 2, ContinuationToken.Order.CREATED);
+        ids.addAll(ids(chunk));
+        while (chunk.hasNext()) {
+            chunk = workItemService.searchNext(unstarted, chunk.getContinuationToken(), 2);
+            ids.addAll(ids(chunk));
+        }
+
+        assertEquals(Arrays.asList(10186464L, 98422222L, 98481111L, 98481212L, 98481234L, 98486464L), ids);
+    }
+
+    private List<Long> ids(Chunk<WorkItem> chunk) {
+        List<Long> ids = new ArrayList<>();
+        chunk.getContent().forEach(workItem -> ids.add(workItem.getId()));
+        return ids;
+    }
+
+    @Test
+    public void invalidContinuationTokenIsNotAllowed() {
+        exception.expect(NotAllowedException.class);
+        workItemService.getNextChunk("not a token", 4);
+    }
+
+    @Test
+    public void pieceKnowsTotal() {
+        Piece<WorkItem> piece = workItemService.getAllByPiece(0, 4);
+        assertEquals(4, piece.getNumberOfElements());
+        assertTrue(piece.hasNext());
+        assertEquals(9, piece.getTotalElements());
+        assertEquals(3, piece.getTotalPages());
+    }
+
+    @Test
+    public void canExportAllWorkItemsAsCsv() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = workItemService.export(out, ExportFormat.CSV, 2);
+
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(9, rows);
+        assertEquals(10, lines.length);
+        assertEquals("id,description,status,completionDate,created,lastModified,userId,issueId", lines[0]);
+        assertEquals("8658766,Invent cool stuff,STARTED,,2016-11-11,,,", lines[1]);
+        assertEquals("12343456,Lead TMNT,STARTED,,2016-11-11,,68165,123541", lines[3]);
+    }
+
+    @Test
+    public void canExportAllWorkItemsAsJsonLines() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = workItemService.export(out, ExportFormat.JSON_LINES);
+
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(9, rows);
+        assertEquals(9, lines.length);
+        assertEquals("{\"id\":98486464,\"description\":\"Lead the team in battle\",\"status\":\"UNSTARTED\","
+                + "\"completionDate\":null,\"created\":\"2016-11-11\",\"lastModified\":null,\"userId\":26344,"
+                + "\"issueId\":null}", lines[8]);
+    }
+
+    @Test
+    public void canGetSummariesByStatus() {
+        List<WorkItemSummary> summaries = workItemService.getSummariesByStatus(STARTED);
+
+        assertEquals(3, summaries.size());
+        assertEquals("Invent cool stuff", summaries.get(0).getDescription());
+        assertNull(summaries.get(0).getUsername());
+        assertEquals("Splinter", summaries.get(1).getUsername());
+        assertEquals("Michaelangelo", summaries.get(2).getUsername());
+    }
+
+    @Test
+    public void canGetSummariesByTeamId() {
+        List<WorkItemSummary> summaries = workItemService.getSummariesByTeamId(2465878L);
+
+        assertEquals(2, summaries.size());
+        assertEquals(Long.valueOf(45634545L), summaries.get(0).getId());
+        assertEquals(STARTED, summaries.get(0).getStatus());
+        assertEquals("Leonardo", summaries.get(1).getUsername());
+    }
+}
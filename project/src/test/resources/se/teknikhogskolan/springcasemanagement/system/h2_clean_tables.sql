@@ -4,4 +4,6 @@ truncate table WorkItem;
 truncate table User;
 truncate table Team;
 truncate table Issue;
+truncate table DailyWorkItemCount;
+truncate table TeamWorkload;
 SET FOREIGN_KEY_CHECKS=1;
\ No newline at end of file